@@ -0,0 +1,94 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.SolrSearchIndex;
+
+/**
+ * Sets up the connector with the unit test configuration, an in-memory Solr stand-in and a static source document provider. Paths are
+ * resolved against the directory given in the system property <code>connector.root</code> (default: working directory), which must be the
+ * connector project root.
+ */
+public final class BenchmarkEnvironment {
+
+    /** Record identifier of the synthetic Solr documents */
+    public static final String PI = "PPN517154005";
+    /** Number of synthetic full-text pages per record */
+    public static final int NUM_PAGES = 50;
+
+    /** Connector unit test configuration, relative to the project root */
+    public static final String TEST_CONFIG = "src/test/resources/config_oai.test.xml";
+
+    private static final String TOC = "Title page\nPreface\nChapter 1\nChapter 2\nChapter 3\nIndex";
+
+    private static volatile boolean initialized = false;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Injects the test configuration, the Solr stand-in and the source document provider. Safe to call repeatedly.
+     */
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        initConfiguration(resolve(TEST_CONFIG));
+        DataManager.getInstance().injectSearchIndex(new SolrSearchIndex(new StubSolrClient(PI, NUM_PAGES), true));
+        DataManager.getInstance().injectSourceDocumentProvider(new StaticSourceDocumentProvider(TOC));
+        initialized = true;
+    }
+
+    /**
+     * Injects the given connector configuration and the core unit test configuration.
+     *
+     * @param configPath Connector configuration file
+     */
+    public static void initConfiguration(Path configPath) {
+        if (System.getProperty("log4j.configurationFile") == null) {
+            System.setProperty("log4j.configurationFile", resolve("src/test/resources/log4j2.test.xml").toString());
+        }
+        DataManager.getInstance().injectConfiguration(new Configuration(configPath.toString()));
+        io.goobi.viewer.controller.DataManager.getInstance()
+                .injectConfiguration(new io.goobi.viewer.controller.Configuration(resolve("src/test/resources/config_viewer.test.xml").toString()));
+    }
+
+    /**
+     * 
+     * @param path Path relative to the connector project root
+     * @return Absolute {@link Path}
+     */
+    public static Path resolve(String path) {
+        return new File(System.getProperty("connector.root", ".")).toPath().resolve(path).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 
+     * @param path Fixture path relative to <code>src/test/resources/</code>
+     * @return File content
+     * @throws IOException
+     */
+    public static byte[] readFixture(String path) throws IOException {
+        return Files.readAllBytes(resolve("src/test/resources/" + path));
+    }
+}
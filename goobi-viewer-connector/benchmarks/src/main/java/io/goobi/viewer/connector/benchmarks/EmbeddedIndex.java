@@ -0,0 +1,221 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.common.SolrInputDocument;
+
+import io.goobi.viewer.solr.SolrConstants;
+import io.goobi.viewer.solr.SolrConstants.DocType;
+
+/**
+ * In-process Solr core with a subset of the Goobi viewer schema, seeded with synthetic records. Every tenth record is a LIDO record, every
+ * tenth an anchor with two volumes and every twentieth a deleted record; all others are METS monographs. Each work has one child structure
+ * element and a configurable number of pages with full-text and page URNs.
+ */
+public class EmbeddedIndex implements Closeable {
+
+    private static final String CORE_NAME = "harvest";
+    private static final String[] SOLR_HOME_FILES =
+            { "solr.xml", CORE_NAME + "/core.properties", CORE_NAME + "/conf/solrconfig.xml", CORE_NAME + "/conf/schema.xml" };
+    private static final int BATCH_SIZE = 1000;
+    /** 2020-01-01T00:00:00Z */
+    private static final long BASE_TIMESTAMP = 1_577_836_800_000L;
+    private static final long ONE_DAY = 86_400_000L;
+
+    private final Path solrHome;
+    private final EmbeddedSolrServer server;
+    private final List<SolrInputDocument> batch = new ArrayList<>(BATCH_SIZE);
+    private long nextIddoc = 1;
+
+    /**
+     * Copies the Solr home from the classpath into a temporary folder and starts the core.
+     *
+     * @throws IOException
+     */
+    public EmbeddedIndex() throws IOException {
+        solrHome = Files.createTempDirectory("connector-harvest-solr");
+        for (String file : SOLR_HOME_FILES) {
+            Path target = solrHome.resolve(file);
+            Files.createDirectories(target.getParent());
+            try (InputStream in = EmbeddedIndex.class.getResourceAsStream("/solr/" + file)) {
+                if (in == null) {
+                    throw new IOException("Solr home resource not found: " + file);
+                }
+                Files.copy(in, target);
+            }
+        }
+        server = new EmbeddedSolrServer(solrHome, CORE_NAME);
+    }
+
+    /**
+     * 
+     * @return {@link SolrClient} for the embedded core
+     */
+    public SolrClient getClient() {
+        return server;
+    }
+
+    /**
+     * Indexes the given number of synthetic top-level records.
+     *
+     * @param numRecords Number of top-level records (works, anchors, deleted records)
+     * @param numPages Number of pages per work
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    public void seed(int numRecords, int numPages) throws SolrServerException, IOException {
+        for (int i = 0; i < numRecords; ++i) {
+            long timestamp = BASE_TIMESTAMP + i * ONE_DAY / 24;
+            if (i % 20 == 19) {
+                addDeleted("DELETED_" + i, timestamp);
+            } else if (i % 10 == 9) {
+                addWork("LIDO_" + i, "LIDO", "museum_object", null, timestamp, numPages);
+            } else if (i % 10 == 4) {
+                String anchorIddoc = addAnchor("ANCHOR_" + i, timestamp);
+                addWork("ANCHOR_" + i + "_1", "METS", "volume", anchorIddoc, timestamp, numPages);
+                addWork("ANCHOR_" + i + "_2", "METS", "volume", anchorIddoc, timestamp + ONE_DAY, numPages);
+            } else {
+                addWork("PPN" + (100_000_000 + i), "METS", "monograph", null, timestamp, numPages);
+            }
+        }
+        flush();
+        server.commit();
+    }
+
+    private String addAnchor(String pi, long timestamp) throws SolrServerException, IOException {
+        SolrInputDocument doc = createTopDoc(pi, "METS", "periodical", timestamp);
+        doc.setField(SolrConstants.ISANCHOR, true);
+        add(doc);
+        return (String) doc.getFieldValue(SolrConstants.IDDOC);
+    }
+
+    private void addWork(String pi, String format, String docstrct, String anchorIddoc, long timestamp, int numPages)
+            throws SolrServerException, IOException {
+        SolrInputDocument doc = createTopDoc(pi, format, docstrct, timestamp);
+        String iddoc = (String) doc.getFieldValue(SolrConstants.IDDOC);
+        doc.setField(SolrConstants.ISWORK, true);
+        doc.setField(SolrConstants.URN, "urn:nbn:de:bench-" + pi.toLowerCase());
+        doc.setField(SolrConstants.THUMBNAIL, "00000001.tif");
+        if (anchorIddoc != null) {
+            doc.setField(SolrConstants.IDDOC_PARENT, anchorIddoc);
+        }
+        if (numPages > 0) {
+            doc.setField(SolrConstants.FULLTEXTAVAILABLE, true);
+        }
+        add(doc);
+
+        SolrInputDocument child = new SolrInputDocument();
+        child.setField(SolrConstants.IDDOC, String.valueOf(nextIddoc++));
+        child.setField(SolrConstants.DOCTYPE, DocType.DOCSTRCT.name());
+        child.setField(SolrConstants.DOCSTRCT, "chapter");
+        child.setField(SolrConstants.PI_TOPSTRUCT, pi);
+        child.setField(SolrConstants.IDDOC_PARENT, iddoc);
+        child.setField(SolrConstants.IDDOC_TOPSTRUCT, iddoc);
+        child.setField(SolrConstants.LOGID, "LOG_0001");
+        child.setField("MD_TITLE", "Chapter 1");
+        add(child);
+
+        for (int order = 1; order <= numPages; ++order) {
+            String fileName = String.format("%08d", order);
+            SolrInputDocument page = new SolrInputDocument();
+            page.setField(SolrConstants.IDDOC, String.valueOf(nextIddoc++));
+            page.setField(SolrConstants.DOCTYPE, DocType.PAGE.name());
+            page.setField(SolrConstants.PI_TOPSTRUCT, pi);
+            page.setField(SolrConstants.IDDOC_TOPSTRUCT, iddoc);
+            page.setField(SolrConstants.ORDER, order);
+            page.setField(SolrConstants.FILENAME, fileName + ".tif");
+            page.setField(SolrConstants.FILENAME_ALTO, "alto/" + pi + "/" + fileName + ".xml");
+            page.setField(SolrConstants.FILENAME_FULLTEXT, "fulltext/" + pi + "/" + fileName + ".txt");
+            page.setField(SolrConstants.FULLTEXTAVAILABLE, true);
+            page.setField(SolrConstants.ACCESSCONDITION, SolrConstants.OPEN_ACCESS_VALUE);
+            page.setField(SolrConstants.IMAGEURN, "urn:nbn:de:bench-" + pi.toLowerCase() + "-" + order);
+            add(page);
+        }
+    }
+
+    private void addDeleted(String pi, long timestamp) throws SolrServerException, IOException {
+        SolrInputDocument doc = new SolrInputDocument();
+        doc.setField(SolrConstants.IDDOC, String.valueOf(nextIddoc++));
+        doc.setField(SolrConstants.PI, pi);
+        doc.setField(SolrConstants.PI_TOPSTRUCT, pi);
+        doc.setField(SolrConstants.DATEDELETED, timestamp + ONE_DAY);
+        doc.setField(SolrConstants.DATEUPDATED, timestamp + ONE_DAY);
+        doc.setField(SolrConstants.DATECREATED, timestamp);
+        add(doc);
+    }
+
+    private SolrInputDocument createTopDoc(String pi, String format, String docstrct, long timestamp) {
+        SolrInputDocument doc = new SolrInputDocument();
+        String iddoc = String.valueOf(nextIddoc++);
+        doc.setField(SolrConstants.IDDOC, iddoc);
+        doc.setField(SolrConstants.IDDOC_TOPSTRUCT, iddoc);
+        doc.setField(SolrConstants.PI, pi);
+        doc.setField(SolrConstants.PI_TOPSTRUCT, pi);
+        doc.setField(SolrConstants.DOCTYPE, DocType.DOCSTRCT.name());
+        doc.setField(SolrConstants.DOCSTRCT, docstrct);
+        doc.setField(SolrConstants.SOURCEDOCFORMAT, format);
+        doc.setField(SolrConstants.LOGID, "LOG_0000");
+        doc.setField(SolrConstants.DATECREATED, timestamp);
+        doc.addField(SolrConstants.DATEUPDATED, timestamp);
+        doc.addField(SolrConstants.DATEUPDATED, timestamp + ONE_DAY);
+        doc.addField(SolrConstants.DC, "varia");
+        doc.addField(SolrConstants.DC, "history");
+        doc.addField(SolrConstants.ACCESSCONDITION, SolrConstants.OPEN_ACCESS_VALUE);
+        doc.setField(SolrConstants.TITLE, "Lorem ipsum " + pi);
+        doc.setField("MD_TITLE", "Lorem ipsum " + pi);
+        doc.addField("MD_CREATOR", "Doe, John");
+        doc.addField("MD_CREATOR", "Roe, Jane");
+        doc.setField("MD_PUBLISHER", "Indie");
+        doc.setField("MD_PLACEPUBLISH", "Somewhere");
+        doc.setField("MD_YEARPUBLISH", "1890");
+        doc.setField("MD_LANGUAGE", "ger");
+        doc.setField("SORT_TITLE", "Lorem ipsum " + pi);
+        return doc;
+    }
+
+    private void add(SolrInputDocument doc) throws SolrServerException, IOException {
+        batch.add(doc);
+        if (batch.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws SolrServerException, IOException {
+        if (!batch.isEmpty()) {
+            server.add(batch);
+            batch.clear();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        FileUtils.deleteQuietly(solrHome.toFile());
+    }
+}
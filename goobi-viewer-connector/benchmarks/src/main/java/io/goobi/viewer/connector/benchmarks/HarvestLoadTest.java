@@ -0,0 +1,259 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.commons.io.FileUtils;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.apache.solr.client.solrj.SolrServerException;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.metrics.MetricsFilter;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.servlets.OaiServlet;
+import io.goobi.viewer.connector.sru.SruServlet;
+import io.goobi.viewer.connector.utils.SolrSearchIndex;
+
+/**
+ * End-to-end harvest load test. Boots <code>OaiServlet</code> and <code>SruServlet</code> in an embedded Tomcat against an embedded Solr
+ * core seeded with synthetic records and a local stand-in for the viewer resolver/REST API, then runs complete multi-page harvests for each
+ * metadataPrefix with the given concurrency.
+ * <p>
+ * Options (all optional): <code>--records=1000 --pages=10 --concurrency=4 --prefixes=oai_dc,mets,... --sruQuery=&lt;CQL&gt;
+ * --sruSchemas=dc,mods --sruPageSize=50</code>. Without <code>--prefixes</code>, all enabled OAI-PMH formats are harvested. The reported heap
+ * high-water mark is the sum of the peak usage of all heap memory pools during the run of a prefix.
+ * </p>
+ */
+public final class HarvestLoadTest {
+
+    private static final String CONTEXT_PATH = "/viewer";
+
+    private HarvestLoadTest() {
+    }
+
+    /**
+     * 
+     * @param args Options
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int numRecords = Integer.parseInt(options.getOrDefault("records", "1000"));
+        int numPages = Integer.parseInt(options.getOrDefault("pages", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        int sruPageSize = Integer.parseInt(options.getOrDefault("sruPageSize", "50"));
+        String sruQuery = options.get("sruQuery");
+
+        Path workDir = Files.createTempDirectory("connector-harvest");
+        try (StubViewer viewer = new StubViewer(); EmbeddedIndex index = new EmbeddedIndex()) {
+            BenchmarkEnvironment.initConfiguration(writeConfiguration(workDir, viewer.getBaseUrl()));
+            DataManager.getInstance().injectSearchIndex(new SolrSearchIndex(index.getClient(), true));
+
+            long start = System.nanoTime();
+            index.seed(numRecords, numPages);
+            System.out.printf("Indexed %d records with %d pages each in %d ms%n", numRecords, numPages, (System.nanoTime() - start) / 1_000_000);
+
+            Tomcat tomcat = startTomcat(workDir);
+            String baseUrl = "http://127.0.0.1:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH + "/";
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                    ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+                System.out.printf("%-18s %8s %9s %10s %9s %9s %9s %9s %7s %12s%n", "prefix", "requests", "records", "records/s", "p50 ms",
+                        "p99 ms", "max ms", "MB", "errors", "heap peak MB");
+                for (String prefix : getPrefixes(options)) {
+                    run(executor, concurrency, prefix, () -> new Harvester(client, baseUrl, prefix, null, 0));
+                }
+                if (sruQuery != null) {
+                    for (String schema : options.getOrDefault("sruSchemas", Metadata.DC.getMetadataPrefix()).split(",")) {
+                        run(executor, concurrency, "sru:" + schema, () -> new Harvester(client, baseUrl, schema, sruQuery, sruPageSize));
+                    }
+                }
+            } finally {
+                tomcat.stop();
+                tomcat.destroy();
+            }
+        } finally {
+            DataManager.getInstance().closeSourceDocumentProvider();
+            FileUtils.deleteQuietly(workDir.toFile());
+        }
+    }
+
+    /**
+     * Runs the given number of concurrent harvests and prints one result line.
+     */
+    private static void run(ExecutorService executor, int concurrency, String label, Supplier<Harvester> harvesterFactory)
+            throws InterruptedException, ExecutionException {
+        resetHeapPeak();
+        long start = System.nanoTime();
+        List<Future<Harvester.Result>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; ++i) {
+            futures.add(executor.submit(harvesterFactory.get()));
+        }
+        List<Long> latencies = new ArrayList<>();
+        long records = 0;
+        long bytes = 0;
+        int errors = 0;
+        for (Future<Harvester.Result> future : futures) {
+            Harvester.Result result = future.get();
+            latencies.addAll(result.latenciesNanos());
+            records += result.records();
+            bytes += result.bytes();
+            errors += result.errors();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%-18s %8d %9d %10.1f %9.2f %9.2f %9.2f %9.1f %7d %12.1f%n", label, sorted.length, records,
+                records * 1_000_000_000.0 / elapsed, percentile(sorted, 0.5) / 1_000_000.0, percentile(sorted, 0.99) / 1_000_000.0,
+                (sorted.length > 0 ? sorted[sorted.length - 1] : 0) / 1_000_000.0, bytes / 1_048_576.0, errors, getHeapPeak() / 1_048_576.0);
+    }
+
+    /**
+     * 
+     * @param sorted Sorted values
+     * @param quantile Quantile between 0 and 1
+     * @return Value at the given quantile (nearest rank); 0 if no values
+     */
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static void resetHeapPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getHeapPeak() {
+        long ret = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                ret += pool.getPeakUsage().getUsed();
+            }
+        }
+        return ret;
+    }
+
+    private static List<String> getPrefixes(Map<String, String> options) {
+        if (options.containsKey("prefixes")) {
+            return Arrays.asList(options.get("prefixes").split(","));
+        }
+        List<String> ret = new ArrayList<>();
+        for (Metadata md : Metadata.values()) {
+            if (md.isOaiSet() && DataManager.getInstance().getConfiguration().isMetadataFormatEnabled(md.getMetadataPrefix())) {
+                ret.add(md.getMetadataPrefix());
+            }
+        }
+        return ret;
+    }
+
+    private static Tomcat startTomcat(Path workDir) throws LifecycleException {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(workDir.resolve("tomcat").toString());
+        tomcat.setHostname("127.0.0.1");
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context context = tomcat.addContext(CONTEXT_PATH, workDir.toString());
+        // Registered as in web-fragment.xml, so that requests take the production path through async dispatch and the metrics filter
+        Tomcat.addServlet(context, "OAIServlet", new OaiServlet()).setAsyncSupported(true);
+        context.addServletMappingDecoded("/oai", "OAIServlet");
+        context.addServletMappingDecoded("/oai/", "OAIServlet");
+        Tomcat.addServlet(context, "SRUServlet", new SruServlet()).setAsyncSupported(true);
+        context.addServletMappingDecoded("/sru", "SRUServlet");
+        context.addServletMappingDecoded("/sru/", "SRUServlet");
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName("MetricsFilter");
+        filterDef.setFilter(new MetricsFilter());
+        filterDef.setAsyncSupported("true");
+        context.addFilterDef(filterDef);
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName("MetricsFilter");
+        filterMap.addServletName("OAIServlet");
+        filterMap.addServletName("SRUServlet");
+        context.addFilterMap(filterMap);
+        tomcat.start();
+        return tomcat;
+    }
+
+    /**
+     * Writes a copy of the unit test configuration that points to the stub viewer and uses a temporary resumption token folder.
+     */
+    private static Path writeConfiguration(Path workDir, String viewerUrl) throws IOException {
+        String xml = Files.readString(BenchmarkEnvironment.resolve(BenchmarkEnvironment.TEST_CONFIG), StandardCharsets.UTF_8);
+        xml = replaceElement(xml, "oaiFolder", BenchmarkEnvironment.resolve("src/test/resources/oai") + File.separator);
+        xml = replaceElement(xml, "resumptionTokenFolder", Files.createDirectories(workDir.resolve("token")) + File.separator);
+        xml = replaceElement(xml, "documentResolverUrl", viewerUrl + "metsresolver?id=");
+        xml = replaceElement(xml, "harvestUrl", viewerUrl + "harvest");
+        xml = replaceElement(xml, "restApiUrl", viewerUrl + "api/v1/");
+        xml = replaceElement(xml, "provider", "http");
+        // All harvesters share one address, so per-client limits would reject most of the load
+        xml = replaceChildElement(xml, "admission", "enabled", "false");
+        Path ret = workDir.resolve("config_oai.xml");
+        Files.writeString(ret, xml, StandardCharsets.UTF_8);
+        return ret;
+    }
+
+    private static String replaceElement(String xml, String name, String value) {
+        return xml.replaceFirst("<" + name + ">[^<]*</" + name + ">", Matcher.quoteReplacement("<" + name + ">" + value + "</" + name + ">"));
+    }
+
+    private static String replaceChildElement(String xml, String parent, String name, String value) {
+        return xml.replaceFirst("(?s)(<" + parent + ">.*?)<" + name + ">[^<]*</" + name + ">",
+                "$1" + Matcher.quoteReplacement("<" + name + ">" + value + "</" + name + ">"));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> ret = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                ret.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Performs one complete harvest (all pages) against the embedded connector and records the latency of each page.
+ */
+class Harvester implements Callable<Harvester.Result> {
+
+    private static final Pattern PATTERN_RESUMPTION_TOKEN = Pattern.compile("<resumptionToken[^>]*>([^<]+)</resumptionToken>");
+    private static final Pattern PATTERN_ERROR_CODE = Pattern.compile("<error code=\"([^\"]+)\"");
+    private static final Pattern PATTERN_SRU_RECORD = Pattern.compile("<(\\w+:)?recordPosition>");
+    private static final Pattern PATTERN_SRU_NEXT_POSITION = Pattern.compile("<(\\w+:)?nextRecordPosition>(\\d+)<");
+    private static final String RECORD_HEADER = "<header";
+    private static final String ERROR_NO_RECORDS_MATCH = "noRecordsMatch";
+
+    /**
+     * Outcome of one harvest.
+     *
+     * @param latenciesNanos Latency of each page
+     * @param records Number of records (including deleted records)
+     * @param bytes Number of response bytes
+     * @param errors Number of error responses (other than noRecordsMatch)
+     */
+    record Result(List<Long> latenciesNanos, long records, long bytes, int errors) {
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String metadataPrefix;
+    private final String sruQuery;
+    private final int sruPageSize;
+
+    /**
+     * 
+     * @param client HTTP client
+     * @param baseUrl Base URL of the connector web application
+     * @param metadataPrefix OAI metadataPrefix, or SRU recordSchema if sruQuery is set
+     * @param sruQuery CQL query for an SRU searchRetrieve harvest; null for an OAI-PMH ListRecords harvest
+     * @param sruPageSize SRU maximumRecords
+     */
+    Harvester(HttpClient client, String baseUrl, String metadataPrefix, String sruQuery, int sruPageSize) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.metadataPrefix = metadataPrefix;
+        this.sruQuery = sruQuery;
+        this.sruPageSize = sruPageSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Result call() throws IOException, InterruptedException {
+        return sruQuery != null ? harvestSru() : harvestOai();
+    }
+
+    private Result harvestOai() throws IOException, InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long records = 0;
+        long bytes = 0;
+        int errors = 0;
+        String url = baseUrl + "oai?verb=ListRecords&metadataPrefix=" + encode(metadataPrefix);
+        while (url != null) {
+            long start = System.nanoTime();
+            String body = get(url);
+            latencies.add(System.nanoTime() - start);
+            bytes += body.length();
+            records += count(body, RECORD_HEADER);
+
+            Matcher mError = PATTERN_ERROR_CODE.matcher(body);
+            if (mError.find()) {
+                if (!ERROR_NO_RECORDS_MATCH.equals(mError.group(1))) {
+                    errors++;
+                }
+                break;
+            }
+            Matcher mToken = PATTERN_RESUMPTION_TOKEN.matcher(body);
+            url = mToken.find() ? baseUrl + "oai?verb=ListRecords&resumptionToken=" + encode(mToken.group(1).trim()) : null;
+        }
+
+        return new Result(latencies, records, bytes, errors);
+    }
+
+    private Result harvestSru() throws IOException, InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long records = 0;
+        long bytes = 0;
+        int errors = 0;
+        int startRecord = 1;
+        while (startRecord > 0) {
+            String url = baseUrl + "sru?operation=searchRetrieve&version=1.2&query=" + encode(sruQuery) + "&recordSchema=" + encode(metadataPrefix)
+                    + "&maximumRecords=" + sruPageSize + "&startRecord=" + startRecord;
+            long start = System.nanoTime();
+            String body = get(url);
+            latencies.add(System.nanoTime() - start);
+            bytes += body.length();
+            records += PATTERN_SRU_RECORD.matcher(body).results().count();
+            if (body.contains("diagnostics")) {
+                errors++;
+            }
+
+            Matcher mNext = PATTERN_SRU_NEXT_POSITION.matcher(body);
+            startRecord = mNext.find() ? Integer.parseInt(mNext.group(2)) : 0;
+        }
+
+        return new Result(latencies, records, bytes, errors);
+    }
+
+    private String get(String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + ": " + url);
+        }
+        return response.body();
+    }
+
+    private static int count(String s, String token) {
+        int ret = 0;
+        int index = s.indexOf(token);
+        while (index >= 0) {
+            ret++;
+            index = s.indexOf(token, index + token.length());
+        }
+        return ret;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import io.goobi.viewer.connector.sources.SourceDocumentProvider;
+
+/**
+ * {@link SourceDocumentProvider} that returns the same in-memory document for every URL (e.g. the table of contents for Dublin Core
+ * records).
+ */
+public class StaticSourceDocumentProvider implements SourceDocumentProvider {
+
+    private final byte[] content;
+
+    /**
+     * 
+     * @param content Document content
+     */
+    public StaticSourceDocumentProvider(String content) {
+        this.content = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getContent(String url) {
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputStream getStream(String url) {
+        return new ByteArrayInputStream(content);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getStatus(String url) {
+        return 200;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+
+import io.goobi.viewer.solr.SolrConstants;
+import io.goobi.viewer.solr.SolrConstants.DocType;
+
+/**
+ * In-memory {@link SolrClient} that answers every query without network access, so that benchmarks only measure the rendering code. Page
+ * queries are answered with a fixed set of synthetic page documents, all other queries with an empty result.
+ */
+public class StubSolrClient extends SolrClient {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SolrDocumentList pages = new SolrDocumentList();
+
+    /**
+     * 
+     * @param pi Record identifier of the synthetic pages
+     * @param numPages Number of synthetic pages
+     */
+    public StubSolrClient(String pi, int numPages) {
+        for (int i = 1; i <= numPages; ++i) {
+            SolrDocument page = new SolrDocument();
+            page.setField(SolrConstants.PI_TOPSTRUCT, pi);
+            page.setField(SolrConstants.ORDER, i);
+            page.setField(SolrConstants.FILENAME_ALTO, "alto/" + pi + "/" + String.format("%08d", i) + ".xml");
+            page.setField(SolrConstants.FILENAME_FULLTEXT, "fulltext/" + pi + "/" + String.format("%08d", i) + ".txt");
+            pages.add(page);
+        }
+        pages.setNumFound(numPages);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NamedList<Object> request(SolrRequest<?> request, String collection) {
+        SolrParams params = request.getParams();
+        String query = params != null ? params.get(CommonParams.Q, "") : "";
+
+        SolrDocumentList results;
+        if (query.contains(SolrConstants.DOCTYPE + ":" + DocType.PAGE.name())) {
+            results = pages;
+        } else {
+            results = new SolrDocumentList();
+            results.setNumFound(0);
+        }
+
+        NamedList<Object> ret = new NamedList<>();
+        ret.add("response", results);
+        return ret;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+}
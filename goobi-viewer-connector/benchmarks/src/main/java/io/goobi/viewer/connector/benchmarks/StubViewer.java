@@ -0,0 +1,112 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Goobi viewer endpoints the connector fetches source documents from: the METS/LIDO resolver, the REST API (TOC,
+ * TEI, CMDI) and the harvest servlet. METS and LIDO requests are answered with the unit test fixtures regardless of the requested
+ * identifier.
+ */
+public class StubViewer implements Closeable {
+
+    private static final String PATH_RESOLVER = "/viewer/metsresolver";
+    private static final String PATH_API = "/viewer/api/v1/";
+    private static final String PATH_HARVEST = "/viewer/harvest";
+
+    private static final byte[] TOC = "Title page\nPreface\nChapter 1\nChapter 2\nIndex".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TEI = ("<TEI xmlns=\"http://www.tei-c.org/ns/1.0\"><teiHeader><fileDesc><titleStmt><title>Lorem ipsum</title>"
+            + "</titleStmt></fileDesc></teiHeader><text><body><p>Lorem ipsum dolor sit amet</p></body></text></TEI>")
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CMDI = "<CMD xmlns=\"http://www.clarin.eu/cmd/1\" CMDVersion=\"1.2\"><Header/><Resources/><Components/></CMD>"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HARVEST_LIST = "[0]".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final byte[] mets;
+    private final byte[] lido;
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @throws IOException
+     */
+    public StubViewer() throws IOException {
+        mets = BenchmarkEnvironment.readFixture("viewer/indexed_mets/PPN517154005.xml");
+        lido = BenchmarkEnvironment.readFixture("viewer/indexed_lido/455820.xml");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 
+     * @return Base URL of the stub viewer, e.g. <code>http://127.0.0.1:12345/viewer/</code>
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/viewer/";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        byte[] body = null;
+        if (path.startsWith(PATH_RESOLVER)) {
+            body = query != null && query.contains("id=LIDO_") ? lido : mets;
+        } else if (path.startsWith(PATH_API)) {
+            if (path.endsWith("/toc")) {
+                body = TOC;
+            } else if (path.contains("/tei/")) {
+                body = TEI;
+            } else if (path.contains("/cmdi/")) {
+                body = CMDI;
+            }
+        } else if (path.startsWith(PATH_HARVEST)) {
+            body = HARVEST_LIST;
+        }
+
+        try (exchange) {
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
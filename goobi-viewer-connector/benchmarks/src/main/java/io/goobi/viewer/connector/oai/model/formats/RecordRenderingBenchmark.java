@@ -0,0 +1,188 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.formats;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocument;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.benchmarks.BenchmarkEnvironment;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.connector.utils.XmlConstants;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Throughput of the per-record rendering code of the OAI-PMH formats. Dublin Core, ESE and header rendering use synthetic Solr documents;
+ * METS, LIDO and MARCXML use the METS/LIDO fixtures from the unit tests. METS and LIDO records are parsed from bytes in each invocation,
+ * same as in a live request where the document is parsed from the response stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordRenderingBenchmark {
+
+    private OAIDCFormat dcFormat;
+    private EuropeanaFormat eseFormat;
+    private RequestHandler dcHandler;
+    private RequestHandler eseHandler;
+    private RequestHandler metsHandler;
+    private RequestHandler lidoHandler;
+    private Namespace nsOaiDc;
+    private List<String> dcSetSpecFields;
+    private List<String> metsSetSpecFields;
+    private List<String> lidoSetSpecFields;
+
+    private SolrDocument workDoc;
+    private SolrDocument metsDoc;
+    private SolrDocument lidoDoc;
+    private byte[] metsBytes;
+    private byte[] lidoBytes;
+    /** METS GetRecord response as input for the MARCXML conversion */
+    private Element metsGetRecord;
+    private Element mods;
+    private Element metsHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, JDOMException, SolrServerException {
+        BenchmarkEnvironment.init();
+
+        dcFormat = new OAIDCFormat();
+        eseFormat = new EuropeanaFormat();
+        dcHandler = createHandler(Metadata.OAI_DC);
+        eseHandler = createHandler(Metadata.ESE);
+        metsHandler = createHandler(Metadata.METS);
+        lidoHandler = createHandler(Metadata.LIDO);
+        nsOaiDc = Namespace.getNamespace(Metadata.OAI_DC.getMetadataNamespacePrefix(), Metadata.OAI_DC.getMetadataNamespaceUri());
+        dcSetSpecFields = DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.OAI_DC.getMetadataPrefix());
+        metsSetSpecFields = DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.METS.getMetadataPrefix());
+        lidoSetSpecFields = DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.LIDO.getMetadataPrefix());
+
+        workDoc = createWorkDoc(BenchmarkEnvironment.PI);
+        metsDoc = createWorkDoc(BenchmarkEnvironment.PI);
+        lidoDoc = createWorkDoc("455820");
+        metsBytes = BenchmarkEnvironment.readFixture("viewer/indexed_mets/PPN517154005.xml");
+        lidoBytes = BenchmarkEnvironment.readFixture("viewer/indexed_lido/455820.xml");
+
+        metsGetRecord = new Element("GetRecord", Format.OAI_NS);
+        metsGetRecord.addContent(renderMets());
+        Element eleRecord = metsGetRecord.getChild(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS);
+        metsHeader = eleRecord.getChild(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS);
+        Element eleMets = eleRecord.getChild(XmlConstants.ELE_NAME_METADATA, Format.OAI_NS).getChild("mets", MARCXMLFormat.NAMESPACE_METS);
+        mods = eleMets.getChild("dmdSec", MARCXMLFormat.NAMESPACE_METS)
+                .getChild("mdWrap", MARCXMLFormat.NAMESPACE_METS)
+                .getChild("xmlData", MARCXMLFormat.NAMESPACE_METS)
+                .getChild("mods", MARCXMLFormat.NAMESPACE_MODS);
+    }
+
+    @Benchmark
+    public Element generateSingleDCRecord() throws SolrServerException, IOException {
+        return dcFormat.generateSingleDCRecord(workDoc, dcHandler, null, Format.OAI_NS, nsOaiDc, dcSetSpecFields, "");
+    }
+
+    @Benchmark
+    public Element generateSingleESERecord() throws SolrServerException, IOException {
+        return eseFormat.generateSingleESERecord(workDoc, eseHandler, "");
+    }
+
+    @Benchmark
+    public Element getHeader() throws SolrServerException, IOException {
+        return Format.getHeader(workDoc, null, dcHandler, null, dcSetSpecFields, "");
+    }
+
+    @Benchmark
+    public Element generateMetsRecord() throws IOException, JDOMException, SolrServerException {
+        return renderMets();
+    }
+
+    @Benchmark
+    public Element generateLidoRecord() throws IOException, JDOMException, SolrServerException {
+        Document xmlDoc = Utils.getDocumentFromStream(new ByteArrayInputStream(lidoBytes));
+        return LIDOFormat.generateLidoRecord(xmlDoc, lidoDoc, lidoHandler, lidoSetSpecFields, "");
+    }
+
+    @Benchmark
+    public Element generateMarc() {
+        return MARCXMLFormat.generateMarc(metsGetRecord, null, "GetRecord");
+    }
+
+    @Benchmark
+    public Element convertModsToMarc() {
+        return MARCXMLFormat.convertModsToMarc(mods, metsHeader);
+    }
+
+    private Element renderMets() throws IOException, JDOMException, SolrServerException {
+        Document xmlDoc = Utils.getDocumentFromStream(new ByteArrayInputStream(metsBytes));
+        return METSFormat.generateMetsRecord(xmlDoc, metsDoc, metsHandler, metsSetSpecFields, "");
+    }
+
+    private static RequestHandler createHandler(Metadata metadataPrefix) {
+        RequestHandler ret = new RequestHandler();
+        ret.setMetadataPrefix(metadataPrefix);
+        return ret;
+    }
+
+    /**
+     * 
+     * @param pi
+     * @return Synthetic top structure element document with typical metadata
+     */
+    private static SolrDocument createWorkDoc(String pi) {
+        SolrDocument ret = new SolrDocument();
+        ret.setField(SolrConstants.IDDOC, "1234567890");
+        ret.setField(SolrConstants.PI, pi);
+        ret.setField(SolrConstants.PI_TOPSTRUCT, pi);
+        ret.setField(SolrConstants.ISWORK, true);
+        ret.setField(SolrConstants.DOCSTRCT, "monograph");
+        ret.setField(SolrConstants.ACCESSCONDITION, SolrConstants.OPEN_ACCESS_VALUE);
+        ret.setField(SolrConstants.DATEUPDATED, Arrays.asList(1_600_000_000_000L, 1_650_000_000_000L, 1_700_000_000_000L));
+        ret.setField(SolrConstants.DC, Arrays.asList("varia", "history", "history.modern"));
+        ret.setField(SolrConstants.TITLE, "Lorem ipsum dolor sit amet");
+        ret.setField("MD_TITLE", "Lorem ipsum dolor sit amet");
+        ret.setField("MD_CREATOR", Arrays.asList("Doe, John", "Roe, Jane", "Public, John Q."));
+        ret.setField("MD_PUBLISHER", "Indie");
+        ret.setField("MD_PLACEPUBLISH", "Somewhere");
+        ret.setField("MD_YEARPUBLISH", "1890");
+        ret.setField("MD_LANGUAGE", "ger");
+        ret.setField("MD_INFORMATION", "Consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.");
+        return ret;
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.metrics.RequestTrace;
+import io.goobi.viewer.connector.utils.Configuration;
+
+/**
+ * Processes OAI-PMH and SRU requests asynchronously on virtual threads, so that container threads are not blocked by Solr queries and
+ * remote source document requests. The number of concurrently processed requests can be limited per OAI verb or SRU operation; requests
+ * beyond the limit wait for a free slot up to the configured queue timeout and are then rejected with 503.
+ */
+public class AsyncRequestDispatcher {
+
+    private static final Logger logger = LogManager.getLogger(AsyncRequestDispatcher.class);
+
+    /**
+     * Request attribute with a {@link Runnable} that must run before the response is completed. A filter that needs to act on the complete
+     * response sets it before passing the request on; if the request is dispatched asynchronously, the attribute is removed and the
+     * {@link Runnable} is run by the worker thread. If the attribute is still present once the filter chain returns, the request was
+     * processed synchronously.
+     */
+    public static final String ATTR_BEFORE_COMPLETE = "io.goobi.viewer.connector.async.beforeComplete";
+
+    /** Seconds after which rejected clients may retry */
+    static final String RETRY_AFTER_SECONDS = "10";
+
+    private final Configuration config;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    /** Concurrency limits per OAI verb or SRU operation; empty if unlimited */
+    private final Map<String, Optional<Semaphore>> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Request processing logic of a servlet.
+     */
+    @FunctionalInterface
+    public interface RequestProcessor {
+
+        /**
+         * 
+         * @param request
+         * @param response
+         * @throws ServletException
+         * @throws IOException
+         */
+        void process(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config
+     */
+    public AsyncRequestDispatcher(Configuration config) {
+        this.config = config;
+    }
+
+    /**
+     * Processes the given request asynchronously, if enabled and supported by all filters and the servlet.
+     *
+     * @param request
+     * @param response
+     * @param limitKey OAI verb or SRU operation whose concurrency limit applies
+     * @param processor Request processing logic
+     * @return true if the request has been dispatched; false if the caller must process it synchronously
+     */
+    public boolean dispatch(HttpServletRequest request, HttpServletResponse response, String limitKey, RequestProcessor processor) {
+        return dispatch(request, response, limitKey, processor, null);
+    }
+
+    /**
+     * Processes the given request asynchronously, if enabled and supported by all filters and the servlet. If the request is dispatched,
+     * <code>release</code> runs exactly once when the request ends, whether it has been processed or rejected because of the concurrency
+     * limit or a shutdown; otherwise the caller remains responsible for it.
+     *
+     * @param request
+     * @param response
+     * @param limitKey OAI verb or SRU operation whose concurrency limit applies
+     * @param processor Request processing logic
+     * @param release Resources held for the request, e.g. an admission; may be null
+     * @return true if the request has been dispatched; false if the caller must process it synchronously
+     * @should run release if request rejected by concurrency limit
+     */
+    public boolean dispatch(HttpServletRequest request, HttpServletResponse response, String limitKey, RequestProcessor processor,
+            Runnable release) {
+        if (!config.isAsyncEnabled() || !request.isAsyncSupported()) {
+            return false;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        // Long requests are bounded by the Solr and source document timeouts; a container timeout would complete the response underneath
+        // the worker thread
+        asyncContext.setTimeout(0);
+        Runnable beforeComplete = (Runnable) request.getAttribute(ATTR_BEFORE_COMPLETE);
+        request.removeAttribute(ATTR_BEFORE_COMPLETE);
+        Semaphore limit = getLimit(limitKey);
+        try {
+            executor.submit(RequestTrace.wrap(() -> {
+                try {
+                    process(request, response, limit, processor);
+                } finally {
+                    release(release);
+                    complete(asyncContext, beforeComplete);
+                }
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            // Context is shutting down
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            release(release);
+            complete(asyncContext, beforeComplete);
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes a slot of the given concurrency limit for speculative work, such as prefetching, without waiting. Requests take precedence: no
+     * slot is handed out while requests are waiting for one.
+     *
+     * @param limitKey OAI verb or SRU operation whose concurrency limit applies
+     * @return {@link Runnable} that frees the slot again and may be run more than once; null if the limit is saturated
+     * @should return null if limit saturated
+     * @should free slot only once
+     */
+    public Runnable tryReserve(String limitKey) {
+        Semaphore limit = getLimit(limitKey);
+        if (limit == null) {
+            return () -> {
+            };
+        }
+        // tryAcquire() would barge ahead of queued requests even on a fair semaphore
+        if (limit.hasQueuedThreads() || !limit.tryAcquire()) {
+            return null;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                limit.release();
+            }
+        };
+    }
+
+    /**
+     * 
+     * @param release {@link Runnable} to run; may be null
+     */
+    private static void release(Runnable release) {
+        if (release != null) {
+            try {
+                release.run();
+            } catch (RuntimeException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param asyncContext
+     * @param beforeComplete {@link Runnable} to run before completing; may be null
+     */
+    private static void complete(AsyncContext asyncContext, Runnable beforeComplete) {
+        try {
+            if (beforeComplete != null) {
+                beforeComplete.run();
+            }
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    /**
+     * 
+     * @param request
+     * @param response
+     * @param limit Concurrency limit; null if unlimited
+     * @param processor
+     */
+    private void process(HttpServletRequest request, HttpServletResponse response, Semaphore limit, RequestProcessor processor) {
+        try {
+            if (limit != null && !limit.tryAcquire(config.getAsyncQueueTimeout(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Concurrency limit reached, rejecting request: {}", request.getQueryString());
+                response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            try {
+                processor.process(request, response);
+            } finally {
+                if (limit != null) {
+                    limit.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ServletException | IOException | RuntimeException e) {
+            logger.error(e.getMessage(), e);
+            if (!response.isCommitted()) {
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+                } catch (IOException e1) {
+                    logger.error(e1.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param limitKey OAI verb or SRU operation
+     * @return {@link Semaphore} for the given key; null if unlimited
+     * @should return semaphore with configured limit
+     * @should fall back to default limit
+     * @should return same semaphore for same key
+     */
+    Semaphore getLimit(String limitKey) {
+        return limits.computeIfAbsent(limitKey, k -> {
+            int limit = config.getAsyncConcurrencyLimit(k);
+            return limit > 0 ? Optional.of(new Semaphore(limit, true)) : Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * Stops accepting new requests and waits briefly for running requests to finish.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -23,6 +23,8 @@ import jakarta.servlet.ServletContextListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import io.goobi.viewer.connector.oai.SnapshotBuilder;
+import io.goobi.viewer.connector.utils.Configuration;
 import io.goobi.viewer.connector.utils.Utils;
 
 /**
@@ -35,6 +37,8 @@ public class ContextListener implements ServletContextListener {
 
     private static final Logger logger = LogManager.getLogger(ContextListener.class);
 
+    private SnapshotBuilder snapshotBuilder;
+
     /**
      * {@inheritDoc}
      * 
@@ -44,16 +48,31 @@ public class ContextListener implements ServletContextListener {
     public void contextInitialized(ServletContextEvent sce) {
         logger.info("{}", Utils.formatVersionString(Utils.getVersion()));
         io.goobi.viewer.controller.DataManager.getInstance().setConnectorVersion(Utils.getVersion());
+        Configuration config = DataManager.getInstance().getConfiguration();
+        if (config.isDumpsEnabled()) {
+            snapshotBuilder = new SnapshotBuilder(config);
+            snapshotBuilder.start(config.getDumpInterval());
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        if (snapshotBuilder != null) {
+            snapshotBuilder.close();
+        }
+        DataManager.getInstance().closeAsyncDispatcher();
+        DataManager.getInstance().closeHarvestPrefetcher();
         try {
             DataManager.getInstance().closeSearchIndex();
         } catch (IOException e) {
             logger.error("Error closing Solr client", e);
         }
+        try {
+            DataManager.getInstance().closeSourceDocumentProvider();
+        } catch (IOException e) {
+            logger.error("Error closing source document provider", e);
+        }
         // Shut all loggers down to prevent memory leaks when re-deploying the context
         LogManager.shutdown();
     }
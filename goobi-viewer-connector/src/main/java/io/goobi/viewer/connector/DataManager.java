@@ -17,6 +17,11 @@ package io.goobi.viewer.connector;
 
 import java.io.IOException;
 
+import io.goobi.viewer.connector.metrics.ConnectorMetrics;
+import io.goobi.viewer.connector.oai.AdaptivePageSizer;
+import io.goobi.viewer.connector.oai.AdmissionControl;
+import io.goobi.viewer.connector.oai.HarvestPrefetcher;
+import io.goobi.viewer.connector.sources.SourceDocumentProvider;
 import io.goobi.viewer.connector.utils.Configuration;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.model.translations.language.LanguageHelper;
@@ -37,6 +42,18 @@ public final class DataManager {
 
     private SolrSearchIndex searchIndex;
 
+    private volatile SourceDocumentProvider sourceDocumentProvider;
+
+    private volatile ConnectorMetrics metrics;
+
+    private volatile AsyncRequestDispatcher asyncDispatcher;
+
+    private volatile AdmissionControl admissionControl;
+
+    private volatile HarvestPrefetcher harvestPrefetcher;
+
+    private volatile AdaptivePageSizer pageSizer;
+
     private LanguageHelper languageHelper = io.goobi.viewer.controller.DataManager.getInstance().getLanguageHelper();
 
     /**
@@ -95,7 +112,6 @@ public final class DataManager {
                 searchIndex = new SolrSearchIndex(null, false);
             }
         }
-        searchIndex.checkReloadNeeded();
 
         return searchIndex;
     }
@@ -106,6 +122,156 @@ public final class DataManager {
         }
     }
 
+    /**
+     * <p>
+     * Getter for the field <code>sourceDocumentProvider</code>.
+     * </p>
+     *
+     * @return the sourceDocumentProvider
+     */
+    public SourceDocumentProvider getSourceDocumentProvider() {
+        SourceDocumentProvider p = sourceDocumentProvider;
+        if (p == null) {
+            synchronized (LOCK) {
+                p = sourceDocumentProvider;
+                if (p == null) {
+                    p = SourceDocumentProvider.create(getConfiguration());
+                    sourceDocumentProvider = p;
+                }
+            }
+        }
+
+        return p;
+    }
+
+    public void closeSourceDocumentProvider() throws IOException {
+        if (sourceDocumentProvider != null) {
+            sourceDocumentProvider.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>metrics</code>.
+     * </p>
+     *
+     * @return the metrics
+     */
+    public ConnectorMetrics getMetrics() {
+        ConnectorMetrics m = metrics;
+        if (m == null) {
+            synchronized (LOCK) {
+                m = metrics;
+                if (m == null) {
+                    m = new ConnectorMetrics();
+                    metrics = m;
+                }
+            }
+        }
+
+        return m;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>asyncDispatcher</code>.
+     * </p>
+     *
+     * @return the asyncDispatcher
+     */
+    public AsyncRequestDispatcher getAsyncDispatcher() {
+        AsyncRequestDispatcher d = asyncDispatcher;
+        if (d == null) {
+            synchronized (LOCK) {
+                d = asyncDispatcher;
+                if (d == null) {
+                    d = new AsyncRequestDispatcher(getConfiguration());
+                    asyncDispatcher = d;
+                }
+            }
+        }
+
+        return d;
+    }
+
+    public void closeAsyncDispatcher() {
+        if (asyncDispatcher != null) {
+            asyncDispatcher.shutdown();
+        }
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>admissionControl</code>.
+     * </p>
+     *
+     * @return the admissionControl
+     */
+    public AdmissionControl getAdmissionControl() {
+        AdmissionControl a = admissionControl;
+        if (a == null) {
+            synchronized (LOCK) {
+                a = admissionControl;
+                if (a == null) {
+                    a = new AdmissionControl(getConfiguration());
+                    admissionControl = a;
+                }
+            }
+        }
+
+        return a;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>harvestPrefetcher</code>.
+     * </p>
+     *
+     * @return the harvestPrefetcher
+     */
+    public HarvestPrefetcher getHarvestPrefetcher() {
+        HarvestPrefetcher p = harvestPrefetcher;
+        if (p == null) {
+            synchronized (LOCK) {
+                p = harvestPrefetcher;
+                if (p == null) {
+                    p = new HarvestPrefetcher(getConfiguration(), getAsyncDispatcher());
+                    harvestPrefetcher = p;
+                }
+            }
+        }
+
+        return p;
+    }
+
+    public void closeHarvestPrefetcher() {
+        if (harvestPrefetcher != null) {
+            harvestPrefetcher.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>pageSizer</code>.
+     * </p>
+     *
+     * @return the pageSizer
+     */
+    public AdaptivePageSizer getPageSizer() {
+        AdaptivePageSizer p = pageSizer;
+        if (p == null) {
+            synchronized (LOCK) {
+                p = pageSizer;
+                if (p == null) {
+                    p = new AdaptivePageSizer(getConfiguration());
+                    pageSizer = p;
+                }
+            }
+        }
+
+        return p;
+    }
+
     /**
      * <p>
      * Getter for the field <code>languageHelper</code>.
@@ -148,4 +314,15 @@ public final class DataManager {
             this.searchIndex = searchIndex;
         }
     }
+
+    /**
+     * Sets custom SourceDocumentProvider object (used for unit testing).
+     *
+     * @param sourceDocumentProvider a {@link io.goobi.viewer.connector.sources.SourceDocumentProvider} object.
+     */
+    public void injectSourceDocumentProvider(SourceDocumentProvider sourceDocumentProvider) {
+        if (sourceDocumentProvider != null) {
+            this.sourceDocumentProvider = sourceDocumentProvider;
+        }
+    }
 }
@@ -0,0 +1,249 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.DataManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+/**
+ * Application metrics (request, Solr, remote fetch and XSLT timings, response sizes, resumption token store size, cache hit ratios), exposed
+ * in the Prometheus text format.
+ */
+public class ConnectorMetrics {
+
+    private static final Logger logger = LogManager.getLogger(ConnectorMetrics.class);
+
+    static final String METRIC_OAI_REQUESTS = "connector.oai.requests";
+    static final String METRIC_SRU_REQUESTS = "connector.sru.requests";
+    static final String METRIC_RESPONSE_SIZE = "connector.response.size";
+    static final String METRIC_SOLR_QUERIES = "connector.solr.queries";
+    static final String METRIC_SOLR_RETRIES = "connector.solr.retries";
+    static final String METRIC_FETCHES = "connector.source.fetches";
+    static final String METRIC_XSLT = "connector.xslt.transformations";
+    static final String METRIC_TOKENS = "connector.oai.tokens.stored";
+    static final String METRIC_CACHE_GETS = "connector.cache.gets";
+
+    /** Tag value for requests without a (valid) value for a tag */
+    public static final String TAG_VALUE_NONE = "none";
+
+    private static final String TAG_ENDPOINT = "endpoint";
+    private static final String TAG_STATUS = "status";
+
+    /** Time for which the number of stored resumption tokens is reused, so that frequent scrapes do not list the token folder each time */
+    private static final long STORED_TOKENS_TTL = 60_000L;
+
+    private final PrometheusMeterRegistry registry;
+    private volatile long storedTokens;
+    private volatile long storedTokensExpires;
+
+    /**
+     * Constructor.
+     */
+    public ConnectorMetrics() {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        Gauge.builder(METRIC_TOKENS, this, ConnectorMetrics::getStoredTokenCount)
+                .description("Resumption tokens in the token folder")
+                .register(registry);
+    }
+
+    /**
+     * 
+     * @return {@link MeterRegistry}
+     */
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Records an OAI-PMH request.
+     *
+     * @param verb OAI verb
+     * @param metadataPrefix metadataPrefix of the request or of the resumed request
+     * @param status HTTP status code
+     * @param nanos Duration
+     * @param bytes Response size
+     * @should record timer with verb and metadataPrefix tags
+     */
+    public void recordOaiRequest(String verb, String metadataPrefix, int status, long nanos, long bytes) {
+        Timer.builder(METRIC_OAI_REQUESTS)
+                .description("OAI-PMH requests")
+                .tags("verb", verb, "metadataPrefix", metadataPrefix, TAG_STATUS, String.valueOf(status))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        recordResponseSize("oai", bytes);
+    }
+
+    /**
+     * Records an SRU request.
+     *
+     * @param operation SRU operation
+     * @param status HTTP status code
+     * @param nanos Duration
+     * @param bytes Response size
+     */
+    public void recordSruRequest(String operation, int status, long nanos, long bytes) {
+        Timer.builder(METRIC_SRU_REQUESTS)
+                .description("SRU requests")
+                .tags("operation", operation, TAG_STATUS, String.valueOf(status))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        recordResponseSize("sru", bytes);
+    }
+
+    private void recordResponseSize(String endpoint, long bytes) {
+        DistributionSummary.builder(METRIC_RESPONSE_SIZE)
+                .description("Bytes written per response")
+                .baseUnit("bytes")
+                .tag(TAG_ENDPOINT, endpoint)
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Records a Solr query including all retries.
+     *
+     * @param nanos Duration
+     * @param retries Number of retries after timeouts
+     */
+    public void recordSolrQuery(long nanos, int retries) {
+        Timer.builder(METRIC_SOLR_QUERIES)
+                .description("Solr queries")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        RequestTrace.add(RequestTrace.PHASE_SOLR, nanos);
+        if (retries > 0) {
+            Counter.builder(METRIC_SOLR_RETRIES).description("Solr query retries after timeouts").register(registry).increment(retries);
+        }
+    }
+
+    /**
+     * Records a remote source document request (until the response headers are received).
+     *
+     * @param status HTTP status code; 0 if the request failed
+     * @param nanos Duration
+     */
+    public void recordFetch(int status, long nanos) {
+        Timer.builder(METRIC_FETCHES)
+                .description("Remote source document requests")
+                .tag(TAG_STATUS, status > 0 ? String.valueOf(status) : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        RequestTrace.add(RequestTrace.PHASE_FETCH, nanos);
+    }
+
+    /**
+     * Records an XSLT transformation.
+     *
+     * @param stylesheet Stylesheet name
+     * @param nanos Duration
+     */
+    public void recordXslt(String stylesheet, long nanos) {
+        Timer.builder(METRIC_XSLT)
+                .description("XSLT transformations")
+                .tag("stylesheet", stylesheet)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        RequestTrace.add(RequestTrace.PHASE_XSLT, nanos);
+    }
+
+    /**
+     * Records cache lookups. The hit ratio is <code>hit / (hit + miss)</code>.
+     *
+     * @param cache Cache name
+     * @param hits Number of hits
+     * @param misses Number of misses
+     * @should count hits and misses separately
+     */
+    public void recordCacheGets(String cache, int hits, int misses) {
+        if (hits > 0) {
+            Counter.builder(METRIC_CACHE_GETS).tags("cache", cache, "result", "hit").register(registry).increment(hits);
+        }
+        if (misses > 0) {
+            Counter.builder(METRIC_CACHE_GETS).tags("cache", cache, "result", "miss").register(registry).increment(misses);
+        }
+    }
+
+    /**
+     * 
+     * @return All metrics in the Prometheus text format
+     * @should include recorded metrics
+     */
+    public String scrape() {
+        return registry.scrape();
+    }
+
+    /**
+     * 
+     * @return Number of files in the resumption token folder, counted at most once per {@link #STORED_TOKENS_TTL}
+     */
+    double getStoredTokenCount() {
+        long now = System.currentTimeMillis();
+        if (now >= storedTokensExpires) {
+            storedTokens = countFiles(Paths.get(DataManager.getInstance().getConfiguration().getResumptionTokenFolder()));
+            storedTokensExpires = now + STORED_TOKENS_TTL;
+        }
+        return storedTokens;
+    }
+
+    /**
+     * Counts the entries of the given folder without loading them all into memory.
+     * 
+     * @param folder
+     * @return Number of entries in folder; 0 if folder cannot be read
+     * @should count files in folder
+     * @should return zero if folder missing
+     */
+    static long countFiles(Path folder) {
+        long ret = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            Iterator<Path> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                iterator.next();
+                ret++;
+            }
+        } catch (IOException e) {
+            logger.debug("Could not list {}: {}", folder, e.getMessage());
+            return 0;
+        }
+
+        return ret;
+    }
+}
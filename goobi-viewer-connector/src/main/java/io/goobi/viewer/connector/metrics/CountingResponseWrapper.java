@@ -0,0 +1,136 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that counts the bytes written to the response output stream. Optionally, the output is buffered until
+ * {@link #writeBuffer()} is called, so that headers can still be added after the servlet has finished.
+ */
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream buffer;
+    private CountingOutputStream out;
+
+    /**
+     * 
+     * @param response
+     */
+    CountingResponseWrapper(HttpServletResponse response) {
+        this(response, false);
+    }
+
+    /**
+     * 
+     * @param response
+     * @param buffered If true, the output is kept in memory until {@link #writeBuffer()} is called
+     */
+    CountingResponseWrapper(HttpServletResponse response, boolean buffered) {
+        super(response);
+        this.buffer = buffered ? new ByteArrayOutputStream() : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            out = new CountingOutputStream(buffer != null ? buffer : super.getOutputStream());
+        }
+        return out;
+    }
+
+    /**
+     * Writes the buffered output, if any, to the wrapped response.
+     *
+     * @throws IOException
+     */
+    void writeBuffer() throws IOException {
+        if (buffer != null && buffer.size() > 0) {
+            buffer.writeTo(super.getOutputStream());
+            buffer.reset();
+        }
+    }
+
+    /**
+     * 
+     * @return Number of bytes written to the output stream
+     */
+    long getByteCount() {
+        return out != null ? out.count : 0;
+    }
+
+    /**
+     * {@link ServletOutputStream} that counts the bytes passed through to the wrapped stream.
+     */
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private final OutputStream delegate;
+        private long count;
+
+        private CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return !(delegate instanceof ServletOutputStream sos) || sos.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (delegate instanceof ServletOutputStream sos) {
+                sos.setWriteListener(writeListener);
+            } else {
+                // Buffered output never blocks
+                try {
+                    writeListener.onWritePossible();
+                } catch (IOException e) {
+                    writeListener.onError(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import io.goobi.viewer.connector.AsyncRequestDispatcher;
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.utils.Configuration;
+
+/**
+ * Measures duration and response size of OAI-PMH and SRU requests. The servlets put the validated verb/metadataPrefix or SRU operation into
+ * request attributes, so that raw (arbitrary) parameter values never become metric tags.
+ * <p>
+ * If tracing is enabled, requests from the configured client addresses also get a {@link RequestTrace}, which is returned as a
+ * <code>Server-Timing</code> header. Traced responses are buffered so that the header can include the XML output phase.
+ */
+public class MetricsFilter implements Filter {
+
+    private static final Logger logger = LogManager.getLogger(MetricsFilter.class);
+
+    static final String HEADER_SERVER_TIMING = "Server-Timing";
+
+    /** Request attribute with the OAI verb */
+    public static final String ATTR_VERB = "io.goobi.viewer.connector.metrics.verb";
+    /** Request attribute with the OAI metadataPrefix */
+    public static final String ATTR_METADATA_PREFIX = "io.goobi.viewer.connector.metrics.metadataPrefix";
+    /** Request attribute with the SRU operation */
+    public static final String ATTR_OPERATION = "io.goobi.viewer.connector.metrics.operation";
+
+    /** {@inheritDoc} */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        RequestTrace trace = isTraced(httpRequest) ? RequestTrace.begin() : null;
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(httpResponse, trace != null);
+        Runnable finish = () -> finish(httpRequest, httpResponse, wrapper, trace, System.nanoTime() - start);
+        // Asynchronously processed requests are finished by the worker thread, see AsyncRequestDispatcher
+        httpRequest.setAttribute(AsyncRequestDispatcher.ATTR_BEFORE_COMPLETE, finish);
+        try {
+            chain.doFilter(httpRequest, wrapper);
+        } finally {
+            if (trace != null) {
+                RequestTrace.end();
+            }
+            if (httpRequest.getAttribute(AsyncRequestDispatcher.ATTR_BEFORE_COMPLETE) != null) {
+                httpRequest.removeAttribute(AsyncRequestDispatcher.ATTR_BEFORE_COMPLETE);
+                finish.run();
+            }
+        }
+    }
+
+    /**
+     * Adds the trace, if any, to the response and records the request metrics.
+     *
+     * @param request
+     * @param response Unwrapped response
+     * @param wrapper
+     * @param trace {@link RequestTrace}; null if the request was not traced
+     * @param nanos Request duration
+     */
+    private static void finish(HttpServletRequest request, HttpServletResponse response, CountingResponseWrapper wrapper, RequestTrace trace,
+            long nanos) {
+        if (trace != null) {
+            String serverTiming = trace.toServerTiming(nanos);
+            if (!response.isCommitted()) {
+                response.setHeader(HEADER_SERVER_TIMING, serverTiming);
+            }
+            if (DataManager.getInstance().getConfiguration().isTracingLogEnabled()) {
+                logger.info("Trace {}?{}: {}", request.getServletPath(), request.getQueryString(), serverTiming);
+            }
+            try {
+                wrapper.writeBuffer();
+            } catch (IOException e) {
+                logger.debug("Could not write traced response: {}", e.getMessage());
+            }
+        }
+        ConnectorMetrics metrics = DataManager.getInstance().getMetrics();
+        if (request.getServletPath().startsWith("/sru")) {
+            metrics.recordSruRequest(getTagValue(request, ATTR_OPERATION), wrapper.getStatus(), nanos, wrapper.getByteCount());
+        } else {
+            metrics.recordOaiRequest(getTagValue(request, ATTR_VERB), getTagValue(request, ATTR_METADATA_PREFIX), wrapper.getStatus(), nanos,
+                    wrapper.getByteCount());
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far to the output stream of the given response, as counted by this filter.
+     *
+     * @param response Response passed to the servlet
+     * @return Number of bytes; -1 if the response has not passed through this filter
+     */
+    public static long getByteCount(ServletResponse response) {
+        ServletResponse r = response;
+        while (r instanceof ServletResponseWrapper wrapper) {
+            if (wrapper instanceof CountingResponseWrapper counting) {
+                return counting.getByteCount();
+            }
+            r = wrapper.getResponse();
+        }
+
+        return -1;
+    }
+
+    /**
+     * The remote address of the connection is used rather than <code>X-Forwarded-For</code>, which can be set by any client. Behind a
+     * reverse proxy, the proxy address must therefore be allowed.
+     *
+     * @param request
+     * @return true if tracing is enabled and the client address is allowed to request traces; false otherwise
+     */
+    static boolean isTraced(HttpServletRequest request) {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        return config.isTracingEnabled() && config.getTracingAllowedAddresses().contains(request.getRemoteAddr());
+    }
+
+    /**
+     * 
+     * @param request
+     * @param attribute
+     * @return Value of the given request attribute; {@link ConnectorMetrics#TAG_VALUE_NONE} if not set
+     */
+    static String getTagValue(ServletRequest request, String attribute) {
+        Object value = request.getAttribute(attribute);
+        return value != null ? value.toString() : ConnectorMetrics.TAG_VALUE_NONE;
+    }
+}
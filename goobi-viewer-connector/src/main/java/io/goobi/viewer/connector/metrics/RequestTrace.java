@@ -0,0 +1,206 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-request phase timings (Solr queries, remote source document fetches, XSLT, record rendering, XML output) for diagnosing slow requests.
+ * A trace only exists for requests selected by {@link MetricsFilter}; the static recording methods are no-ops otherwise, so the overhead for
+ * regular requests is one {@link ThreadLocal} lookup per recording point. Durations of work done in parallel threads are summed up.
+ */
+public final class RequestTrace {
+
+    /** Solr queries */
+    public static final String PHASE_SOLR = "solr";
+    /** Remote source document requests */
+    public static final String PHASE_FETCH = "fetch";
+    /** XSLT transformations */
+    public static final String PHASE_XSLT = "xslt";
+    /** Record rendering, i.e. the remaining request time before the output */
+    public static final String PHASE_RENDER = "render";
+    /** XML output */
+    public static final String PHASE_OUTPUT = "output";
+
+    /** Measured phases in the order of the Server-Timing header; the rendering phase is derived */
+    private static final String[] MEASURED_PHASES = { PHASE_SOLR, PHASE_FETCH, PHASE_XSLT, PHASE_OUTPUT };
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder[] counts = new LongAdder[MEASURED_PHASES.length];
+    private final LongAdder[] nanos = new LongAdder[MEASURED_PHASES.length];
+
+    /**
+     * Constructor.
+     */
+    RequestTrace() {
+        for (int i = 0; i < MEASURED_PHASES.length; ++i) {
+            counts[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Starts a new trace for the current thread.
+     *
+     * @return The new {@link RequestTrace}
+     */
+    static RequestTrace begin() {
+        RequestTrace ret = new RequestTrace();
+        CURRENT.set(ret);
+        return ret;
+    }
+
+    /**
+     * Ends the trace of the current thread.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 
+     * @return true if the current request is traced; false otherwise
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Adds a duration to the given phase of the current trace, if any.
+     *
+     * @param phase Phase name
+     * @param durationNanos Duration
+     */
+    public static void add(String phase, long durationNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.record(phase, durationNanos);
+        }
+    }
+
+    /**
+     * Makes the current trace, if any, available to the given task when it is executed in another thread.
+     *
+     * @param task
+     * @return Wrapped task; the given task if there is no current trace
+     * @should propagate trace to task
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(trace);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 
+     * @param phase Phase name
+     * @param durationNanos Duration
+     */
+    void record(String phase, long durationNanos) {
+        int index = indexOf(phase);
+        if (index >= 0) {
+            counts[index].increment();
+            nanos[index].add(durationNanos);
+        }
+    }
+
+    /**
+     * 
+     * @param phase Phase name
+     * @return Number of recorded durations for the given phase
+     */
+    long getCount(String phase) {
+        int index = indexOf(phase);
+        return index >= 0 ? counts[index].sum() : 0;
+    }
+
+    /**
+     * 
+     * @param phase Phase name
+     * @return Sum of recorded durations for the given phase
+     */
+    long getNanos(String phase) {
+        int index = indexOf(phase);
+        return index >= 0 ? nanos[index].sum() : 0;
+    }
+
+    /**
+     * Creates the value of a <code>Server-Timing</code> header. The rendering phase is the total duration minus all measured phases.
+     *
+     * @param totalNanos Total request duration
+     * @return Header value
+     * @should contain measured phases with counts
+     * @should derive render phase from total
+     * @should omit phases without durations
+     */
+    public String toServerTiming(long totalNanos) {
+        StringBuilder sb = new StringBuilder();
+        long measured = 0;
+        for (int i = 0; i < MEASURED_PHASES.length; ++i) {
+            long count = counts[i].sum();
+            if (count == 0) {
+                continue;
+            }
+            long phaseNanos = nanos[i].sum();
+            measured += phaseNanos;
+            appendMetric(sb, MEASURED_PHASES[i], phaseNanos);
+            sb.append(";desc=\"").append(count).append('"');
+        }
+        appendMetric(sb, PHASE_RENDER, Math.max(0, totalNanos - measured));
+        appendMetric(sb, "total", totalNanos);
+
+        return sb.toString();
+    }
+
+    /**
+     * 
+     * @param sb
+     * @param name
+     * @param phaseNanos
+     */
+    private static void appendMetric(StringBuilder sb, String name, long phaseNanos) {
+        if (!sb.isEmpty()) {
+            sb.append(", ");
+        }
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", phaseNanos / 1_000_000d));
+    }
+
+    /**
+     * 
+     * @param phase
+     * @return Index of the given phase in {@link #MEASURED_PHASES}; -1 if not measured
+     */
+    private static int indexOf(String phase) {
+        for (int i = 0; i < MEASURED_PHASES.length; ++i) {
+            if (MEASURED_PHASES[i].equals(phase)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jdom2.Element;
+
+import io.goobi.viewer.connector.oai.enums.Verb;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.XmlConstants;
+
+/**
+ * Chooses the number of records per ListIdentifiers/ListRecords page for each verb and metadata format. With adaptive paging enabled, the
+ * measured render time and output size per record of recent pages of the same verb and format determine the largest page that stays within
+ * the configured target time and size, bounded by the configured minimum and maximum. Otherwise, the configured hitsPerToken value of the
+ * format is used. The chosen size is stored in the resumption token, so that the page a token points to does not change with later
+ * measurements.
+ * <p>
+ * The measurements are shared by all harvests of the same verb and format rather than kept per harvest: the cost per record depends on the
+ * records and the server load, not on the harvester. A harvest of unusually expensive records therefore also shrinks the pages that other
+ * harvests get for new tokens, until cheaper pages have been measured again; the configured minimum bounds this effect.
+ */
+public class AdaptivePageSizer {
+
+    /** Weight of the most recent page in the per-record averages */
+    static final double SMOOTHING = 0.3;
+
+    /**
+     * Moving averages of the per-record cost of one verb and metadata format.
+     */
+    static final class Estimate {
+
+        private double nanosPerRecord = -1;
+        private double bytesPerRecord = -1;
+
+        /**
+         * 
+         * @param nanos
+         * @param records
+         */
+        synchronized void addRendering(long nanos, int records) {
+            nanosPerRecord = update(nanosPerRecord, (double) nanos / records);
+        }
+
+        /**
+         * 
+         * @param bytes
+         * @param records
+         */
+        synchronized void addOutput(long bytes, int records) {
+            bytesPerRecord = update(bytesPerRecord, (double) bytes / records);
+        }
+
+        /**
+         * 
+         * @param targetNanos
+         * @param targetBytes
+         * @return Largest number of records within both targets; -1 if nothing has been measured yet
+         */
+        synchronized long getRecordsWithin(long targetNanos, long targetBytes) {
+            long ret = -1;
+            if (nanosPerRecord > 0) {
+                ret = (long) (targetNanos / nanosPerRecord);
+            }
+            if (bytesPerRecord > 0) {
+                long bySize = (long) (targetBytes / bytesPerRecord);
+                ret = ret < 0 ? bySize : Math.min(ret, bySize);
+            }
+            return ret;
+        }
+
+        /**
+         * 
+         * @param average Current average; negative if none
+         * @param value New value
+         * @return Updated average
+         */
+        private static double update(double average, double value) {
+            return average < 0 ? value : average + SMOOTHING * (value - average);
+        }
+    }
+
+    private final Configuration config;
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param config {@link Configuration} to use
+     */
+    public AdaptivePageSizer(Configuration config) {
+        this.config = config;
+    }
+
+    /**
+     * Returns the number of records for the next page of the given verb and metadata format.
+     *
+     * @param verb ListIdentifiers or ListRecords
+     * @param metadataPrefix
+     * @return Number of records per page
+     * @should return configured value if disabled
+     * @should return configured value if nothing measured
+     * @should reduce size for expensive records
+     * @should keep size within bounds
+     * @should size verbs separately
+     */
+    public int getHitsPerToken(Verb verb, String metadataPrefix) {
+        int configured = config.getHitsPerTokenForMetadataFormat(metadataPrefix);
+        if (!config.isAdaptivePagingEnabled()) {
+            return configured;
+        }
+
+        int min = config.getAdaptivePagingMinHitsPerToken();
+        int max = Math.max(min, config.getAdaptivePagingMaxHitsPerToken());
+        Estimate estimate = estimates.get(getKey(verb, metadataPrefix));
+        long ret = estimate != null
+                ? estimate.getRecordsWithin(config.getAdaptivePagingTargetTime() * 1_000_000L, config.getAdaptivePagingTargetBytes()) : -1;
+        if (ret < 0) {
+            ret = configured;
+        }
+
+        return Math.clamp(ret, min, max);
+    }
+
+    /**
+     * Records the time it took to render the given page.
+     *
+     * @param verb ListIdentifiers or ListRecords
+     * @param metadataPrefix
+     * @param page ListIdentifiers or ListRecords element
+     * @param nanos Render time
+     */
+    public void recordRendering(Verb verb, String metadataPrefix, Element page, long nanos) {
+        int records = countRecords(page);
+        if (records > 0) {
+            estimates.computeIfAbsent(getKey(verb, metadataPrefix), k -> new Estimate()).addRendering(nanos, records);
+        }
+    }
+
+    /**
+     * Records the size of the response containing the given page.
+     *
+     * @param verb ListIdentifiers or ListRecords
+     * @param metadataPrefix
+     * @param page ListIdentifiers or ListRecords element
+     * @param bytes Response size
+     */
+    public void recordOutput(Verb verb, String metadataPrefix, Element page, long bytes) {
+        int records = countRecords(page);
+        if (records > 0) {
+            estimates.computeIfAbsent(getKey(verb, metadataPrefix), k -> new Estimate()).addOutput(bytes, records);
+        }
+    }
+
+    /**
+     * Headers are much cheaper than complete records, so each verb is measured separately.
+     * 
+     * @param verb
+     * @param metadataPrefix
+     * @return Key for {@link #estimates}
+     */
+    private static String getKey(Verb verb, String metadataPrefix) {
+        return verb + ":" + metadataPrefix;
+    }
+
+    /**
+     * 
+     * @param page
+     * @return Number of records (or headers, for ListIdentifiers) in the given page
+     */
+    static int countRecords(Element page) {
+        if (page == null) {
+            return 0;
+        }
+        return page.getChildren(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS).size()
+                + page.getChildren(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS).size();
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.Configuration;
+
+/**
+ * Per-client admission control for OAI-PMH requests. Each client has a token bucket that refills at a configured rate; requests for
+ * expensive metadata formats (which require source documents) cost more tokens than others. In addition, the number of requests a client
+ * may have in flight is limited per cost class. Rejected requests are answered with 503 and a <code>Retry-After</code> header, as
+ * suggested by the OAI-PMH specification for flow control, so that aggressive harvesters back off instead of starving other clients.
+ */
+public class AdmissionControl {
+
+    /** Cost classes of OAI-PMH requests */
+    public enum CostClass {
+        /** Requests that only query Solr */
+        LIGHT,
+        /** Requests that fetch and render source documents */
+        HEAVY;
+    }
+
+    /** Seconds after which a client with too many requests in flight may retry */
+    static final long RETRY_AFTER_IN_FLIGHT = 5;
+    /** Number of tracked clients above which idle clients are discarded */
+    static final int MAX_TRACKED_CLIENTS = 10000;
+    /** Minimum time between two scans for idle clients */
+    static final long CLEANUP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Configuration config;
+    private final LongSupplier nanoClock;
+    private final Map<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final AtomicLong nextCleanup;
+
+    /**
+     * Constructor.
+     *
+     * @param config
+     */
+    public AdmissionControl(Configuration config) {
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config
+     * @param nanoClock Time source
+     */
+    AdmissionControl(Configuration config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.nextCleanup = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * 
+     * @return true if admission control is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return config.isAdmissionControlEnabled();
+    }
+
+    /**
+     * Determines the cost class of a request. Resumption token requests carry no metadataPrefix, so they inherit the cost class of the
+     * client's previous request (usually the one that started the list); if there was none, they are considered expensive.
+     *
+     * @param client Client IP address
+     * @param metadataPrefix metadataPrefix of the request; may be null
+     * @param resumption true if the request continues a list via a resumption token
+     * @return {@link CostClass}
+     * @should return heavy for configured metadataPrefix
+     * @should return light for other metadataPrefix
+     * @should return cost class of previous request for resumption
+     * @should return heavy for resumption of unknown client
+     */
+    public CostClass getCostClass(String client, Metadata metadataPrefix, boolean resumption) {
+        if (resumption) {
+            ClientState state = clients.get(client);
+            CostClass ret = state != null ? state.lastCostClass : null;
+            return ret != null ? ret : CostClass.HEAVY;
+        }
+        if (metadataPrefix == null) {
+            return CostClass.LIGHT;
+        }
+        CostClass ret = config.getAdmissionHeavyMetadataPrefixes().contains(metadataPrefix.getMetadataPrefix()) ? CostClass.HEAVY
+                : CostClass.LIGHT;
+        getState(client).lastCostClass = ret;
+        return ret;
+    }
+
+    /**
+     * Admits a request if the client has enough tokens and fewer than the maximum number of requests of the same cost class in flight. Every
+     * admitted request must be followed by a call to {@link #release(String, CostClass)}.
+     *
+     * @param client Client IP address
+     * @param costClass Cost class of the request
+     * @return 0 if the request is admitted; otherwise the number of seconds after which the client may retry
+     * @should admit requests within burst
+     * @should reject requests beyond burst
+     * @should admit requests again after refill
+     * @should reject requests beyond max in flight
+     * @should charge heavy requests more tokens
+     * @should cap heavy cost at burst
+     * @should track clients separately
+     * @should scan for idle clients at most once per interval
+     */
+    public long tryAdmit(String client, CostClass costClass) {
+        // A bucket never holds more than the burst size, so a higher cost could never be paid
+        int cost = costClass == CostClass.HEAVY ? Math.min(config.getAdmissionHeavyCost(), config.getAdmissionBurst()) : 1;
+        double tokensPerNano = config.getAdmissionRequestsPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+        if (clients.size() > MAX_TRACKED_CLIENTS) {
+            removeIdleClients(tokensPerNano);
+        }
+
+        ClientState state = getState(client);
+        synchronized (state) {
+            state.refill(nanoClock.getAsLong(), tokensPerNano);
+            if (state.inFlight[costClass.ordinal()] >= config.getAdmissionMaxInFlight()) {
+                return RETRY_AFTER_IN_FLIGHT;
+            }
+            if (state.tokens < cost) {
+                double waitNanos = (cost - state.tokens) / tokensPerNano;
+                return Math.max(1, (long) Math.ceil(waitNanos / TimeUnit.SECONDS.toNanos(1)));
+            }
+            state.tokens -= cost;
+            state.inFlight[costClass.ordinal()]++;
+            return 0;
+        }
+    }
+
+    /**
+     * Discards clients that have no requests in flight and a full bucket. Scans at most once per {@link #CLEANUP_INTERVAL_NANOS}, so that a
+     * large number of active clients does not cause a full scan on every request.
+     *
+     * @param tokensPerNano Refill rate
+     */
+    private void removeIdleClients(double tokensPerNano) {
+        long now = nanoClock.getAsLong();
+        long next = nextCleanup.get();
+        if (now - next >= 0 && nextCleanup.compareAndSet(next, now + CLEANUP_INTERVAL_NANOS)) {
+            clients.values().removeIf(s -> s.isIdle(now, tokensPerNano));
+        }
+    }
+
+    /**
+     * 
+     * @return Number of tracked clients
+     */
+    int getTrackedClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Ends an admitted request.
+     *
+     * @param client Client IP address
+     * @param costClass Cost class of the request
+     */
+    public void release(String client, CostClass costClass) {
+        ClientState state = clients.get(client);
+        if (state != null) {
+            synchronized (state) {
+                if (state.inFlight[costClass.ordinal()] > 0) {
+                    state.inFlight[costClass.ordinal()]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param client
+     * @return {@link ClientState} for the given client
+     */
+    private ClientState getState(String client) {
+        return clients.computeIfAbsent(client, k -> new ClientState(config.getAdmissionBurst(), nanoClock.getAsLong()));
+    }
+
+    /**
+     * Token bucket and requests in flight of one client.
+     */
+    private static final class ClientState {
+
+        private final int capacity;
+        private final int[] inFlight = new int[CostClass.values().length];
+        private double tokens;
+        private long lastRefill;
+        private volatile CostClass lastCostClass;
+
+        private ClientState(int capacity, long now) {
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private void refill(long now, double tokensPerNano) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+
+        /**
+         * 
+         * @param now
+         * @param tokensPerNano
+         * @return true if the client has no requests in flight and a full bucket, i.e. forgetting it changes nothing
+         */
+        private synchronized boolean isIdle(long now, double tokensPerNano) {
+            for (int count : inFlight) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            refill(now, tokensPerNano);
+            return tokens >= capacity;
+        }
+    }
+}
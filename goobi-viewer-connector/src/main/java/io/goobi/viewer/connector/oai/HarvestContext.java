@@ -0,0 +1,55 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import io.goobi.viewer.connector.utils.Configuration;
+
+/**
+ * Request-scoped values that are needed for every record of a response (parsed until timestamp, repository identifier). Computed once
+ * per {@link RequestHandler} instead of once per generated header.
+ */
+public final class HarvestContext {
+
+    private final long untilTimestamp;
+    private final String repositoryIdentifier;
+
+    /**
+     * Constructor.
+     *
+     * @param handler {@link RequestHandler} to take the until value from
+     * @param config {@link Configuration} to take the repository identifier from
+     * @should parse timestamps correctly
+     * @should set repository identifier correctly
+     */
+    public HarvestContext(RequestHandler handler, Configuration config) {
+        this.untilTimestamp = RequestHandler.getUntilTimestamp(handler.getUntil());
+        this.repositoryIdentifier = config.getOaiIdentifier().get("repositoryIdentifier");
+    }
+
+    /**
+     * @return the untilTimestamp
+     */
+    public long getUntilTimestamp() {
+        return untilTimestamp;
+    }
+
+    /**
+     * @return Configured repository identifier (prefix for record identifiers)
+     */
+    public String getRepositoryIdentifier() {
+        return repositoryIdentifier;
+    }
+}
@@ -0,0 +1,349 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.jdom2.Element;
+import org.jdom2.output.XMLOutputter;
+
+import io.goobi.viewer.connector.AsyncRequestDispatcher;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.XmlOutput;
+
+/**
+ * Renders the next page of a ListIdentifiers or ListRecords request in the background as soon as the current page has issued its resumption
+ * token, so that the harvester's follow-up request can be answered from memory. Each prefetched page is handed out once; pages that are not
+ * requested within the configured time are discarded. Both the number of pages held (including those still being rendered) and the estimated
+ * size of the rendered pages are bounded. Prefetching is speculative, so it only takes a free slot of the verb's concurrency limit and is
+ * skipped while the limit is saturated or requests are waiting for it.
+ */
+public class HarvestPrefetcher implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(HarvestPrefetcher.class);
+
+    /**
+     * Renders the page a resumption token points to.
+     */
+    @FunctionalInterface
+    interface PageRenderer {
+
+        /**
+         * 
+         * @param tokenName Resumption token name
+         * @param filterQuerySuffix Filter query suffix for the client's session
+         * @return Rendered page; null if the token cannot be resumed
+         * @throws IOException
+         * @throws SolrServerException
+         */
+        Element render(String tokenName, String filterQuerySuffix) throws IOException, SolrServerException;
+    }
+
+    /**
+     * Prefetched page.
+     */
+    private static final class Entry {
+
+        /** Time of scheduling in milliseconds */
+        private final long created;
+        /** Frees the concurrency limit slot taken for rendering */
+        private final Runnable release;
+        /** Page being rendered or already rendered */
+        private Future<Element> page;
+        /** Estimated size in bytes; 0 while rendering. Guarded by the lock on {@link HarvestPrefetcher#entries} */
+        private long bytes;
+
+        private Entry(long created, Runnable release) {
+            this.created = created;
+            this.release = release;
+        }
+    }
+
+    private final Configuration config;
+    private final AsyncRequestDispatcher dispatcher;
+    private final PageRenderer renderer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    /** Prefetched pages by token name and filter query suffix, oldest first */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    /** Estimated size in bytes of all rendered pages held. Guarded by the lock on {@link #entries} */
+    private long totalBytes = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param config {@link Configuration} to use
+     * @param dispatcher {@link AsyncRequestDispatcher} whose concurrency limits apply to prefetching
+     */
+    public HarvestPrefetcher(Configuration config, AsyncRequestDispatcher dispatcher) {
+        this(config, dispatcher, Format::createPage);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config {@link Configuration} to use
+     * @param dispatcher {@link AsyncRequestDispatcher} whose concurrency limits apply to prefetching
+     * @param renderer Renderer for resumed pages
+     */
+    HarvestPrefetcher(Configuration config, AsyncRequestDispatcher dispatcher, PageRenderer renderer) {
+        this.config = config;
+        this.dispatcher = dispatcher;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Starts rendering the page behind the resumption token contained in the given page, if prefetching is enabled.
+     *
+     * @param page ListIdentifiers or ListRecords element; other elements are ignored
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @should prefetch page for resumption token
+     * @should ignore pages without resumption token
+     * @should evict oldest page if limit reached
+     * @should evict oldest pages if size limit exceeded
+     * @should skip prefetching if concurrency limit saturated
+     */
+    public void schedule(Element page, String filterQuerySuffix) {
+        if (page == null || !config.isPrefetchEnabled() || config.getPrefetchMaxPages() <= 0) {
+            return;
+        }
+        Element eleToken = page.getChild("resumptionToken", Format.OAI_NS);
+        if (eleToken == null || StringUtils.isBlank(eleToken.getText())) {
+            return;
+        }
+
+        String tokenName = eleToken.getText();
+        Runnable release = dispatcher.tryReserve(page.getName());
+        if (release == null) {
+            logger.trace("Concurrency limit for {} saturated, not prefetching page for token {}", page.getName(), tokenName);
+            return;
+        }
+
+        String key = getKey(tokenName, filterQuerySuffix);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            removeExpired(now);
+            if (!entries.containsKey(key)) {
+                Iterator<Entry> it = entries.values().iterator();
+                while (entries.size() >= config.getPrefetchMaxPages() && it.hasNext()) {
+                    discard(it.next());
+                    it.remove();
+                }
+                Entry entry = new Entry(now, release);
+                FutureTask<Element> task = new FutureTask<>(() -> render(key, entry, tokenName, filterQuerySuffix));
+                entry.page = task;
+                try {
+                    executor.execute(task);
+                    entries.put(key, entry);
+                    logger.trace("Prefetching page for token {}", tokenName);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                }
+            }
+        }
+        release.run();
+    }
+
+    /**
+     * Renders the page for the given entry and accounts for its size once done.
+     *
+     * @param key Cache key
+     * @param entry Entry being rendered
+     * @param tokenName Resumption token name
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return Rendered page; null if the token cannot be resumed
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    private Element render(String key, Entry entry, String tokenName, String filterQuerySuffix) throws IOException, SolrServerException {
+        try {
+            Element ret = renderer.render(tokenName, filterQuerySuffix);
+            if (ret != null) {
+                addSize(key, entry, estimateSize(ret));
+            }
+            return ret;
+        } finally {
+            entry.release.run();
+        }
+    }
+
+    /**
+     * Records the size of a rendered page and evicts the oldest pages, possibly including this one, while the size limit is exceeded.
+     *
+     * @param key Cache key
+     * @param entry Entry whose page has been rendered
+     * @param bytes Estimated size of the page
+     */
+    private void addSize(String key, Entry entry, long bytes) {
+        long maxBytes = config.getPrefetchMaxBytes();
+        synchronized (entries) {
+            if (entries.get(key) != entry) {
+                // Already handed out or discarded
+                return;
+            }
+            entry.bytes = bytes;
+            totalBytes += bytes;
+            Iterator<Entry> it = entries.values().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Entry oldest = it.next();
+                if (oldest == entry) {
+                    // Too large to keep alongside newer pages; the result is dropped when this rendering returns
+                    oldest.page.cancel(false);
+                    totalBytes -= oldest.bytes;
+                } else {
+                    discard(oldest);
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param page
+     * @return Estimated size of the given page in bytes, measured as its compact serialization
+     * @should return serialized size
+     */
+    static long estimateSize(Element page) {
+        try (CountingOutputStream out = new CountingOutputStream(NullOutputStream.INSTANCE)) {
+            new XMLOutputter(XmlOutput.getFormat(true)).output(page, out);
+            return out.getByteCount();
+        } catch (IOException e) {
+            // Not thrown by the null stream
+            return 0;
+        }
+    }
+
+    /**
+     * Cancels the given entry and frees its resources. Must be called while holding the lock on {@link #entries}.
+     *
+     * @param entry
+     */
+    private void discard(Entry entry) {
+        entry.page.cancel(true);
+        entry.release.run();
+        totalBytes -= entry.bytes;
+    }
+
+    /**
+     * Removes and returns the prefetched page for the given token. If the page is still being rendered, waits for it to finish.
+     *
+     * @param tokenName Resumption token name
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return Prefetched page; null if none available or rendering failed
+     * @should return page only once
+     * @should return null if rendering failed
+     */
+    public Element take(String tokenName, String filterQuerySuffix) {
+        Entry entry;
+        synchronized (entries) {
+            removeExpired(System.currentTimeMillis());
+            entry = entries.remove(getKey(tokenName, filterQuerySuffix));
+            if (entry != null) {
+                totalBytes -= entry.bytes;
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            return entry.page.get();
+        } catch (ExecutionException e) {
+            logger.debug("Prefetching page for token {} failed: {}", tokenName, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    /**
+     * 
+     * @return Number of pages currently held
+     */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 
+     * @return Estimated size in bytes of all rendered pages currently held
+     */
+    long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Removes pages that have not been requested within the configured time. Must be called while holding the lock on {@link #entries}.
+     * 
+     * @param now Current time in milliseconds
+     */
+    private void removeExpired(long now) {
+        long ttl = config.getPrefetchTtl();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (now - entry.created <= ttl) {
+                // Entries are ordered by creation time
+                break;
+            }
+            discard(entry);
+            it.remove();
+        }
+    }
+
+    /**
+     * 
+     * @param tokenName
+     * @param filterQuerySuffix
+     * @return Cache key
+     */
+    private static String getKey(String tokenName, String filterQuerySuffix) {
+        return tokenName + '|' + (filterQuerySuffix != null ? filterQuerySuffix : "");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        synchronized (entries) {
+            entries.values().forEach(this::discard);
+            entries.clear();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.logging.log4j.LogManager;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 
+import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.utils.Utils;
@@ -52,6 +53,10 @@ public class RequestHandler {
     private String until = null;
     @XStreamAlias("set")
     private String set = null;
+    /** Derived values; not serialized into resumption tokens */
+    private transient volatile HarvestContext harvestContext = null;
+    /** True if records are rendered into a dump file rather than a response; no resumption tokens are stored then */
+    private transient boolean snapshot = false;
 
     /**
      * Handles the request in servlet.
@@ -172,6 +177,7 @@ public class RequestHandler {
      */
     public void setFrom(String from) {
         this.from = from;
+        this.harvestContext = null;
     }
 
     /**
@@ -257,6 +263,7 @@ public class RequestHandler {
      */
     public void setUntil(String until) {
         this.until = until;
+        this.harvestContext = null;
     }
 
     /**
@@ -280,4 +287,34 @@ public class RequestHandler {
     public void setSet(String set) {
         this.set = set;
     }
+
+    /**
+     * Returns the {@link HarvestContext} for this request, creating it on first access.
+     *
+     * @return the harvestContext
+     * @should create context from current values
+     * @should recreate context after until changed
+     */
+    public HarvestContext getHarvestContext() {
+        HarvestContext ret = harvestContext;
+        if (ret == null) {
+            ret = new HarvestContext(this, DataManager.getInstance().getConfiguration());
+            harvestContext = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * @return the snapshot
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param snapshot the snapshot to set
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
 }
@@ -0,0 +1,418 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.connector.utils.XmlConstants;
+import io.goobi.viewer.connector.utils.XmlOutput;
+
+/**
+ * Periodically writes all publicly visible records of each enabled metadata format into gzip-compressed files, so that bulk harvesters can
+ * download them instead of paging through ListRecords. Each file holds the records of one ListIdentifiers page and is only rewritten if the
+ * identifiers or datestamps of that page have changed; records whose header is unchanged are copied from the previous file version instead of
+ * being rendered again.
+ */
+public class SnapshotBuilder implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SnapshotBuilder.class);
+
+    /** Dump file names: part-00001.xml.gz etc. */
+    public static final Pattern FILE_NAME_PATTERN = Pattern.compile("part-(\\d{5})\\.xml\\.gz");
+    /** Suffix of the files containing the header signature of a dump file */
+    static final String SIGNATURE_SUFFIX = ".sha256";
+
+    private static final long STARTUP_DELAY = 5 * 60 * 1000L;
+
+    private final Configuration config;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "oai-dumps");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Constructor.
+     *
+     * @param config {@link Configuration} to use
+     */
+    public SnapshotBuilder(Configuration config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts periodic dump updates.
+     *
+     * @param intervalMillis Interval between the end of one update and the start of the next
+     */
+    public void start(long intervalMillis) {
+        scheduler.scheduleWithFixedDelay(this::build, STARTUP_DELAY, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Updates the dumps of all eligible metadata formats. Errors are logged per format.
+     */
+    void build() {
+        for (Metadata md : Metadata.values()) {
+            if (!isDumpable(md, config)) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            try {
+                buildSnapshot(md);
+                logger.info("Dump for '{}' updated in {} ms", md.getMetadataPrefix(), System.currentTimeMillis() - start);
+            } catch (IOException | SolrServerException | RuntimeException e) {
+                logger.error("Could not update dump for '{}': {}", md.getMetadataPrefix(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Formats whose records have to be paged with separate virtual cursors (version discriminator), that return several records per identifier
+     * (Epicur) or that are not backed by the index (iv_*) are not dumped.
+     *
+     * @param md Metadata format
+     * @param config
+     * @return true if dumps are written for the given format; false otherwise
+     * @should return true for enabled standard formats
+     * @should return false for formats without one record per identifier
+     */
+    static boolean isDumpable(Metadata md, Configuration config) {
+        switch (md) {
+            case EPICUR:
+            case IV_OVERVIEWPAGE:
+            case IV_CROWDSOURCING:
+                return false;
+            default:
+                return md.isOaiSet() && config.isMetadataFormatEnabled(md.getMetadataPrefix())
+                        && StringUtils.isEmpty(config.getVersionDisriminatorFieldForMetadataFormat(md.getMetadataPrefix()));
+        }
+    }
+
+    /**
+     * Returns the folder containing the dump files for the given format.
+     *
+     * @param md Metadata format
+     * @param config
+     * @return {@link Path}
+     */
+    public static Path getFolder(Metadata md, Configuration config) {
+        return Paths.get(config.getDumpFolder(), md.getMetadataPrefix());
+    }
+
+    /**
+     * 
+     * @param part Number of the file, starting with 1
+     * @return File name
+     * @should format number correctly
+     */
+    static String getFileName(int part) {
+        return String.format("part-%05d.xml.gz", part);
+    }
+
+    /**
+     * Updates all dump files of the given format.
+     *
+     * @param md Metadata format
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    void buildSnapshot(Metadata md) throws IOException, SolrServerException {
+        Path folder = getFolder(md, config);
+        Files.createDirectories(folder);
+        Format format = Format.getFormatByMetadataPrefix(md);
+        // Dumps are public, so only records visible to anonymous clients are included
+        String filterQuerySuffix = SolrSearchTools.getAllSuffixes(null);
+        int recordsPerFile = Math.max(1, config.getDumpRecordsPerFile());
+
+        RequestHandler handler = new RequestHandler();
+        handler.setVerb(Verb.LISTIDENTIFIERS);
+        handler.setMetadataPrefix(md);
+        handler.setSnapshot(true);
+
+        Map<String, Element> previousRecords = Collections.emptyMap();
+        int part = 0;
+        int rendered = 0;
+        int copied = 0;
+        boolean more = true;
+        while (more) {
+            int first = part * recordsPerFile;
+            Element identifiers = format.createListIdentifiers(handler, first, first, recordsPerFile, null, filterQuerySuffix);
+            List<Element> headers = identifiers.getChildren(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS);
+            if (headers.isEmpty()) {
+                break;
+            }
+            more = identifiers.getChild("resumptionToken", Format.OAI_NS) != null;
+            part++;
+
+            Path file = folder.resolve(getFileName(part));
+            Path signatureFile = folder.resolve(getFileName(part) + SIGNATURE_SUFFIX);
+            String signature = getSignature(headers);
+            if (Files.isRegularFile(file) && Files.isRegularFile(signatureFile) && signature.equals(Files.readString(signatureFile))) {
+                previousRecords = Collections.emptyMap();
+                continue;
+            }
+
+            // Records may have moved here from the previous file if rows were inserted or removed
+            Map<String, Element> oldRecords = readRecords(file);
+            Element listRecords = new Element(Verb.LISTRECORDS.getTitle(), Format.OAI_NS);
+            boolean complete = true;
+            for (Element header : headers) {
+                String identifier = header.getChildText(XmlConstants.ELE_NAME_IDENTIFIER, Format.OAI_NS);
+                Element oldRecord = oldRecords.remove(identifier);
+                if (oldRecord == null) {
+                    oldRecord = previousRecords.remove(identifier);
+                }
+                if (oldRecord != null
+                        && getHeaderKey(header).equals(getHeaderKey(oldRecord.getChild(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS)))) {
+                    listRecords.addContent(oldRecord.detach());
+                    copied++;
+                    continue;
+                }
+                Element newRecord = getRecord(format, md, identifier, filterQuerySuffix);
+                if (newRecord != null) {
+                    listRecords.addContent(newRecord);
+                    rendered++;
+                } else {
+                    logger.warn("Record '{}' could not be rendered in '{}', skipping", identifier, md.getMetadataPrefix());
+                    complete = false;
+                }
+            }
+            writePart(createDocument(md, listRecords), file, signatureFile, signature, complete);
+            previousRecords = oldRecords;
+        }
+
+        deleteObsoleteFiles(folder, part);
+        logger.debug("Dump '{}': {} files, {} records rendered, {} records copied", md.getMetadataPrefix(), part, rendered, copied);
+    }
+
+    /**
+     * Renders a single record via GetRecord.
+     *
+     * @param format
+     * @param md
+     * @param identifier OAI identifier
+     * @param filterQuerySuffix
+     * @return <code>record</code> element; null if the record could not be rendered
+     */
+    private static Element getRecord(Format format, Metadata md, String identifier, String filterQuerySuffix) {
+        RequestHandler handler = new RequestHandler();
+        handler.setVerb(Verb.GETRECORD);
+        handler.setMetadataPrefix(md);
+        handler.setSnapshot(true);
+        handler.setIdentifier(StringUtils.removeStart(identifier, handler.getHarvestContext().getRepositoryIdentifier()));
+        Element getRecord = format.createGetRecord(handler, filterQuerySuffix);
+        Element ret = getRecord.getChild(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS);
+        return ret != null ? ret.detach() : null;
+    }
+
+    /**
+     * Reads the records of an existing dump file.
+     *
+     * @param file
+     * @return Records by identifier; empty if the file does not exist or cannot be read
+     */
+    static Map<String, Element> readRecords(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return new LinkedHashMap<>();
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            Document doc = Utils.getDocumentFromStream(in);
+            Element listRecords = doc.getRootElement().getChild(Verb.LISTRECORDS.getTitle(), Format.OAI_NS);
+            Map<String, Element> ret = new LinkedHashMap<>();
+            if (listRecords != null) {
+                for (Element eleRecord : listRecords.getChildren(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS)) {
+                    Element header = eleRecord.getChild(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS);
+                    if (header != null) {
+                        ret.put(header.getChildText(XmlConstants.ELE_NAME_IDENTIFIER, Format.OAI_NS), eleRecord);
+                    }
+                }
+            }
+            return ret;
+        } catch (IOException | JDOMException e) {
+            logger.warn("Could not read dump file {}: {}", file, e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Wraps the given records in an OAI-PMH document.
+     * 
+     * @param md
+     * @param listRecords
+     * @return {@link Document}
+     */
+    private Document createDocument(Metadata md, Element listRecords) {
+        Element root = Format.getOaiPmhElement("OAI-PMH");
+        Element responseDate = new Element("responseDate", Format.OAI_NS);
+        responseDate.setText(Utils.getCurrentUTCTime(LocalDateTime.now()));
+        root.addContent(responseDate);
+        Element request = new Element("request", Format.OAI_NS);
+        request.setAttribute("verb", Verb.LISTRECORDS.getTitle());
+        request.setAttribute("metadataPrefix", md.getMetadataPrefix());
+        request.setText(config.getBaseURL());
+        root.addContent(request);
+        root.addContent(listRecords);
+        return new Document(root);
+    }
+
+    /**
+     * Writes a dump file. Its signature is only stored if all records could be rendered; otherwise any previous signature is removed, so
+     * that the file is built again on the next run instead of lacking the failed records until its headers change.
+     *
+     * @param doc Dump document
+     * @param file Dump file
+     * @param signatureFile File for the header signature
+     * @param signature Header signature of the records in the file
+     * @param complete true if all records could be rendered; false otherwise
+     * @throws IOException
+     * @should write signature if complete
+     * @should remove signature if records missing
+     */
+    static void writePart(Document doc, Path file, Path signatureFile, String signature, boolean complete) throws IOException {
+        write(doc, file);
+        if (complete) {
+            Files.writeString(signatureFile, signature);
+        } else {
+            Files.deleteIfExists(signatureFile);
+        }
+    }
+
+    /**
+     * Writes the document into a temporary file first and then replaces the target file, so that downloads never see a partial file.
+     * 
+     * @param doc
+     * @param file
+     * @throws IOException
+     */
+    private static void write(Document doc, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
+            XmlOutput.createOutputter().output(doc, out);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes dump files beyond the given number, e.g. after records have been removed from the index.
+     * 
+     * @param folder
+     * @param lastPart Number of the last current file
+     * @throws IOException
+     */
+    private static void deleteObsoleteFiles(Path folder, int lastPart) throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path file : stream) {
+                Matcher m = FILE_NAME_PATTERN.matcher(file.getFileName().toString());
+                if (m.matches() && Integer.parseInt(m.group(1)) > lastPart) {
+                    obsolete.add(file);
+                }
+            }
+        }
+        for (Path file : obsolete) {
+            Files.delete(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + SIGNATURE_SUFFIX));
+        }
+    }
+
+    /**
+     * Combines identifier, datestamp, status and sets of the given headers into a hash that changes whenever any of these values does.
+     *
+     * @param headers
+     * @return Hex-encoded SHA-256 hash
+     * @should return same value for equal headers
+     * @should return different value if datestamp changed
+     */
+    static String getSignature(List<Element> headers) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Element header : headers) {
+                digest.update(getHeaderKey(header).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 
+     * @param header <code>header</code> element
+     * @return Values of the header joined into one string; empty string if header is null
+     */
+    static String getHeaderKey(Element header) {
+        if (header == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(header.getChildTextTrim(XmlConstants.ELE_NAME_IDENTIFIER, Format.OAI_NS))
+                .append('\t')
+                .append(header.getChildTextTrim("datestamp", Format.OAI_NS))
+                .append('\t')
+                .append(header.getAttributeValue("status", ""));
+        for (Element setSpec : header.getChildren(XmlConstants.ELE_NAME_SETSPEC, Format.OAI_NS)) {
+            sb.append('\t').append(setSpec.getTextTrim());
+        }
+        return sb.toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
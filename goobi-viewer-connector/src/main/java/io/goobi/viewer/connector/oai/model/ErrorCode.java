@@ -15,8 +15,13 @@
  */
 package io.goobi.viewer.connector.oai.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.jdom2.Element;
 import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
 
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.utils.XmlConstants;
@@ -40,6 +45,22 @@ public class ErrorCode {
             "The combination of the values of the from, until, set and metadataPrefix arguments results in an empty list.";
     static final String BODY_NO_SET_HIERARCHY = "The repository does not support sets.";
 
+    private static final Namespace DEFAULT_NAMESPACE = DataManager.getInstance().getConfiguration().getStandardNameSpace();
+
+    /** Serialized error elements by code, rendered once without namespace */
+    private static final Map<String, String> FRAGMENTS = new HashMap<>();
+
+    static {
+        render("badArgument", BODY_BAD_ARGUMENT);
+        render("badResumptionToken", BODY_BAD_RESUMPTION_TOKEN);
+        render("badVerb", BODY_BAD_VERB);
+        render("cannotDisseminateFormat", BODY_CANNOT_DISSEMINATE_FORMAT);
+        render("idDoesNotExist", BODY_ID_DOES_NOT_EXIST);
+        render("noMetadataFormats", BODY_NO_METADATA_FORMATS);
+        render("noRecordsMatch", BODY_NO_RECORDS_MATCH);
+        render("noSetHierarchy", BODY_NO_SET_HIERARCHY);
+    }
+
     private Namespace xmlns = null;
 
     /**
@@ -48,7 +69,29 @@ public class ErrorCode {
      * </p>
      */
     public ErrorCode() {
-        xmlns = DataManager.getInstance().getConfiguration().getStandardNameSpace();
+        xmlns = DEFAULT_NAMESPACE;
+    }
+
+    /**
+     * 
+     * @param code
+     * @param body
+     */
+    private static void render(String code, String body) {
+        Element error = new Element(XmlConstants.ELE_NAME_ERROR);
+        error.setAttribute("code", code);
+        error.setText(body);
+        FRAGMENTS.put(code, new XMLOutputter(Format.getRawFormat()).outputString(error));
+    }
+
+    /**
+     * 
+     * @param code
+     * @param body
+     * @return {@link ErrorElement}
+     */
+    private ErrorElement create(String code, String body) {
+        return new ErrorElement(code, body, xmlns, FRAGMENTS.get(code));
     }
 
     /**
@@ -58,10 +101,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getBadArgument() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "badArgument");
-        error.setText(BODY_BAD_ARGUMENT);
-        return error;
+        return create("badArgument", BODY_BAD_ARGUMENT);
     }
 
     /**
@@ -71,10 +111,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getBadResumptionToken() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "badResumptionToken");
-        error.setText(BODY_BAD_RESUMPTION_TOKEN);
-        return error;
+        return create("badResumptionToken", BODY_BAD_RESUMPTION_TOKEN);
     }
 
     /**
@@ -84,10 +121,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getBadVerb() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "badVerb");
-        error.setText(BODY_BAD_VERB);
-        return error;
+        return create("badVerb", BODY_BAD_VERB);
     }
 
     /**
@@ -97,11 +131,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getCannotDisseminateFormat() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "cannotDisseminateFormat");
-        error.setText(
-                BODY_CANNOT_DISSEMINATE_FORMAT);
-        return error;
+        return create("cannotDisseminateFormat", BODY_CANNOT_DISSEMINATE_FORMAT);
     }
 
     /**
@@ -111,10 +141,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getIdDoesNotExist() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "idDoesNotExist");
-        error.setText(BODY_ID_DOES_NOT_EXIST);
-        return error;
+        return create("idDoesNotExist", BODY_ID_DOES_NOT_EXIST);
     }
 
     /**
@@ -124,10 +151,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getNoMetadataFormats() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "noMetadataFormats");
-        error.setText(BODY_NO_METADATA_FORMATS);
-        return error;
+        return create("noMetadataFormats", BODY_NO_METADATA_FORMATS);
     }
 
     /**
@@ -137,10 +161,7 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getNoRecordsMatch() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "noRecordsMatch");
-        error.setText(BODY_NO_RECORDS_MATCH);
-        return error;
+        return create("noRecordsMatch", BODY_NO_RECORDS_MATCH);
     }
 
     /**
@@ -150,9 +171,6 @@ public class ErrorCode {
      * @should construct element correctly
      */
     public Element getNoSetHierarchy() {
-        Element error = new Element(XmlConstants.ELE_NAME_ERROR, xmlns);
-        error.setAttribute("code", "noSetHierarchy");
-        error.setText(BODY_NO_SET_HIERARCHY);
-        return error;
+        return create("noSetHierarchy", BODY_NO_SET_HIERARCHY);
     }
 }
@@ -0,0 +1,65 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+import io.goobi.viewer.connector.utils.XmlConstants;
+
+/**
+ * OAI-PMH error element that carries its pre-rendered serialization, so that the response writer can emit it without walking the element.
+ */
+public class ErrorElement extends Element {
+
+    private static final long serialVersionUID = 6211465497135342860L;
+
+    private final String code;
+    private final String body;
+    /** Serialized form for a parent element that declares the same default namespace */
+    private final transient String fragment;
+
+    /**
+     * 
+     * @param code Error code
+     * @param body Error message
+     * @param xmlns Namespace of the element
+     * @param fragment Pre-rendered element
+     */
+    ErrorElement(String code, String body, Namespace xmlns, String fragment) {
+        super(XmlConstants.ELE_NAME_ERROR, xmlns);
+        this.code = code;
+        this.body = body;
+        this.fragment = fragment;
+        setAttribute("code", code);
+        setText(body);
+    }
+
+    /**
+     * Returns the pre-rendered element if the element still has its original code and message.
+     * 
+     * @return Serialized element without namespace declaration; null if the element has been modified since its creation
+     * @should return fragment if unmodified
+     * @should return null if modified
+     */
+    public String getFragment() {
+        if (fragment == null || getAttributesSize() != 1 || getContentSize() != 1 || !code.equals(getAttributeValue("code"))
+                || !body.equals(getText()) || !getAdditionalNamespaces().isEmpty()) {
+            return null;
+        }
+        return fragment;
+    }
+}
@@ -52,6 +52,9 @@ public class ResumptionToken {
     private long expirationDate;
     @XStreamAlias("handler")
     private RequestHandler handler;
+    /** Number of records on the page this token points to; 0 in tokens that were created before the page size was stored. */
+    @XStreamAlias("hitsPerToken")
+    private int hitsPerToken;
 
     /**
      * Creates a unique resumption token when number of hits is greater than list size.
@@ -209,4 +212,22 @@ public class ResumptionToken {
         return handler;
     }
 
+    /**
+     * <p>Getter for the field <code>hitsPerToken</code>.</p>
+     *
+     * @return the hitsPerToken
+     */
+    public int getHitsPerToken() {
+        return hitsPerToken;
+    }
+
+    /**
+     * <p>Setter for the field <code>hitsPerToken</code>.</p>
+     *
+     * @param hitsPerToken the hitsPerToken to set
+     */
+    public void setHitsPerToken(int hitsPerToken) {
+        this.hitsPerToken = hitsPerToken;
+    }
+
 }
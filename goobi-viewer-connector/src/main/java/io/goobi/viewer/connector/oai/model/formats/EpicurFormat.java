@@ -33,11 +33,11 @@ import org.jdom2.Element;
 import org.jdom2.Namespace;
 
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.HarvestContext;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
-import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.connector.utils.XmlConstants;
@@ -93,13 +93,14 @@ public class EpicurFormat extends Format {
         if (records.size() < useNumRows) {
             useNumRows = records.size();
         }
-        int pagecount = 0;
+        HarvestContext context = handler.getHarvestContext();
+        long pagecount = 0;
         for (SolrDocument doc : records) {
-            long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, RequestHandler.getUntilTimestamp(handler.getUntil()));
+            long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, context.getUntilTimestamp());
             Long dateDeleted = (Long) doc.getFieldValue(SolrConstants.DATEDELETED);
             if (doc.getFieldValue(SolrConstants.URN) != null) {
                 Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-                Element header = generateEpicurHeader(doc, dateUpdated, setSpecFields);
+                Element header = generateEpicurHeader(doc, dateUpdated, setSpecFields, context);
                 eleRecord.addContent(header);
                 Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
                 eleRecord.addContent(metadata);
@@ -120,23 +121,20 @@ public class EpicurFormat extends Format {
                         .append(SolrConstants.IMAGEURN)
                         .append(":*");
                 sbPageQuery.append(urnPrefixBlacklistSuffix);
-                QueryResponse qrInner = solr.search(sbPageQuery.toString(), 0, SolrSearchIndex.MAX_HITS,
-                        Collections.singletonList(SolrConstants.ORDER), Collections.singletonList(SolrConstants.IMAGEURN), null);
-                if (qrInner != null && !qrInner.getResults().isEmpty()) {
-                    for (SolrDocument pageDoc : qrInner.getResults()) {
-                        String imgUrn = (String) pageDoc.getFieldValue(SolrConstants.IMAGEURN);
-                        Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-                        Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields);
-                        pagerecord.addContent(pageheader);
-                        Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
-                        pagerecord.addContent(pagemetadata);
-                        pagemetadata.addContent(generateEpicurPageElement(imgUrn, (Long) doc.getFieldValue(SolrConstants.DATECREATED), dateUpdated,
-                                (Long) doc.getFieldValue(SolrConstants.DATEDELETED)));
-                        xmlListRecords.addContent(pagerecord);
-                        pagecount++;
-                    }
-                    logger.trace("Found {} page records for {}", qrInner.getResults().size(), doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
-                }
+                long pages = solr.stream(sbPageQuery.toString(), Collections.singletonList(SolrConstants.ORDER),
+                        Collections.singletonList(SolrConstants.IMAGEURN), pageDoc -> {
+                            String imgUrn = (String) pageDoc.getFieldValue(SolrConstants.IMAGEURN);
+                            Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
+                            Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields, context);
+                            pagerecord.addContent(pageheader);
+                            Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
+                            pagerecord.addContent(pagemetadata);
+                            pagemetadata.addContent(generateEpicurPageElement(imgUrn, (Long) doc.getFieldValue(SolrConstants.DATECREATED),
+                                    dateUpdated, (Long) doc.getFieldValue(SolrConstants.DATEDELETED)));
+                            xmlListRecords.addContent(pagerecord);
+                        });
+                pagecount += pages;
+                logger.trace("Found {} page records for {}", pages, doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
             } else {
                 // Page elements for deleted record (only deleted record docs will have IMAGEURN_OAI!)
                 Collection<Object> pageUrnValues = doc.getFieldValues(SolrConstants.IMAGEURN_OAI);
@@ -144,7 +142,7 @@ public class EpicurFormat extends Format {
                     for (Object obj : pageUrnValues) {
                         String imgUrn = (String) obj;
                         Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-                        Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields);
+                        Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields, context);
                         pagerecord.addContent(pageheader);
                         Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
                         pagerecord.addContent(pagemetadata);
@@ -182,9 +180,10 @@ public class EpicurFormat extends Format {
                 return new ErrorCode().getIdDoesNotExist();
             }
             Element getRecord = new Element("GetRecord", OAI_NS);
-            long dateupdated = SolrSearchTools.getLatestValidDateUpdated(doc, RequestHandler.getUntilTimestamp(handler.getUntil()));
+            HarvestContext context = handler.getHarvestContext();
+            long dateupdated = SolrSearchTools.getLatestValidDateUpdated(doc, context.getUntilTimestamp());
             String urn = doc.getFieldValue(SolrConstants.URN) != null ? (String) doc.getFieldValue(SolrConstants.URN) : handler.getIdentifier();
-            Element header = generateEpicurPageHeader(doc, urn, dateupdated, setSpecFields);
+            Element header = generateEpicurPageHeader(doc, urn, dateupdated, setSpecFields, context);
             Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
             eleRecord.addContent(header);
             Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
@@ -206,14 +205,13 @@ public class EpicurFormat extends Format {
      * @param doc
      * @param dateUpdated
      * @param setSpecFields
+     * @param context
      * @return {@link Element}
      */
-    private static Element generateEpicurHeader(SolrDocument doc, long dateUpdated, List<String> setSpecFields) {
+    private static Element generateEpicurHeader(SolrDocument doc, long dateUpdated, List<String> setSpecFields, HarvestContext context) {
         Element header = new Element("header", OAI_NS);
         Element identifier = new Element(XmlConstants.ELE_NAME_IDENTIFIER, OAI_NS);
-        identifier.setText(
-                DataManager.getInstance().getConfiguration().getOaiIdentifier().get("repositoryIdentifier")
-                        + (String) doc.getFieldValue(SolrConstants.URN));
+        identifier.setText(context.getRepositoryIdentifier() + (String) doc.getFieldValue(SolrConstants.URN));
         header.addContent(identifier);
 
         Element datestamp = new Element("datestamp", OAI_NS);
@@ -318,13 +316,15 @@ public class EpicurFormat extends Format {
      * @param urn
      * @param dateUpdated
      * @param setSpecFields
+     * @param context
      * @return {@link Element}
      */
-    private static Element generateEpicurPageHeader(SolrDocument doc, String urn, long dateUpdated, List<String> setSpecFields) {
+    private static Element generateEpicurPageHeader(SolrDocument doc, String urn, long dateUpdated, List<String> setSpecFields,
+            HarvestContext context) {
         Element header = new Element("header", OAI_NS);
 
         Element identifier = new Element(XmlConstants.ELE_NAME_IDENTIFIER, OAI_NS);
-        identifier.setText(DataManager.getInstance().getConfiguration().getOaiIdentifier().get("repositoryIdentifier") + urn);
+        identifier.setText(context.getRepositoryIdentifier() + urn);
         header.addContent(identifier);
 
         Element datestamp = new Element("datestamp", OAI_NS);
@@ -441,6 +441,17 @@ public class EpicurFormat extends Format {
         return eleAdministrativeData;
     }
 
+    /**
+     * Checks whether the given element is the root of an Epicur record. Such elements are written with their own <code>xsi</code> namespace
+     * declaration so that each record is valid on its own.
+     * 
+     * @param element
+     * @return true if element is an <code>epicur</code> element; false otherwise
+     */
+    public static boolean isEpicurElement(Element element) {
+        return "epicur".equals(element.getName()) && EPICUR.getURI().equals(element.getNamespaceURI());
+    }
+
     /** {@inheritDoc} */
     @Override
     public long getTotalHits(Map<String, String> params, String versionDiscriminatorField, String filterQuerySuffix)
@@ -100,6 +100,7 @@ public class EuropeanaFormat extends OAIDCFormat {
             String recordType, String filterQuerySuffix) throws SolrServerException, IOException {
 
         Element xmlListRecords = new Element(recordType, OAI_NS);
+        prefetchLatestVolumeTimestamps(records, handler, filterQuerySuffix);
         for (SolrDocument doc : records) {
             Element eleRecord = generateSingleESERecord(doc, handler, filterQuerySuffix);
             xmlListRecords.addContent(eleRecord);
@@ -206,14 +207,9 @@ public class EuropeanaFormat extends OAIDCFormat {
         }
         if (isWork && doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
             // If this is a volume, add anchor title in front
-            String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-            String anchorTitle = anchorTitles.get(iddocParent);
-            if (anchorTitle == null) {
-                anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
-                if (anchorTitle != null) {
-                    title = anchorTitle + "; " + title;
-                    anchorTitles.put(iddocParent, anchorTitle);
-                }
+            String anchorTitle = getAnchorTitle((String) doc.getFieldValue(SolrConstants.IDDOC_PARENT), filterQuerySuffix);
+            if (anchorTitle != null) {
+                title = anchorTitle + "; " + title;
             }
         }
         if (!StringConstants.ACCESSCONDITION_METADATA_ACCESS_RESTRICTED.equals(title)) {
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -47,6 +48,7 @@ import com.thoughtworks.xstream.io.StreamException;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.HarvestContext;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.enums.Verb;
@@ -331,6 +333,7 @@ public abstract class Format {
             }
             totalVirtualHits = SolrSearchTools.getFieldCount(qr, versionDiscriminatorField);
             totalRawHits = qr.getResults().getNumFound();
+            prefetchLatestVolumeTimestamps(qr.getResults(), handler, filterQuerySuffix);
             for (SolrDocument doc : qr.getResults()) {
                 List<String> versions = SolrSearchTools.getMetadataValues(doc, versionDiscriminatorField);
                 for (String version : versions) {
@@ -355,6 +358,7 @@ public abstract class Format {
             }
             totalRawHits = qr.getResults().getNumFound();
             totalVirtualHits = totalRawHits;
+            prefetchLatestVolumeTimestamps(qr.getResults(), handler, filterQuerySuffix);
             for (SolrDocument doc : qr.getResults()) {
                 Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
                 xmlListIdentifiers.addContent(header);
@@ -389,6 +393,33 @@ public abstract class Format {
         return oaiPmh;
     }
 
+    /**
+     * Determines the latest volume datestamps of all anchors on a page that have no datestamp of their own with a single query, so that
+     * {@link #getHeader(SolrDocument, SolrDocument, RequestHandler, String, List, String)} finds them in the cache. Failures are only logged;
+     * the header generation then queries each anchor individually.
+     *
+     * @param records Documents on the current page
+     * @param handler
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     */
+    protected static void prefetchLatestVolumeTimestamps(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix) {
+        long untilTimestamp = handler.getHarvestContext().getUntilTimestamp();
+        List<String> anchorIddocs = new ArrayList<>();
+        for (SolrDocument doc : records) {
+            if (doc.getFieldValue(SolrConstants.ISANCHOR) != null && SolrSearchTools.getLatestValidDateUpdated(doc, untilTimestamp) == 0) {
+                anchorIddocs.add(String.valueOf(doc.getFieldValue(SolrConstants.IDDOC)));
+            }
+        }
+        if (anchorIddocs.isEmpty()) {
+            return;
+        }
+        try {
+            DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamps(anchorIddocs, untilTimestamp, filterQuerySuffix);
+        } catch (IOException | SolrServerException e) {
+            logger.warn("Could not determine latest volume timestamps: {}", e.getMessage());
+        }
+    }
+
     /**
      * Create the header for listIdentifiers and ListRecords, because there are both the same.
      *
@@ -406,12 +437,12 @@ public abstract class Format {
     protected static Element getHeader(SolrDocument doc, SolrDocument topstructDoc, RequestHandler handler, String requestedVersion,
             List<String> setSpecFields, String filterQuerySuffix) throws SolrServerException, IOException {
         // logger.trace("getHeader: {}", doc.getFieldValue(SolrConstants.PI)); //NOSONAR Debug
+        HarvestContext context = handler.getHarvestContext();
         Element header = new Element("header", OAI_NS);
         // identifier
         if (doc.getFieldValue(SolrConstants.URN) != null && !((String) doc.getFieldValue(SolrConstants.URN)).isEmpty()) {
             Element urnIdentifier = new Element("identifier", OAI_NS);
-            urnIdentifier.setText(DataManager.getInstance().getConfiguration().getOaiIdentifier().get("repositoryIdentifier")
-                    + (String) doc.getFieldValue(SolrConstants.URN));
+            urnIdentifier.setText(context.getRepositoryIdentifier() + (String) doc.getFieldValue(SolrConstants.URN));
             header.addContent(urnIdentifier);
         } else {
             Element identifier = new Element("identifier", OAI_NS);
@@ -419,21 +450,24 @@ public abstract class Format {
             if (pi == null) {
                 pi = (String) doc.getFieldValue(SolrConstants.PI);
             }
-            identifier.setText(DataManager.getInstance().getConfiguration().getOaiIdentifier().get("repositoryIdentifier") + pi
+            identifier.setText(context.getRepositoryIdentifier() + pi
                     + (StringUtils.isNotEmpty(requestedVersion) ? '_' + requestedVersion : ""));
             header.addContent(identifier);
         }
         // datestamp
         Element datestamp = new Element("datestamp", OAI_NS);
-        long untilTimestamp = RequestHandler.getUntilTimestamp(handler.getUntil());
+        long untilTimestamp = context.getUntilTimestamp();
         logger.trace("untilTimestamp: {}", untilTimestamp);
         long timestampModified = SolrSearchTools.getLatestValidDateUpdated(topstructDoc != null ? topstructDoc : doc, untilTimestamp);
         logger.trace("timestampModified: {}", timestampModified);
-        datestamp.setText(Utils.parseDate(timestampModified));
-        if (StringUtils.isEmpty(datestamp.getText()) && doc.getFieldValue(SolrConstants.ISANCHOR) != null) {
-            datestamp.setText(
-                    Utils.parseDate(DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamp(doc, untilTimestamp, filterQuerySuffix)));
+        if (timestampModified == 0 && doc.getFieldValue(SolrConstants.ISANCHOR) != null) {
+            // Anchor without own datestamp: use the latest volume
+            long latestVolumeTimestamp = DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamp(doc, untilTimestamp, filterQuerySuffix);
+            if (latestVolumeTimestamp > 0) {
+                timestampModified = latestVolumeTimestamp;
+            }
         }
+        datestamp.setText(Utils.parseDate(timestampModified));
         header.addContent(datestamp);
         logger.trace("datestamp: {}", datestamp.getText());
         // setSpec
@@ -501,8 +535,15 @@ public abstract class Format {
         long time = now + expiration;
         ResumptionToken token = new ResumptionToken(ResumptionToken.TOKEN_NAME_PREFIX + System.currentTimeMillis(), virtualHits, rawHits,
                 virtualCursor, rawCursor, time, handler);
+        if (handler.getMetadataPrefix() != null) {
+            token.setHitsPerToken(DataManager.getInstance()
+                    .getPageSizer()
+                    .getHitsPerToken(handler.getVerb(), handler.getMetadataPrefix().getMetadataPrefix()));
+        }
         try {
-            saveToken(token);
+            if (!handler.isSnapshot()) {
+                saveToken(token);
+            }
 
             Element eleResumptionToken = new Element("resumptionToken", OAI_NS);
             eleResumptionToken.setAttribute("expirationDate", Utils.convertDate(time));
@@ -541,6 +582,18 @@ public abstract class Format {
      * @should return error if resumption token name illegal
      */
     public static Element handleToken(String resumptionToken, String filterQuerySuffix) {
+        return handleToken(resumptionToken, filterQuerySuffix, null);
+    }
+
+    /**
+     * handle token.
+     *
+     * @param resumptionToken a {@link java.lang.String} object.
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param resumedHandler If not null, receives verb and metadataPrefix of the resumed request
+     * @return a {@link org.jdom2.Element} object.
+     */
+    public static Element handleToken(String resumptionToken, String filterQuerySuffix, RequestHandler resumedHandler) {
         if (resumptionToken == null) {
             throw new IllegalArgumentException("resumptionToken may not be null");
         }
@@ -559,34 +612,18 @@ public abstract class Format {
 
         try {
             ResumptionToken token = deserializeResumptionToken(f);
-            Map<String, String> params = Utils.filterDatestampFromRequest(token.getHandler());
-
-            long totalHits = 0;
-            String versionDiscriminatorField = DataManager.getInstance()
-                    .getConfiguration()
-                    .getVersionDisriminatorFieldForMetadataFormat(token.getHandler().getMetadataPrefix().getMetadataPrefix());
-
-            Format format = Format.getFormatByMetadataPrefix(token.getHandler().getMetadataPrefix());
-            if (format == null) {
-                logger.error("Bad metadataPrefix: {}", token.getHandler().getMetadataPrefix());
-                return new ErrorCode().getCannotDisseminateFormat();
+            if (resumedHandler != null) {
+                resumedHandler.setVerb(token.getHandler().getVerb());
+                resumedHandler.setMetadataPrefix(token.getHandler().getMetadataPrefix());
             }
-            totalHits = format.getTotalHits(params, versionDiscriminatorField, filterQuerySuffix);
-            if (token.getHits() != totalHits) {
-                logger.warn("Hits size in the token ({}) does not equal the reported total hits number ({}).", token.getHits(), totalHits);
-                return new ErrorCode().getBadResumptionToken();
+            Element prefetched = DataManager.getInstance().getHarvestPrefetcher().take(resumptionToken, filterQuerySuffix);
+            if (prefetched != null) {
+                logger.debug("Serving prefetched page for token {}", resumptionToken);
+                return prefetched;
             }
-            int hitsPerToken =
-                    DataManager.getInstance()
-                            .getConfiguration()
-                            .getHitsPerTokenForMetadataFormat(token.getHandler().getMetadataPrefix().getMetadataPrefix());
-
-            if (token.getHandler().getVerb().equals(Verb.LISTIDENTIFIERS)) {
-                return format.createListIdentifiers(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
-                        versionDiscriminatorField, filterQuerySuffix);
-            } else if (token.getHandler().getVerb().equals(Verb.LISTRECORDS)) {
-                return format.createListRecords(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
-                        versionDiscriminatorField, filterQuerySuffix);
+            Element ret = createPage(token, filterQuerySuffix);
+            if (ret != null) {
+                return ret;
             }
         } catch (StreamException | ConversionException e) {
             // File cannot be de-serialized, so just delete it
@@ -599,6 +636,76 @@ public abstract class Format {
         return new ErrorCode().getBadResumptionToken();
     }
 
+    /**
+     * Renders the page the resumption token with the given name points to.
+     *
+     * @param tokenName Resumption token name
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link Element} with the page or an error element; null if the token does not exist or its verb is not a list verb
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    public static Element createPage(String tokenName, String filterQuerySuffix) throws IOException, SolrServerException {
+        File f = new File(DataManager.getInstance().getConfiguration().getResumptionTokenFolder(), tokenName);
+        if (!ResumptionToken.TOKEN_NAME_PATTERN.matcher(tokenName).matches() || !f.exists()) {
+            return null;
+        }
+
+        return createPage(deserializeResumptionToken(f), filterQuerySuffix);
+    }
+
+    /**
+     * Renders the page the given resumption token points to.
+     *
+     * @param token Resumption token
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link Element} with the page or an error element; null if the token's verb is not a list verb
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    public static Element createPage(ResumptionToken token, String filterQuerySuffix) throws IOException, SolrServerException {
+        Map<String, String> params = Utils.filterDatestampFromRequest(token.getHandler());
+
+        long totalHits = 0;
+        String versionDiscriminatorField = DataManager.getInstance()
+                .getConfiguration()
+                .getVersionDisriminatorFieldForMetadataFormat(token.getHandler().getMetadataPrefix().getMetadataPrefix());
+
+        Format format = Format.getFormatByMetadataPrefix(token.getHandler().getMetadataPrefix());
+        if (format == null) {
+            logger.error("Bad metadataPrefix: {}", token.getHandler().getMetadataPrefix());
+            return new ErrorCode().getCannotDisseminateFormat();
+        }
+        totalHits = format.getTotalHits(params, versionDiscriminatorField, filterQuerySuffix);
+        if (token.getHits() != totalHits) {
+            logger.warn("Hits size in the token ({}) does not equal the reported total hits number ({}).", token.getHits(), totalHits);
+            return new ErrorCode().getBadResumptionToken();
+        }
+        // Tokens store the page size chosen when they were issued, so that the page a token points to stays the same
+        int hitsPerToken = token.getHitsPerToken() > 0 ? token.getHitsPerToken()
+                : DataManager.getInstance()
+                        .getConfiguration()
+                        .getHitsPerTokenForMetadataFormat(token.getHandler().getMetadataPrefix().getMetadataPrefix());
+
+        long start = System.nanoTime();
+        Element ret = null;
+        if (token.getHandler().getVerb().equals(Verb.LISTIDENTIFIERS)) {
+            ret = format.createListIdentifiers(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
+                    versionDiscriminatorField, filterQuerySuffix);
+        } else if (token.getHandler().getVerb().equals(Verb.LISTRECORDS)) {
+            ret = format.createListRecords(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
+                    versionDiscriminatorField, filterQuerySuffix);
+        }
+        if (ret != null) {
+            DataManager.getInstance()
+                    .getPageSizer()
+                    .recordRendering(token.getHandler().getVerb(), token.getHandler().getMetadataPrefix().getMetadataPrefix(), ret,
+                            System.nanoTime() - start);
+        }
+
+        return ret;
+    }
+
     /**
      * 
      * @param tokenFile
@@ -16,14 +16,16 @@
 package io.goobi.viewer.connector.oai.model.formats;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.common.SolrDocument;
 import org.jdom2.Element;
 import org.jdom2.Namespace;
 import org.json.JSONArray;
@@ -34,9 +36,7 @@ import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.Utils;
-import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.exceptions.HTTPException;
-import io.goobi.viewer.solr.SolrConstants;
 
 /**
  * Crowdsourcing and overview page data.
@@ -47,6 +47,11 @@ public class GoobiViewerUpdateFormat extends Format {
 
     private static final String URL_PARAM_FROM = "&from=";
     private static final String URL_PARAM_UNTIL = "&until=";
+    /** Maximum number of cached harvest list totals before expired entries are removed */
+    private static final int TOTAL_HITS_CACHE_SIZE = 1000;
+
+    /** Total sizes of the viewer's harvest lists by prefix/from/until, kept for the lifetime of a resumption token */
+    private static final Map<String, CachedTotal> TOTAL_HITS_CACHE = new ConcurrentHashMap<>();
 
     /** {@inheritDoc} */
     @Override
@@ -73,7 +78,7 @@ public class GoobiViewerUpdateFormat extends Format {
         sbUrl.append("&first=").append(firstVirtualRow).append("&pageSize=").append(numRows);
 
         try {
-            String rawJSON = NetTools.getWebContentGET(sbUrl.toString());
+            String rawJSON = DataManager.getInstance().getSourceDocumentProvider().getContent(sbUrl.toString());
             JSONArray jsonArray = null;
             long totalHits = 0;
             if (StringUtils.isNotEmpty(rawJSON)) {
@@ -81,6 +86,7 @@ public class GoobiViewerUpdateFormat extends Format {
                 totalHits = (int) jsonArray.get(0);
                 jsonArray.remove(0);
             }
+            cacheTotalHits(Utils.filterDatestampFromRequest(handler), totalHits);
             if (totalHits == 0) {
                 return new ErrorCode().getNoRecordsMatch();
             }
@@ -171,6 +177,19 @@ public class GoobiViewerUpdateFormat extends Format {
         }
         sbUrlRoot.append("&identifier=");
         String urlRoot = sbUrlRoot.toString();
+
+        // Resolve process IDs for all records with one query
+        List<String> identifiers = new ArrayList<>(jsonArray.length());
+        for (int i = 0; i < jsonArray.length(); ++i) {
+            identifiers.add((String) ((JSONObject) jsonArray.get(i)).get("id"));
+        }
+        Map<String, String> processIds = Collections.emptyMap();
+        try {
+            processIds = solr.getProcessIds(identifiers);
+        } catch (SolrServerException e) {
+            logger.error(e.getMessage(), e);
+        }
+
         for (int i = 0; i < jsonArray.length(); ++i) {
             JSONObject jsonObj = (JSONObject) jsonArray.get(i);
             String identifier = (String) jsonObj.get("id");
@@ -205,17 +224,7 @@ public class GoobiViewerUpdateFormat extends Format {
             Element metadata = new Element("metadata", OAI_NS);
             try {
                 // Add process ID, if available
-                String processId = null;
-                StringBuilder sb = new StringBuilder();
-                sb.append(SolrConstants.PI).append(':').append(identifier);
-                try {
-                    SolrDocument doc = solr.getFirstDoc(sb.toString(), Collections.singletonList("MD_PROCESSID"));
-                    if (doc != null) {
-                        processId = (String) doc.getFirstValue("MD_PROCESSID");
-                    }
-                } catch (SolrServerException e) {
-                    logger.error(e.getMessage(), e);
-                }
+                String processId = processIds.get(identifier);
                 if (processId != null) {
                     Element eleId = new Element("processId", nsOverviewPage);
                     eleId.setText(processId);
@@ -261,16 +270,34 @@ public class GoobiViewerUpdateFormat extends Format {
     /* (non-Javadoc)
      * @see io.goobi.viewer.connector.oai.model.formats.AbstractFormat#getTotalHits(java.util.Map, java.lang.String, java.lang.String)
      */
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * 
+     * The total reported by the last list page of the same harvest is used, if available, so that resumption requests do not download the
+     * list again.
+     * 
+     * @should return cached total if available
+     */
     @Override
     public long getTotalHits(Map<String, String> params, String versionDiscriminatorField, String filterQuerySuffix)
             throws IOException, SolrServerException {
-        String url = DataManager.getInstance().getConfiguration().getHarvestUrl() + "?action=getlist_" + params.get("metadataPrefix").substring(3);
+        CachedTotal cached = TOTAL_HITS_CACHE.get(getTotalHitsCacheKey(params));
+        if (cached != null && cached.expires() > System.currentTimeMillis()) {
+            DataManager.getInstance().getMetrics().recordCacheGets("harvestListTotals", 1, 0);
+            return cached.totalHits();
+        }
+        DataManager.getInstance().getMetrics().recordCacheGets("harvestListTotals", 0, 1);
+
+        // Only the total (first element) is needed
+        String url = DataManager.getInstance().getConfiguration().getHarvestUrl() + "?action=getlist_" + params.get("metadataPrefix").substring(3)
+                + "&first=0&pageSize=1";
         try {
-            String rawJSON = NetTools.getWebContentGET(url);
+            String rawJSON = DataManager.getInstance().getSourceDocumentProvider().getContent(url);
             if (StringUtils.isNotEmpty(rawJSON)) {
                 JSONArray jsonArray = new JSONArray(rawJSON);
-                return Long.valueOf((int) jsonArray.get(0));
+                long ret = Long.valueOf((int) jsonArray.get(0));
+                cacheTotalHits(params, ret);
+                return ret;
             }
         } catch (HTTPException e) {
             throw new IOException(e.getCode() + ": " + e.getMessage());
@@ -279,4 +306,35 @@ public class GoobiViewerUpdateFormat extends Format {
         return 0;
     }
 
+    /**
+     * 
+     * @param params Parameters as returned by {@link Utils#filterDatestampFromRequest(RequestHandler)}
+     * @param totalHits
+     */
+    static void cacheTotalHits(Map<String, String> params, long totalHits) {
+        long now = System.currentTimeMillis();
+        if (TOTAL_HITS_CACHE.size() > TOTAL_HITS_CACHE_SIZE) {
+            TOTAL_HITS_CACHE.values().removeIf(c -> c.expires() <= now);
+        }
+        TOTAL_HITS_CACHE.put(getTotalHitsCacheKey(params), new CachedTotal(totalHits, now + expiration));
+    }
+
+    /**
+     * 
+     * @param params
+     * @return Cache key made of metadataPrefix, from and until
+     * @should create identical keys for identical harvests
+     */
+    static String getTotalHitsCacheKey(Map<String, String> params) {
+        return params.get("metadataPrefix") + '|' + params.get("from") + '|' + params.get("until");
+    }
+
+    /**
+     * Cached harvest list total.
+     * 
+     * @param totalHits
+     * @param expires Expiration time in milliseconds
+     */
+    private record CachedTotal(long totalHits, long expires) {
+    }
 }
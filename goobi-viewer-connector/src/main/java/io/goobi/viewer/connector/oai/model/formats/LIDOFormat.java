@@ -40,7 +40,6 @@ import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.Utils;
-import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.controller.XmlTools;
 import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.solr.SolrConstants;
@@ -129,21 +128,21 @@ public class LIDOFormat extends Format {
                 continue;
             }
             String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
-            String xml = null;
+            org.jdom2.Document xmlDoc = null;
             try {
-                xml = NetTools.getWebContentGET(url);
-            } catch (HTTPException | IOException e) {
-                logger.error("Could not retriee LIDO: {}", url);
+                xmlDoc = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            } catch (HTTPException | IOException | JDOMException e) {
+                logger.error("Could not retrieve LIDO: {} ({})", url, e.getMessage());
                 xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
                 continue;
             }
 
-            if (StringUtils.isEmpty(xml)) {
+            if (xmlDoc == null) {
                 xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
                 continue;
             }
 
-            Element eleRecord = generateLidoRecord(xml, doc, handler, setSpecFields, filterQuerySuffix);
+            Element eleRecord = generateLidoRecord(xmlDoc, doc, handler, setSpecFields, filterQuerySuffix);
             if (eleRecord != null) {
                 xmlListRecords.addContent(eleRecord);
             } else {
@@ -184,27 +183,43 @@ public class LIDOFormat extends Format {
         }
 
         try {
-            org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
-            Element xmlRoot = xmlDoc.getRootElement();
-            Element newLido = new Element(Metadata.LIDO.getMetadataPrefix(), LIDO_NS);
-            newLido.addNamespaceDeclaration(XSI_NS);
-            newLido.setAttribute(
-                    new Attribute("schemaLocation", "http://www.lido-schema.org http://www.lido-schema.org/schema/v1.0/lido-v1.0.xsd", XSI_NS));
-            newLido.addContent(xmlRoot.cloneContent());
-
-            Element eleRecord = new Element("record", OAI_NS);
-            Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
-            eleRecord.addContent(header);
-            Element metadata = new Element("metadata", OAI_NS);
-            metadata.addContent(newLido);
-            eleRecord.addContent(metadata);
-            return eleRecord;
+            return generateLidoRecord(XmlTools.getDocumentFromString(xml, null), doc, handler, setSpecFields, filterQuerySuffix);
         } catch (IOException | JDOMException e) {
             logger.error("{}:\n{}", e.getMessage(), xml);
             return null;
         }
     }
 
+    /**
+     * Wraps the content of the given LIDO document in an OAI record. The content is moved rather than copied, so the given document is empty
+     * afterwards.
+     * 
+     * @param xmlDoc
+     * @param doc
+     * @param handler
+     * @param setSpecFields
+     * @param filterQuerySuffix
+     * @return {@link Element}
+     * @throws SolrServerException
+     */
+    static Element generateLidoRecord(org.jdom2.Document xmlDoc, SolrDocument doc, RequestHandler handler, List<String> setSpecFields,
+            String filterQuerySuffix) throws SolrServerException {
+        Element xmlRoot = xmlDoc.getRootElement();
+        Element newLido = new Element(Metadata.LIDO.getMetadataPrefix(), LIDO_NS);
+        newLido.addNamespaceDeclaration(XSI_NS);
+        newLido.setAttribute(
+                new Attribute("schemaLocation", "http://www.lido-schema.org http://www.lido-schema.org/schema/v1.0/lido-v1.0.xsd", XSI_NS));
+        newLido.addContent(xmlRoot.removeContent());
+
+        Element eleRecord = new Element("record", OAI_NS);
+        Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
+        eleRecord.addContent(header);
+        Element metadata = new Element("metadata", OAI_NS);
+        metadata.addContent(newLido);
+        eleRecord.addContent(metadata);
+        return eleRecord;
+    }
+
     /** {@inheritDoc} */
     @Override
     public long getTotalHits(Map<String, String> params, String versionDiscriminatorField, String filterQuerySuffix)
@@ -235,11 +235,13 @@ public class MARCXMLFormat extends METSFormat {
             factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
             factory.setURIResolver(createXsltUriResolver(xsltAllowedRoot));
 
+            long start = System.nanoTime();
             Transformer transformer = factory.newTransformer(xsltSource);
 
             JDOMSource source = new JDOMSource(marcDoc);
             JDOMResult result = new JDOMResult();
             transformer.transform(source, result);
+            DataManager.getInstance().getMetrics().recordXslt(FILENAME_XSLT, System.nanoTime() - start);
             Document docTrans = result.getDocument();
             Element root = docTrans.getRootElement();
 
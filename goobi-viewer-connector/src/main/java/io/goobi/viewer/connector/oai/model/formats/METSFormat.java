@@ -40,7 +40,6 @@ import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.connector.utils.XmlConstants;
-import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.controller.XmlTools;
 import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.solr.SolrConstants;
@@ -88,6 +87,7 @@ public class METSFormat extends Format {
         }
         totalRawHits = qr.getResults().getNumFound();
         totalVirtualHits = totalRawHits;
+        prefetchLatestVolumeTimestamps(qr.getResults(), handler, filterQuerySuffix);
         for (SolrDocument doc : qr.getResults()) {
             Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
             xmlListIdentifiers.addContent(header);
@@ -165,6 +165,7 @@ public class METSFormat extends Format {
         logger.trace("generateMetsRecords");
 
         Element xmlListRecords = new Element(recordType, OAI_NS);
+        prefetchLatestVolumeTimestamps(records, handler, filterQuerySuffix);
         for (SolrDocument doc : records) {
             String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
             if (pi == null) {
@@ -175,22 +176,22 @@ public class METSFormat extends Format {
                 continue;
             }
             String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
-            String xml = null;
+            org.jdom2.Document metsFile = null;
             try {
-                xml = NetTools.getWebContentGET(url);
-            } catch (HTTPException | IOException e) {
-                logger.error("Could not retrieve METS: {}", url);
+                metsFile = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            } catch (HTTPException | IOException | JDOMException e) {
+                logger.error("Could not retrieve METS: {} ({})", url, e.getMessage());
                 xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
                 continue;
             }
 
-            if (StringUtils.isEmpty(xml)) {
+            if (metsFile == null) {
                 logger.error("METS document is empty: {}", url);
                 xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
                 continue;
             }
 
-            Element eleRecord = generateMetsRecord(xml, doc, handler, setSpecFields, filterQuerySuffix);
+            Element eleRecord = generateMetsRecord(metsFile, doc, handler, setSpecFields, filterQuerySuffix);
             if (eleRecord != null) {
                 xmlListRecords.addContent(eleRecord);
             } else {
@@ -231,29 +232,7 @@ public class METSFormat extends Format {
         }
 
         try {
-            org.jdom2.Document metsFile = XmlTools.getDocumentFromString(xml, null);
-            Element metsRoot = metsFile.getRootElement();
-            Element newMetsRoot = new Element(Metadata.METS.getMetadataPrefix(), METS_NS);
-            newMetsRoot.addNamespaceDeclaration(XSI_NS);
-            newMetsRoot.addNamespaceDeclaration(MODS_NS);
-            newMetsRoot.addNamespaceDeclaration(DV_NS);
-            newMetsRoot.addNamespaceDeclaration(XLINK_NS);
-            newMetsRoot.setAttribute("schemaLocation",
-                    "http://www.loc.gov/mods/v3 http://www.loc.gov/standards/mods/v3/mods-3-3.xsd http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version17/mets.v1-7.xsd",
-                    XSI_NS);
-            if (metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID) != null) {
-                newMetsRoot.setAttribute(XmlConstants.ATT_NAME_OBJID, metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID));
-            }
-            newMetsRoot.addContent(metsRoot.cloneContent());
-
-            Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-            Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
-            eleRecord.addContent(header);
-            Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
-            metadata.addContent(newMetsRoot);
-            eleRecord.addContent(metadata);
-
-            return eleRecord;
+            return generateMetsRecord(XmlTools.getDocumentFromString(xml, null), doc, handler, setSpecFields, filterQuerySuffix);
         } catch (IOException | JDOMException e) {
             logger.error("{}", e.getMessage());
             logger.trace(xml);
@@ -261,6 +240,44 @@ public class METSFormat extends Format {
         }
     }
 
+    /**
+     * Wraps the content of the given METS document in an OAI record. The content is moved rather than copied, so the given document is empty
+     * afterwards.
+     * 
+     * @param metsFile
+     * @param doc
+     * @param handler
+     * @param setSpecFields
+     * @param filterQuerySuffix
+     * @return {@link Element}
+     * @throws SolrServerException
+     */
+    static Element generateMetsRecord(org.jdom2.Document metsFile, SolrDocument doc, RequestHandler handler, List<String> setSpecFields,
+            String filterQuerySuffix) throws SolrServerException {
+        Element metsRoot = metsFile.getRootElement();
+        Element newMetsRoot = new Element(Metadata.METS.getMetadataPrefix(), METS_NS);
+        newMetsRoot.addNamespaceDeclaration(XSI_NS);
+        newMetsRoot.addNamespaceDeclaration(MODS_NS);
+        newMetsRoot.addNamespaceDeclaration(DV_NS);
+        newMetsRoot.addNamespaceDeclaration(XLINK_NS);
+        newMetsRoot.setAttribute("schemaLocation",
+                "http://www.loc.gov/mods/v3 http://www.loc.gov/standards/mods/v3/mods-3-3.xsd http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version17/mets.v1-7.xsd",
+                XSI_NS);
+        if (metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID) != null) {
+            newMetsRoot.setAttribute(XmlConstants.ATT_NAME_OBJID, metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID));
+        }
+        newMetsRoot.addContent(metsRoot.removeContent());
+
+        Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
+        Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
+        eleRecord.addContent(header);
+        Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
+        metadata.addContent(newMetsRoot);
+        eleRecord.addContent(metadata);
+
+        return eleRecord;
+    }
+
     /* (non-Javadoc)
      * @see io.goobi.viewer.connector.oai.model.formats.AbstractFormat#getTotalHits(java.util.Map, java.lang.String, java.lang.String)
      */
@@ -22,7 +22,6 @@ import static io.goobi.viewer.api.rest.v1.ApiUrls.RECORDS_FILES_PLAINTEXT;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -51,7 +50,6 @@ import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter.MetadataPa
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.controller.FileTools;
-import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.controller.StringConstants;
 import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.messages.ViewerResourceBundle;
@@ -69,8 +67,6 @@ public class OAIDCFormat extends Format {
             "No topstruct found for IDDOC:{} - is this a page document? Please check the base query.";
     private static final String ELE_NAME_SOURCE = "source";
 
-    protected static Map<String, String> anchorTitles = new HashMap<>();
-
     private List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.OAI_DC.getMetadataPrefix());
 
@@ -164,6 +160,7 @@ public class OAIDCFormat extends Format {
             String filterQuerySuffix) throws SolrServerException, IOException {
         Namespace nsOaiDoc = Namespace.getNamespace(Metadata.OAI_DC.getMetadataNamespacePrefix(), Metadata.OAI_DC.getMetadataNamespaceUri());
         Element xmlListRecords = new Element(recordType, OAI_NS);
+        prefetchLatestVolumeTimestamps(records, handler, filterQuerySuffix);
 
         int virtualHitCount = 0;
         if (StringUtils.isNotEmpty(versionDiscriminatorField)) {
@@ -348,7 +345,7 @@ public class OAIDCFormat extends Format {
                     String url = DataManager.getInstance().getConfiguration().getRestApiUrl() + "records/"
                             + (String) doc.getFieldValue(SolrConstants.PI) + "/toc";
                     try {
-                        String val = NetTools.getWebContentGET(url);
+                        String val = DataManager.getInstance().getSourceDocumentProvider().getContent(url);
                         if (StringUtils.isNotEmpty(val)) {
                             finishedValues.add(val);
                         }
@@ -424,14 +421,9 @@ public class OAIDCFormat extends Format {
                     String val = md.getMasterValue();
                     if ("title".equals(md.getLabel()) && isWork && doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
                         // If this is a volume, add anchor title in front
-                        String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-                        String anchorTitle = anchorTitles.get(iddocParent);
-                        if (anchorTitle == null) {
-                            anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
-                            if (anchorTitle != null) {
-                                val = anchorTitle + "; " + val;
-                                anchorTitles.put(iddocParent, anchorTitle);
-                            }
+                        String anchorTitle = getAnchorTitle((String) doc.getFieldValue(SolrConstants.IDDOC_PARENT), filterQuerySuffix);
+                        if (anchorTitle != null) {
+                            val = anchorTitle + "; " + val;
                         }
                     }
                     finishedValues.add(val);
@@ -464,11 +456,7 @@ public class OAIDCFormat extends Format {
      */
     protected String getAnchorTitle(String iddocParent, String filterQuerySuffix) {
         try {
-            logger.trace("anchor title query: {}:{}", SolrConstants.IDDOC, iddocParent);
-            SolrDocumentList hits = solr.search("+" + SolrConstants.IDDOC + ":" + iddocParent, filterQuerySuffix);
-            if (hits != null && !hits.isEmpty()) {
-                return (String) hits.get(0).getFirstValue(SolrConstants.TITLE);
-            }
+            return solr.getAnchorTitles(Collections.singletonList(iddocParent), filterQuerySuffix).get(iddocParent);
         } catch (IOException | SolrServerException e) {
             logger.error(e.getMessage(), e);
         }
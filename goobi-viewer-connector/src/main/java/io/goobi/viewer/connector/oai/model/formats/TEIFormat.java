@@ -16,11 +16,17 @@
 package io.goobi.viewer.connector.oai.model.formats;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -34,12 +40,12 @@ import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.metrics.RequestTrace;
+import io.goobi.viewer.connector.oai.HarvestContext;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.connector.utils.Utils;
-import io.goobi.viewer.controller.NetTools;
-import io.goobi.viewer.controller.XmlTools;
 import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.model.translations.language.Language;
 import io.goobi.viewer.solr.SolrConstants;
@@ -54,6 +60,9 @@ public class TEIFormat extends Format {
     static final Namespace CMDI = Namespace.getNamespace("cmd", "http://www.clarin.eu/cmd/1");
     static final Namespace COMPONENTS = Namespace.getNamespace("cmdp", "http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826");
 
+    /** Retrieves TEI/CMDI documents; concurrency is limited per response */
+    private static final ExecutorService FETCH_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     /** {@inheritDoc} */
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
@@ -170,13 +179,19 @@ public class TEIFormat extends Format {
                 DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
         int virtualHitCount = 0;
         if (StringUtils.isNotEmpty(versionDiscriminatorField)) {
+            // Retrieve all versions of all records on this page concurrently
+            List<SolrDocument> fetchDocs = new ArrayList<>();
+            List<String> fetchVersions = new ArrayList<>();
+            List<Future<org.jdom2.Document>> fetches = new ArrayList<>();
+            Semaphore fetchPermits = new Semaphore(Math.max(1, DataManager.getInstance().getConfiguration().getSourceDocumentParallelFetches()));
+            long untilTimestamp = handler.getHarvestContext().getUntilTimestamp();
             List<String> versions = Collections.singletonList(requestedVersion);
             for (SolrDocument doc : records) {
                 if (requestedVersion == null) {
                     versions = SolrSearchTools.getMetadataValues(doc, versionDiscriminatorField);
                 }
+                long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, untilTimestamp);
                 for (String version : versions) {
-                    virtualHitCount++; // Count hit even if the XML file is ultimately unavailable
                     String url = new StringBuilder(DataManager.getInstance().getConfiguration().getRestApiUrl())
                             .append("records/")
                             .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
@@ -186,53 +201,68 @@ public class TEIFormat extends Format {
                             .append(version)
                             .toString();
                     logger.trace("api url: {}", url);
-                    String xml = NetTools.getWebContentGET(url);
-                    if (StringUtils.isEmpty(xml)) {
+                    fetchDocs.add(doc);
+                    fetchVersions.add(version);
+                    fetches.add(FETCH_EXECUTOR.submit(RequestTrace.wrap(() -> {
+                        fetchPermits.acquire();
+                        try {
+                            return DataManager.getInstance().getSourceDocumentProvider().getDocument(url, dateUpdated);
+                        } finally {
+                            fetchPermits.release();
+                        }
+                    })));
+                }
+            }
+
+            for (int i = 0; i < fetches.size(); ++i) {
+                SolrDocument doc = fetchDocs.get(i);
+                String version = fetchVersions.get(i);
+                virtualHitCount++; // Count hit even if the XML file is ultimately unavailable
+                org.jdom2.Document xmlDoc = getFetchResult(fetches, i);
+                if (xmlDoc == null) {
+                    xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
+                    continue;
+                }
+
+                Element teiRoot = xmlDoc.getRootElement();
+                Element newDoc;
+                switch (handler.getMetadataPrefix()) {
+                    case TEI:
+                        newDoc = new Element("tei", namespace);
+                        newDoc.addNamespaceDeclaration(XSI_NS);
+                        newDoc.setAttribute(new Attribute("schemaLocation", handler.getMetadataPrefix().getSchema(), XSI_NS));
+                        break;
+                    case CMDI:
+                        newDoc = new Element("CMD", CMDI);
+                        newDoc.addNamespaceDeclaration(XSI_NS);
+                        newDoc.addNamespaceDeclaration(COMPONENTS);
+                        newDoc.setAttribute("CMDVersion", "1.2");
+                        newDoc.setAttribute(new Attribute("schemaLocation",
+                                "http://www.clarin.eu/cmd/1 https://infra.clarin.eu/CMDI/1.x/xsd/cmd-envelop.xsd http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826 https://catalog.clarin.eu/ds/ComponentRegistry/rest/registry/1.x/profiles/clarin.eu:cr1:p_1380106710826/xsd",
+                                XSI_NS));
+                        break;
+                    default:
                         xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
                         continue;
-                    }
-
-                    org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
-                    Element teiRoot = xmlDoc.getRootElement();
-                    Element newDoc;
-                    switch (handler.getMetadataPrefix()) {
-                        case TEI:
-                            newDoc = new Element("tei", namespace);
-                            newDoc.addNamespaceDeclaration(XSI_NS);
-                            newDoc.setAttribute(new Attribute("schemaLocation", handler.getMetadataPrefix().getSchema(), XSI_NS));
-                            break;
-                        case CMDI:
-                            newDoc = new Element("CMD", CMDI);
-                            newDoc.addNamespaceDeclaration(XSI_NS);
-                            newDoc.addNamespaceDeclaration(COMPONENTS);
-                            newDoc.setAttribute("CMDVersion", "1.2");
-                            newDoc.setAttribute(new Attribute("schemaLocation",
-                                    "http://www.clarin.eu/cmd/1 https://infra.clarin.eu/CMDI/1.x/xsd/cmd-envelop.xsd http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826 https://catalog.clarin.eu/ds/ComponentRegistry/rest/registry/1.x/profiles/clarin.eu:cr1:p_1380106710826/xsd",
-                                    XSI_NS));
-                            break;
-                        default:
-                            xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
-                            continue;
-                    }
+                }
 
-                    newDoc.addContent(teiRoot.cloneContent());
+                newDoc.addContent(teiRoot.removeContent());
 
-                    String iso3code = version;
-                    // Make sure to add the ISO-3 language code
-                    if (iso3code.length() == 2) {
-                        Language lang = DataManager.getInstance().getLanguageHelper().getLanguage(version);
-                        if (lang != null) {
-                            iso3code = lang.getIsoCode();
-                        }
+                String iso3code = version;
+                // Make sure to add the ISO-3 language code
+                if (iso3code.length() == 2) {
+                    Language lang = DataManager.getInstance().getLanguageHelper().getLanguage(version);
+                    if (lang != null) {
+                        iso3code = lang.getIsoCode();
                     }
-                    Element rec = new Element("record", OAI_NS);
-                    Element header = getHeader(doc, null, handler, iso3code, setSpecFields, filterQuerySuffix);
-                    rec.addContent(header);
-                    Element metadata = new Element("metadata", OAI_NS);
-                    metadata.addContent(newDoc);
-                    rec.addContent(metadata);
-                    xmlListRecords.addContent(rec);
                 }
+                Element rec = new Element("record", OAI_NS);
+                Element header = getHeader(doc, null, handler, iso3code, setSpecFields, filterQuerySuffix);
+                rec.addContent(header);
+                Element metadata = new Element("metadata", OAI_NS);
+                metadata.addContent(newDoc);
+                rec.addContent(metadata);
+                xmlListRecords.addContent(rec);
             }
         } else {
             logger.error("TEI/CMDI record output without languages is currently not supported.");
@@ -253,6 +283,43 @@ public class TEIFormat extends Format {
         return xmlListRecords;
     }
 
+    /**
+     * Waits for the document retrieval with the given index. If it failed, all remaining retrievals are cancelled and the exception is
+     * rethrown.
+     * 
+     * @param fetches
+     * @param index
+     * @return Retrieved document; null if empty
+     * @throws IOException
+     * @throws JDOMException
+     * @throws HTTPException
+     */
+    private static org.jdom2.Document getFetchResult(List<Future<org.jdom2.Document>> fetches, int index)
+            throws IOException, JDOMException, HTTPException {
+        try {
+            return fetches.get(index).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetches.forEach(f -> f.cancel(true));
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            fetches.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof HTTPException he) {
+                throw he;
+            }
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (e.getCause() instanceof JDOMException je) {
+                throw je;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
     /**
      * Modified header generation where identifiers also contain the language code.
      * 
@@ -267,21 +334,24 @@ public class TEIFormat extends Format {
     protected static Element getHeader(SolrDocument doc, SolrDocument topstructDoc, RequestHandler handler, String requestedVersion,
             List<String> setSpecFields, String filterQuerySuffix)
             throws SolrServerException, IOException {
+        HarvestContext context = handler.getHarvestContext();
         Element header = new Element("header", OAI_NS);
         // identifier
         Element identifier = new Element("identifier", OAI_NS);
-        identifier.setText(DataManager.getInstance().getConfiguration().getOaiIdentifier().get("repositoryIdentifier")
-                + (String) doc.getFieldValue(SolrConstants.PI) + '_' + requestedVersion);
+        identifier.setText(context.getRepositoryIdentifier() + (String) doc.getFieldValue(SolrConstants.PI) + '_' + requestedVersion);
         header.addContent(identifier);
         // datestamp
         Element datestamp = new Element("datestamp", OAI_NS);
-        long untilTimestamp = RequestHandler.getUntilTimestamp(handler.getUntil());
+        long untilTimestamp = context.getUntilTimestamp();
         long timestampModified = SolrSearchTools.getLatestValidDateUpdated(topstructDoc != null ? topstructDoc : doc, untilTimestamp);
-        datestamp.setText(Utils.parseDate(timestampModified));
-        if (StringUtils.isEmpty(datestamp.getText()) && doc.getFieldValue(SolrConstants.ISANCHOR) != null) {
-            datestamp.setText(
-                    Utils.parseDate(DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamp(doc, untilTimestamp, filterQuerySuffix)));
+        if (timestampModified == 0 && doc.getFieldValue(SolrConstants.ISANCHOR) != null) {
+            // Anchor without own datestamp: use the latest volume
+            long latestVolumeTimestamp = DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamp(doc, untilTimestamp, filterQuerySuffix);
+            if (latestVolumeTimestamp > 0) {
+                timestampModified = latestVolumeTimestamp;
+            }
         }
+        datestamp.setText(Utils.parseDate(timestampModified));
         header.addContent(datestamp);
         // setSpec
         if (setSpecFields != null && !setSpecFields.isEmpty()) {
@@ -0,0 +1,188 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.servlets;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.SnapshotBuilder;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.connector.utils.XmlOutput;
+
+/**
+ * Lists the dump files written by {@link SnapshotBuilder} as a ResourceSync resource list (<code>/dumps</code>) and serves the files
+ * themselves (<code>/dumps/{metadataPrefix}/{file}</code>).
+ */
+public class DumpServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -2317816489414652364L;
+
+    private static final Logger logger = LogManager.getLogger(DumpServlet.class);
+
+    private static final Namespace SITEMAP_NS = Namespace.getNamespace("http://www.sitemaps.org/schemas/sitemap/0.9");
+    private static final Namespace RS_NS = Namespace.getNamespace("rs", "http://www.openarchives.org/rs/terms/");
+    private static final String CONTENT_TYPE_GZIP = "application/gzip";
+
+    /** {@inheritDoc} */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        if (!config.isDumpsEnabled()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || "/".equals(pathInfo)) {
+            String baseUrl = request.getRequestURL().toString();
+            if (!baseUrl.endsWith("/")) {
+                baseUrl += '/';
+            }
+            response.setContentType("text/xml;charset=UTF-8");
+            XmlOutput.createOutputter().output(createResourceList(baseUrl, config), response.getOutputStream());
+            return;
+        }
+
+        Path file = resolveFile(pathInfo, config);
+        if (file == null || !Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Size and content are taken from the same handle, so that a dump replaced in the meantime cannot contradict the Content-Length
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (channel) {
+            long size = channel.size();
+            response.setContentType(CONTENT_TYPE_GZIP);
+            response.setContentLengthLong(size);
+            response.setDateHeader("Last-Modified", Files.getLastModifiedTime(file).toMillis());
+            transfer(channel, size, Channels.newChannel(response.getOutputStream()));
+        } catch (IOException e) {
+            logger.debug("Download of {} aborted: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the first <code>size</code> bytes of the given channel to the target.
+     *
+     * @param channel Source
+     * @param size Number of bytes to write
+     * @param target
+     * @throws IOException
+     * @should transfer given number of bytes
+     */
+    static void transfer(FileChannel channel, long size, WritableByteChannel target) throws IOException {
+        long position = 0;
+        while (position < size) {
+            long transferred = channel.transferTo(position, size - position, target);
+            if (transferred <= 0) {
+                throw new EOFException("File ended after " + position + " of " + size + " bytes");
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * Maps the given request path to a dump file.
+     *
+     * @param pathInfo Path below the servlet mapping
+     * @param config
+     * @return {@link Path} of the requested file; null if the path does not denote a dump file
+     * @should resolve valid path correctly
+     * @should return null for invalid paths
+     */
+    static Path resolveFile(String pathInfo, Configuration config) {
+        String[] parts = pathInfo.split("/");
+        if (parts.length != 3 || !parts[0].isEmpty() || !SnapshotBuilder.FILE_NAME_PATTERN.matcher(parts[2]).matches()) {
+            return null;
+        }
+        Metadata md = Metadata.getByMetadataPrefix(parts[1]);
+        if (md == null) {
+            return null;
+        }
+
+        return SnapshotBuilder.getFolder(md, config).resolve(parts[2]);
+    }
+
+    /**
+     * Creates a ResourceSync resource list of all dump files.
+     *
+     * @param baseUrl URL of this servlet, ending with a slash
+     * @param config
+     * @return {@link Document}
+     * @throws IOException
+     */
+    static Document createResourceList(String baseUrl, Configuration config) throws IOException {
+        Element urlset = new Element("urlset", SITEMAP_NS);
+        urlset.addNamespaceDeclaration(RS_NS);
+        urlset.addContent(new Element("md", RS_NS).setAttribute("capability", "resourcelist")
+                .setAttribute("at", Utils.convertDate(Instant.now().toEpochMilli())));
+        for (Metadata md : Metadata.values()) {
+            Path folder = SnapshotBuilder.getFolder(md, config);
+            if (!Files.isDirectory(folder)) {
+                continue;
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+                for (Path file : stream) {
+                    if (SnapshotBuilder.FILE_NAME_PATTERN.matcher(file.getFileName().toString()).matches()) {
+                        files.add(file);
+                    }
+                }
+            }
+            files.sort(null);
+            for (Path file : files) {
+                Element url = new Element("url", SITEMAP_NS);
+                url.addContent(new Element("loc", SITEMAP_NS).setText(baseUrl + md.getMetadataPrefix() + '/' + file.getFileName()));
+                url.addContent(new Element("lastmod", SITEMAP_NS).setText(Utils.convertDate(Files.getLastModifiedTime(file).toMillis())));
+                url.addContent(new Element("md", RS_NS).setAttribute("type", CONTENT_TYPE_GZIP)
+                        .setAttribute("length", String.valueOf(Files.size(file))));
+                urlset.addContent(url);
+            }
+        }
+
+        return new Document(urlset);
+    }
+}
@@ -19,9 +19,9 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 
 import jakarta.servlet.ServletException;
-import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -36,12 +36,20 @@ import org.jdom2.ProcessingInstruction;
 import org.jdom2.output.XMLOutputter;
 
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.metrics.MetricsFilter;
+import io.goobi.viewer.connector.metrics.RequestTrace;
+import io.goobi.viewer.connector.oai.AdmissionControl;
+import io.goobi.viewer.connector.oai.AdmissionControl.CostClass;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
+import io.goobi.viewer.connector.oai.model.formats.EpicurFormat;
 import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.connector.utils.XmlOutput;
 
 /**
  * <p>
@@ -57,9 +65,79 @@ public class OaiServlet extends HttpServlet {
 
     private static final String PARAM_RESUMPTION_TOKEN = "resumptionToken";
 
+    /** Release callback for requests that have not been subject to admission control */
+    private static final Runnable NO_ADMISSION = () -> {
+        // Nothing to release
+    };
+
     /** {@inheritDoc} */
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Verb verb = Verb.getByTitle(request.getParameter("verb"));
+        if (verb == null) {
+            processRequest(request, response);
+            return;
+        }
+        SolrSearchIndex searchIndex = DataManager.getInstance().getSearchIndex();
+        if (!searchIndex.isAvailable()) {
+            // Fail fast while Solr is unavailable instead of letting harvesters wait for timeouts
+            response.setHeader("Retry-After", String.valueOf(searchIndex.getRetryAfterSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        Runnable release = admit(request, response);
+        if (release == null) {
+            return;
+        }
+        // The dispatcher releases the admission on every path, including requests it rejects without processing them
+        if (!DataManager.getInstance().getAsyncDispatcher().dispatch(request, response, verb.getTitle(), this::processRequest, release)) {
+            try {
+                processRequest(request, response);
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Applies per-client admission control, if enabled.
+     *
+     * @param request
+     * @param response
+     * @return {@link Runnable} that releases the admission once the request has ended; null if the request has been rejected
+     * @throws IOException
+     */
+    private static Runnable admit(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AdmissionControl admission = DataManager.getInstance().getAdmissionControl();
+        if (!admission.isEnabled()) {
+            return NO_ADMISSION;
+        }
+
+        String clientIp = getAdmissionClient(request.getHeader("X-Forwarded-For"), request.getRemoteAddr(),
+                DataManager.getInstance().getConfiguration().getAdmissionTrustedProxies());
+        CostClass costClass = admission.getCostClass(clientIp, Metadata.getByMetadataPrefix(request.getParameter("metadataPrefix")),
+                request.getParameter(PARAM_RESUMPTION_TOKEN) != null);
+        long retryAfter = admission.tryAdmit(clientIp, costClass);
+        if (retryAfter > 0) {
+            logger.debug("Client {} exceeded its {} request limit, retry after {} s", clientIp, costClass, retryAfter);
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return null;
+        }
+
+        return () -> admission.release(clientIp, costClass);
+    }
+
+    /**
+     * Creates the OAI-PMH response for the given request.
+     *
+     * @param request
+     * @param response
+     * @throws ServletException
+     * @throws IOException
+     */
+    void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("text/xml;charset=UTF-8");
 
         String queryString = (request.getQueryString() != null ? "?" + request.getQueryString() : "");
@@ -84,6 +162,16 @@ public class OaiServlet extends HttpServlet {
         root.addContent(responseDate);
 
         RequestHandler handler = new RequestHandler(request);
+        // ListIdentifiers/ListRecords page with its verb and metadata format, for measuring the output size per record
+        Element listPage = null;
+        Verb listVerb = null;
+        String listMetadataPrefix = null;
+        if (handler.getVerb() != null) {
+            request.setAttribute(MetricsFilter.ATTR_VERB, handler.getVerb().getTitle());
+        }
+        if (handler.getMetadataPrefix() != null) {
+            request.setAttribute(MetricsFilter.ATTR_METADATA_PREFIX, handler.getMetadataPrefix().getMetadataPrefix());
+        }
 
         // handle request
         if (handler.getVerb() == null) {
@@ -128,7 +216,16 @@ public class OaiServlet extends HttpServlet {
             if (request.getParameter(PARAM_RESUMPTION_TOKEN) != null) {
                 String resumptionToken = request.getParameterValues(PARAM_RESUMPTION_TOKEN)[0];
                 requestType.setAttribute(PARAM_RESUMPTION_TOKEN, resumptionToken);
-                root.addContent(Format.handleToken(resumptionToken, filterQuerySuffix));
+                RequestHandler resumedHandler = new RequestHandler();
+                Element page = Format.handleToken(resumptionToken, filterQuerySuffix, resumedHandler);
+                root.addContent(page);
+                DataManager.getInstance().getHarvestPrefetcher().schedule(page, filterQuerySuffix);
+                if (resumedHandler.getMetadataPrefix() != null) {
+                    request.setAttribute(MetricsFilter.ATTR_METADATA_PREFIX, resumedHandler.getMetadataPrefix().getMetadataPrefix());
+                    listPage = page;
+                    listVerb = resumedHandler.getVerb();
+                    listMetadataPrefix = resumedHandler.getMetadataPrefix().getMetadataPrefix();
+                }
                 Format.removeExpiredTokens();
             } else {
                 switch (handler.getVerb()) {
@@ -156,17 +253,25 @@ public class OaiServlet extends HttpServlet {
                             root.addContent(new ErrorCode().getCannotDisseminateFormat());
                         } else {
                             try {
-                                int hitsPerToken =
-                                        DataManager.getInstance()
-                                                .getConfiguration()
-                                                .getHitsPerTokenForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
+                                int hitsPerToken = DataManager.getInstance()
+                                        .getPageSizer()
+                                        .getHitsPerToken(handler.getVerb(), handler.getMetadataPrefix().getMetadataPrefix());
                                 String versionDiscriminatorField = DataManager.getInstance()
                                         .getConfiguration()
                                         .getVersionDisriminatorFieldForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
                                 Format format = Format.getFormatByMetadataPrefix(handler.getMetadataPrefix());
                                 if (format != null) {
-                                    root.addContent(
-                                            format.createListIdentifiers(handler, 0, 0, hitsPerToken, versionDiscriminatorField, filterQuerySuffix));
+                                    long start = System.nanoTime();
+                                    Element page =
+                                            format.createListIdentifiers(handler, 0, 0, hitsPerToken, versionDiscriminatorField, filterQuerySuffix);
+                                    listVerb = handler.getVerb();
+                                    listMetadataPrefix = handler.getMetadataPrefix().getMetadataPrefix();
+                                    DataManager.getInstance()
+                                            .getPageSizer()
+                                            .recordRendering(listVerb, listMetadataPrefix, page, System.nanoTime() - start);
+                                    listPage = page;
+                                    root.addContent(page);
+                                    DataManager.getInstance().getHarvestPrefetcher().schedule(page, filterQuerySuffix);
                                 } else {
                                     root.addContent(new ErrorCode().getBadArgument());
                                 }
@@ -196,18 +301,26 @@ public class OaiServlet extends HttpServlet {
                                 logger.debug("No 'until' parameter, setting 'now' ({})", until);
                             }
                             try {
-                                int hitsPerToken =
-                                        DataManager.getInstance()
-                                                .getConfiguration()
-                                                .getHitsPerTokenForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
+                                int hitsPerToken = DataManager.getInstance()
+                                        .getPageSizer()
+                                        .getHitsPerToken(handler.getVerb(), handler.getMetadataPrefix().getMetadataPrefix());
                                 String versionDiscriminatorField = DataManager.getInstance()
                                         .getConfiguration()
                                         .getVersionDisriminatorFieldForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
                                 logger.trace(handler.getMetadataPrefix().getMetadataPrefix());
                                 Format format = Format.getFormatByMetadataPrefix(handler.getMetadataPrefix());
                                 if (format != null) {
-                                    root.addContent(
-                                            format.createListRecords(handler, 0, 0, hitsPerToken, versionDiscriminatorField, filterQuerySuffix));
+                                    long start = System.nanoTime();
+                                    Element page =
+                                            format.createListRecords(handler, 0, 0, hitsPerToken, versionDiscriminatorField, filterQuerySuffix);
+                                    listVerb = handler.getVerb();
+                                    listMetadataPrefix = handler.getMetadataPrefix().getMetadataPrefix();
+                                    DataManager.getInstance()
+                                            .getPageSizer()
+                                            .recordRendering(listVerb, listMetadataPrefix, page, System.nanoTime() - start);
+                                    listPage = page;
+                                    root.addContent(page);
+                                    DataManager.getInstance().getHarvestPrefetcher().schedule(page, filterQuerySuffix);
                                 } else {
                                     root.addContent(new ErrorCode().getBadArgument());
                                 }
@@ -261,18 +374,17 @@ public class OaiServlet extends HttpServlet {
             }
         }
         doc.setRootElement(root);
-        org.jdom2.output.Format format = org.jdom2.output.Format.getPrettyFormat();
-        format.setEncoding("utf-8");
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        // Epicur records must declare xsi themselves even though the OAI-PMH root already does
+        XMLOutputter xmlOut = Metadata.EPICUR.equals(handler.getMetadataPrefix()) ? XmlOutput.createOutputter(EpicurFormat::isEpicurElement)
+                : XmlOutput.createOutputter();
+        long outputStart = System.nanoTime();
         try {
-            if (handler.getMetadataPrefix() != null && handler.getMetadataPrefix().equals(Metadata.EPICUR)) {
-                String ueblerhack = xmlOut.outputString(doc);
-                ueblerhack = ueblerhack.replace("<epicur", "<epicur xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
-                response.setCharacterEncoding("utf-8");
-                ServletOutputStream out = response.getOutputStream();
-                out.print(ueblerhack);
-            } else {
-                xmlOut.output(doc, response.getOutputStream());
+            xmlOut.output(doc, response.getOutputStream());
+            RequestTrace.add(RequestTrace.PHASE_OUTPUT, System.nanoTime() - outputStart);
+            // The response size is counted by MetricsFilter
+            long bytes = MetricsFilter.getByteCount(response);
+            if (listPage != null && bytes >= 0) {
+                DataManager.getInstance().getPageSizer().recordOutput(listVerb, listMetadataPrefix, listPage, bytes);
             }
         } catch (IOException e) {
             // Client disconnects (harvester timeouts etc.) are normal network behavior.
@@ -344,6 +456,24 @@ public class OaiServlet extends HttpServlet {
         return forwardedFor;
     }
 
+    /**
+     * Identifies the client for admission control. The <code>X-Forwarded-For</code> header is only used if the request comes from a trusted
+     * proxy; otherwise any client could pose as a new client on every request.
+     *
+     * @param forwardedFor Value of the <code>X-Forwarded-For</code> header; may be null
+     * @param remoteAddr Remote address of the connection
+     * @param trustedProxies Addresses of trusted reverse proxies
+     * @return Client address
+     * @should use forwarded for from trusted proxy
+     * @should ignore forwarded for from other addresses
+     */
+    static String getAdmissionClient(String forwardedFor, String remoteAddr, List<String> trustedProxies) {
+        if (trustedProxies != null && trustedProxies.contains(remoteAddr)) {
+            return extractClientIp(forwardedFor, remoteAddr);
+        }
+        return remoteAddr;
+    }
+
     /**
      * <p>
      * checkDatestamps.
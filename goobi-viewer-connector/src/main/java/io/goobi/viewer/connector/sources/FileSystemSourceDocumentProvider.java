@@ -0,0 +1,130 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import io.goobi.viewer.exceptions.HTTPException;
+
+/**
+ * {@link SourceDocumentProvider} that reads documents from local folders (e.g. the viewer's data repositories or a mirror of them) instead of
+ * requesting them from the Goobi viewer. The configured base URL is removed from each requested URL and the remainder is resolved against each
+ * folder; documents without a file extension are expected to be XML files.
+ */
+public class FileSystemSourceDocumentProvider implements SourceDocumentProvider {
+
+    private final List<Path> folders;
+    private final List<String> baseUrls;
+
+    /**
+     * 
+     * @param folders Folders to look up documents in, in order of priority
+     * @param baseUrls Base URLs to remove from requested URLs
+     */
+    public FileSystemSourceDocumentProvider(List<Path> folders, List<String> baseUrls) {
+        this.folders = new ArrayList<>(folders.size());
+        for (Path folder : folders) {
+            this.folders.add(folder.toAbsolutePath().normalize());
+        }
+        this.baseUrls = new ArrayList<>(baseUrls.size());
+        for (String baseUrl : baseUrls) {
+            if (StringUtils.isNotEmpty(baseUrl)) {
+                this.baseUrls.add(baseUrl);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @should throw HTTPException if document not found
+     */
+    @Override
+    public String getContent(String url) throws IOException, HTTPException {
+        Path path = resolve(url);
+        if (path == null) {
+            throw new HTTPException(404, url);
+        }
+
+        return Files.readString(path, StandardCharsets.UTF_8);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputStream getStream(String url) throws IOException, HTTPException {
+        Path path = resolve(url);
+        if (path == null) {
+            throw new HTTPException(404, url);
+        }
+
+        return Files.newInputStream(path);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getStatus(String url) throws IOException {
+        return resolve(url) != null ? 200 : 404;
+    }
+
+    /**
+     * 
+     * @param url
+     * @return Existing file for the given URL; null if none found
+     * @should resolve document resolver url correctly
+     * @should return null for unknown base url
+     * @should not resolve paths outside of folders
+     */
+    Path resolve(String url) {
+        if (url == null) {
+            return null;
+        }
+        String relativePath = null;
+        for (String baseUrl : baseUrls) {
+            if (url.startsWith(baseUrl)) {
+                relativePath = url.substring(baseUrl.length());
+                break;
+            }
+        }
+        if (StringUtils.isBlank(relativePath)) {
+            return null;
+        }
+        if (StringUtils.isEmpty(FilenameUtils.getExtension(relativePath))) {
+            relativePath += ".xml";
+        }
+        for (Path folder : folders) {
+            Path path = folder.resolve(relativePath).normalize();
+            if (path.startsWith(folder) && Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Nothing to close
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.utils.SolrSearchIndex;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.exceptions.HTTPException;
+
+/**
+ * {@link SourceDocumentProvider} that retrieves documents via a single shared HTTP/2 client. Connections are kept alive and reused across
+ * requests; the number of concurrent requests is limited. For {@link #getStream(String)}, the limit only covers the request until the
+ * response headers have been received; reading the returned stream is not counted against it.
+ */
+public class HttpSourceDocumentProvider implements SourceDocumentProvider {
+
+    private static final Logger logger = LogManager.getLogger(HttpSourceDocumentProvider.class);
+
+    /** Delay before the first retry; doubled for each further attempt and jittered, so that parallel fetches do not retry in lockstep. */
+    private static final long RETRY_BACKOFF_MS = 250;
+
+    private final HttpClient client;
+    private final Semaphore permits;
+    private final Duration timeout;
+    private final int retries;
+    /** Cache for documents requested via {@link #getDocument(String, long)}; null if disabled */
+    private final SourceDocumentCache cache;
+
+    /**
+     * 
+     * @param maxConnections Maximum number of concurrent requests
+     * @param timeout Connect and request timeout in milliseconds
+     * @param retries Number of retries after a connection error or a 5xx response
+     */
+    public HttpSourceDocumentProvider(int maxConnections, long timeout, int retries) {
+        this(maxConnections, timeout, retries, 0);
+    }
+
+    /**
+     * 
+     * @param maxConnections Maximum number of concurrent requests (up to the receipt of the response headers)
+     * @param timeout Connect and request timeout in milliseconds
+     * @param retries Number of retries after a connection error or a 5xx response
+     * @param cacheBytes Maximum size of the document cache in bytes; 0 disables the cache
+     */
+    public HttpSourceDocumentProvider(int maxConnections, long timeout, int retries, long cacheBytes) {
+        this.cache = cacheBytes > 0 ? new SourceDocumentCache(cacheBytes) : null;
+        this.timeout = Duration.ofMillis(timeout);
+        this.retries = Math.max(0, retries);
+        this.permits = new Semaphore(Math.max(1, maxConnections));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(this.timeout)
+                .build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getContent(String url) throws IOException, HTTPException {
+        HttpResponse<String> response = send(url, BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new HTTPException(response.statusCode(), url);
+        }
+
+        return response.body();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputStream getStream(String url) throws IOException, HTTPException {
+        HttpResponse<InputStream> response = send(url, BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new HTTPException(response.statusCode(), url);
+        }
+
+        return response.body();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * If a copy retrieved after <code>lastModified</code> is cached, it is revalidated with an <code>If-Modified-Since</code> request and
+     * reused if the server responds with 304. Copies retrieved before the last modification are never reused.
+     */
+    @Override
+    public Document getDocument(String url, long lastModified) throws IOException, HTTPException, JDOMException {
+        if (cache == null) {
+            return getDocument(url);
+        }
+
+        long now = System.currentTimeMillis();
+        SourceDocumentCache.Entry cached = cache.get(url);
+        String ifModifiedSince = null;
+        if (cached != null && lastModified > 0 && cached.retrieved() >= lastModified) {
+            ifModifiedSince = DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(lastModified).atOffset(ZoneOffset.UTC));
+        }
+        HttpResponse<byte[]> response = send(url, BodyHandlers.ofByteArray(), ifModifiedSince);
+        byte[] body;
+        if (response.statusCode() == 304 && ifModifiedSince != null) {
+            DataManager.getInstance().getMetrics().recordCacheGets("sourceDocuments", 1, 0);
+            body = cached.body();
+        } else if (response.statusCode() == 200) {
+            DataManager.getInstance().getMetrics().recordCacheGets("sourceDocuments", 0, 1);
+            body = response.body();
+            cache.put(url, body, now);
+        } else {
+            cache.remove(url);
+            throw new HTTPException(response.statusCode(), url);
+        }
+        if (body.length == 0) {
+            return null;
+        }
+
+        return Utils.getDocumentFromStream(new ByteArrayInputStream(body));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getStatus(String url) throws IOException {
+        return send(url, BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Sends a GET request to the given URL, retrying with jittered exponential backoff on connection errors and server errors.
+     * 
+     * @param url
+     * @param bodyHandler
+     * @return {@link HttpResponse}
+     * @throws IOException
+     */
+    <T> HttpResponse<T> send(String url, BodyHandler<T> bodyHandler) throws IOException {
+        return send(url, bodyHandler, null);
+    }
+
+    /**
+     * Sends a GET request to the given URL, retrying with jittered exponential backoff on connection errors and server errors. The concurrency limit
+     * is released once the response has been received, i.e. for streaming body handlers before the body has been read.
+     * 
+     * @param url
+     * @param bodyHandler
+     * @param ifModifiedSince Value of the <code>If-Modified-Since</code> header; no header is sent if null
+     * @return {@link HttpResponse}
+     * @throws IOException
+     */
+    <T> HttpResponse<T> send(String url, BodyHandler<T> bodyHandler, String ifModifiedSince) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET();
+        if (ifModifiedSince != null) {
+            builder.header("If-Modified-Since", ifModifiedSince);
+        }
+        HttpRequest request = builder.build();
+        IOException lastException = null;
+        for (int attempt = 0; attempt <= retries; ++attempt) {
+            try {
+                if (attempt > 0) {
+                    Thread.sleep(SolrSearchIndex.getBackoffMillis(attempt, RETRY_BACKOFF_MS, Long.MAX_VALUE));
+                }
+                permits.acquire();
+                long start = System.nanoTime();
+                int status = 0;
+                try {
+                    HttpResponse<T> response = client.send(request, bodyHandler);
+                    status = response.statusCode();
+                    if (response.statusCode() < 500 || attempt == retries) {
+                        return response;
+                    }
+                    logger.debug("{} returned {}, retrying...", url, response.statusCode());
+                    // Streamed bodies hold the connection until closed
+                    if (response.body() instanceof InputStream body) {
+                        body.close();
+                    }
+                } finally {
+                    permits.release();
+                    DataManager.getInstance().getMetrics().recordFetch(status, System.nanoTime() - start);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(e.getMessage());
+            } catch (IOException e) {
+                logger.debug("Could not retrieve {}: {}", url, e.getMessage());
+                lastException = e;
+            }
+        }
+
+        throw lastException;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
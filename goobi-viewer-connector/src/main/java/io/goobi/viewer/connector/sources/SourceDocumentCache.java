@@ -0,0 +1,103 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, least-recently-used in-memory cache of document bodies. Each entry remembers when it was retrieved, so that it can be
+ * revalidated with a conditional request.
+ */
+class SourceDocumentCache {
+
+    /**
+     * Cached document body.
+     * 
+     * @param body Document content
+     * @param retrieved Time of retrieval in milliseconds
+     */
+    record Entry(byte[] body, long retrieved) {
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    /**
+     * 
+     * @param maxBytes Maximum total size of all cached bodies
+     */
+    SourceDocumentCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 
+     * @param url
+     * @return Cached entry for the given URL; null if none found
+     */
+    synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Adds the given body, removing the least recently used entries if the size limit is exceeded. Bodies larger than the limit are not
+     * cached.
+     * 
+     * @param url
+     * @param body
+     * @param retrieved Time of retrieval in milliseconds
+     * @should evict least recently used entries
+     * @should not cache bodies larger than limit
+     */
+    synchronized void put(String url, byte[] body, long retrieved) {
+        if (body.length > maxBytes) {
+            remove(url);
+            return;
+        }
+        Entry old = entries.put(url, new Entry(body, retrieved));
+        if (old != null) {
+            bytes -= old.body().length;
+        }
+        bytes += body.length;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().body().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * 
+     * @param url
+     */
+    synchronized void remove(String url) {
+        Entry old = entries.remove(url);
+        if (old != null) {
+            bytes -= old.body().length;
+        }
+    }
+
+    /**
+     * 
+     * @return Total size of all cached bodies
+     */
+    synchronized long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.exceptions.HTTPException;
+
+/**
+ * Source of all documents (METS/LIDO records, TEI/CMDI, TOC, harvest lists, etc.) the connector retrieves from the Goobi viewer.
+ */
+public interface SourceDocumentProvider extends Closeable {
+
+    /** Constant <code>PROVIDER_HTTP="http"</code> */
+    String PROVIDER_HTTP = "http";
+    /** Constant <code>PROVIDER_FILESYSTEM="filesystem"</code> */
+    String PROVIDER_FILESYSTEM = "filesystem";
+
+    /**
+     * Returns the content of the document at the given URL.
+     *
+     * @param url Document URL
+     * @return Document content as {@link String}
+     * @throws IOException
+     * @throws HTTPException if the document could not be retrieved
+     */
+    String getContent(String url) throws IOException, HTTPException;
+
+    /**
+     * Returns a stream of the content of the document at the given URL. The caller is responsible for closing the stream.
+     *
+     * @param url Document URL
+     * @return {@link InputStream}
+     * @throws IOException
+     * @throws HTTPException if the document could not be retrieved
+     */
+    InputStream getStream(String url) throws IOException, HTTPException;
+
+    /**
+     * Parses the XML document at the given URL directly from the response stream, without buffering it as a {@link String} first.
+     *
+     * @param url Document URL
+     * @return Parsed {@link Document}; null if the document is empty
+     * @throws IOException
+     * @throws HTTPException if the document could not be retrieved
+     * @throws JDOMException if the document is not well-formed
+     * @should parse document from stream
+     */
+    default Document getDocument(String url) throws IOException, HTTPException, JDOMException {
+        try (PushbackInputStream in = new PushbackInputStream(getStream(url))) {
+            int first = in.read();
+            if (first == -1) {
+                return null;
+            }
+            in.unread(first);
+            return Utils.getDocumentFromStream(in);
+        }
+    }
+
+    /**
+     * Parses the XML document at the given URL, which is known not to have changed since the given time. Implementations may use this to
+     * serve a cached copy after a conditional request.
+     *
+     * @param url Document URL
+     * @param lastModified Time of the last modification of the underlying record in milliseconds; 0 if unknown
+     * @return Parsed {@link Document}; null if the document is empty
+     * @throws IOException
+     * @throws HTTPException if the document could not be retrieved
+     * @throws JDOMException if the document is not well-formed
+     */
+    default Document getDocument(String url, long lastModified) throws IOException, HTTPException, JDOMException {
+        return getDocument(url);
+    }
+
+    /**
+     * Returns the HTTP status code (or equivalent) for the given URL.
+     *
+     * @param url Document URL
+     * @return Status code
+     * @throws IOException
+     */
+    int getStatus(String url) throws IOException;
+
+    /**
+     * Creates the provider that is configured in the given configuration.
+     *
+     * @param config
+     * @return {@link SourceDocumentProvider}
+     * @should create http provider by default
+     * @should create filesystem provider if configured
+     */
+    static SourceDocumentProvider create(Configuration config) {
+        if (PROVIDER_FILESYSTEM.equalsIgnoreCase(config.getSourceDocumentProvider())) {
+            List<Path> folders = new ArrayList<>();
+            for (String folder : config.getSourceDocumentFolders()) {
+                folders.add(Path.of(folder));
+            }
+            return new FileSystemSourceDocumentProvider(folders,
+                    Arrays.asList(config.getDocumentResolverUrl(), config.getRestApiUrl(), config.getHarvestUrl()));
+        }
+
+        return new HttpSourceDocumentProvider(config.getSourceDocumentMaxConnections(), config.getSourceDocumentTimeout(),
+                config.getSourceDocumentRetries(), config.getSourceDocumentCacheSize() * 1024L * 1024L);
+    }
+}
@@ -23,21 +23,23 @@ import io.goobi.viewer.solr.SolrConstants;
  */
 public enum SearchField {
 
-    ANYWHERE("any", null, "anywhere", "*", true, false, false),
-    TITLE("title", "dc.title", "title", SolrConstants.TITLE, true, false, true),
-    CREATOR("creator", "dc.creator", "per", SolrConstants.PERSON_ONEFIELD, true, false, false),
-    COLLECTION("collection", "dc.subject", "collection", SolrConstants.DC, true, false, false),
-    PUBLISHER("publisher", "dc.publisher", "publisher", SolrConstants.PUBLISHER, true, false, true),
-    YEAR("year", "dc.date", "year", SolrConstants.YEARPUBLISH, true, false, true),
-    DOCUMENTTYPE("documentType", "dc.type", "type", SolrConstants.DOCSTRCT, true, false, false),
-    FORMAT("format", "dc.format", null, null, false, false, false),
-    URN("urn", "dc.identifier", "urn", SolrConstants.URN, true, false, true),
-    IDENTIFIER("identifier", "dc.identifier", "identifier", SolrConstants.PI, true, false, true);
+    ANYWHERE("any", null, "anywhere", "*", null, true, false, false),
+    TITLE("title", "dc.title", "title", SolrConstants.TITLE, "SORT_TITLE", true, false, true),
+    CREATOR("creator", "dc.creator", "per", SolrConstants.PERSON_ONEFIELD, null, true, false, false),
+    COLLECTION("collection", "dc.subject", "collection", SolrConstants.DC, null, true, false, false),
+    PUBLISHER("publisher", "dc.publisher", "publisher", SolrConstants.PUBLISHER, "SORT_PUBLISHER", true, false, true),
+    YEAR("year", "dc.date", "year", SolrConstants.YEARPUBLISH, "SORT_YEARPUBLISH", true, false, true),
+    DOCUMENTTYPE("documentType", "dc.type", "type", SolrConstants.DOCSTRCT, null, true, false, false),
+    FORMAT("format", "dc.format", null, null, null, false, false, false),
+    URN("urn", "dc.identifier", "urn", SolrConstants.URN, SolrConstants.URN, true, false, true),
+    IDENTIFIER("identifier", "dc.identifier", "identifier", SolrConstants.PI, SolrConstants.PI, true, false, true);
 
     private String internalName;
     private String dcName;
     private String cqlName;
     private String solrName;
+    /** Single-valued docValues field used for sorting */
+    private String solrSortName;
     private boolean seachable;
     private boolean scanable;
     private boolean sortable;
@@ -48,15 +50,18 @@ public enum SearchField {
      * @param dcName
      * @param cqlName
      * @param solrName
+     * @param solrSortName
      * @param seachable
      * @param scanable
      * @param sortable
      */
-    private SearchField(String internalName, String dcName, String cqlName, String solrName, boolean seachable, boolean scanable, boolean sortable) {
+    private SearchField(String internalName, String dcName, String cqlName, String solrName, String solrSortName, boolean seachable,
+            boolean scanable, boolean sortable) {
         this.internalName = internalName;
         this.dcName = dcName;
         this.cqlName = cqlName;
         this.solrName = solrName;
+        this.solrSortName = solrSortName;
         this.seachable = seachable;
         this.scanable = scanable;
         this.sortable = sortable;
@@ -98,6 +103,15 @@ public enum SearchField {
         return solrName;
     }
 
+    /**
+     * <p>Getter for the field <code>solrSortName</code>.</p>
+     *
+     * @return the solrSortName
+     */
+    public String getSolrSortName() {
+        return solrSortName;
+    }
+
     /**
      * <p>isSeachable.</p>
      *
@@ -185,4 +199,24 @@ public enum SearchField {
         return null;
     }
 
+    /**
+     * Resolves a sort key (DC name, CQL name or internal name) to a sortable field.
+     *
+     * @param name a {@link java.lang.String} object.
+     * @return Sortable {@link io.goobi.viewer.connector.sru.SearchField}; null if none found
+     */
+    public static SearchField getSortableField(String name) {
+        SearchField field = getFieldByDcName(name);
+        if (field == null) {
+            field = getFieldByCqlName(name);
+        }
+        if (field == null) {
+            field = getFieldByInternalName(name);
+        }
+        if (field != null && field.isSortable() && field.getSolrSortName() != null) {
+            return field;
+        }
+        return null;
+    }
+
 }
@@ -16,9 +16,22 @@
 package io.goobi.viewer.connector.sru;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +43,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
@@ -40,18 +54,18 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
-import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.transform.XSLTransformException;
 import org.jdom2.transform.XSLTransformer;
 
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.exceptions.MissingArgumentException;
+import io.goobi.viewer.connector.metrics.MetricsFilter;
+import io.goobi.viewer.connector.metrics.RequestTrace;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
-import io.goobi.viewer.controller.NetTools;
-import io.goobi.viewer.controller.XmlTools;
+import io.goobi.viewer.connector.utils.XmlOutput;
 import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.solr.SolrConstants;
 import io.goobi.viewer.solr.SolrTools;
@@ -80,8 +94,13 @@ public class SruServlet extends HttpServlet {
     private static final Namespace DC_NAMEPSACE = Namespace.getNamespace("dc", "info:srw/schema/1/dc-schema");
     private static final Namespace LIDO_NAMESPACE = Namespace.getNamespace("lido", "http://www.lido-schema.org");
 
+    /** CQL 1.2 sort clause at the end of the query */
+    private static final Pattern SORT_BY_PATTERN = Pattern.compile("\\s+sortBy\\s+(.+)$", Pattern.CASE_INSENSITIVE);
+
     private static final String ELE_NAME_RECORD = "record";
     private static final String ELE_NAME_RECORD_SCHEMA = "recordSchema";
+    private static final String ELE_NAME_RECORD_PACKING = "recordPacking";
+    private static final String ELE_NAME_RECORD_DATA = "recordData";
     private static final String ELE_NAME_TITLE = "title";
     private static final String ELE_NAME_IDENTIFIER = "identifier";
     private static final String ELE_NAME_DEFAULT = "default";
@@ -96,6 +115,29 @@ public class SruServlet extends HttpServlet {
     /** {@inheritDoc} */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        SruOperation operation = SruOperation.getByTitle(request.getParameter(SruRequestParameter.PARAM_OPERATION));
+        if ((operation == SruOperation.SEARCHRETRIEVE || operation == SruOperation.SCAN)
+                && !DataManager.getInstance().getSearchIndex().isAvailable()) {
+            indexUnavailable(request.getParameter(SruRequestParameter.PARAM_VERSION), response,
+                    DataManager.getInstance().getSearchIndex().getRetryAfterSeconds());
+            return;
+        }
+        if (operation != SruOperation.UNSUPPORTETPARAMETER
+                && DataManager.getInstance().getAsyncDispatcher().dispatch(request, response, operation.getTitle(), this::processRequest)) {
+            return;
+        }
+        processRequest(request, response);
+    }
+
+    /**
+     * Creates the SRU response for the given request.
+     *
+     * @param request
+     * @param response
+     * @throws ServletException
+     * @throws IOException
+     */
+    void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("text/xml;charset=UTF-8");
 
         SruRequestParameter parameter = null;
@@ -120,6 +162,7 @@ public class SruServlet extends HttpServlet {
             logger.debug(e.getMessage());
             return;
         }
+        request.setAttribute(MetricsFilter.ATTR_OPERATION, parameter.getOperation().name().toLowerCase());
 
         Document doc = new Document();
         if (parameter.getStylesheet() != null && !parameter.getStylesheet().isEmpty()) {
@@ -221,11 +264,11 @@ public class SruServlet extends HttpServlet {
                 return;
         }
 
-        Format format = Format.getPrettyFormat();
-        format.setEncoding(StandardCharsets.UTF_8.name().toLowerCase());
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        XMLOutputter xmlOut = XmlOutput.createOutputter();
+        long outputStart = System.nanoTime();
         try {
             xmlOut.output(doc, response.getOutputStream());
+            RequestTrace.add(RequestTrace.PHASE_OUTPUT, System.nanoTime() - outputStart);
         } catch (IOException e) {
             logger.error(e.getMessage());
             try {
@@ -259,8 +302,8 @@ public class SruServlet extends HttpServlet {
         root.addContent(version);
 
         String query = generateSearchQuery(parameter.getQuery(), parameter.getRecordSchema(), filterQuerySuffix);
-        QueryResponse queryResponse =
-                solr.search(query, parameter.getStartRecord() - 1, parameter.getStartRecord() - 1 + parameter.getMaximumRecords(), null, null, null);
+        QueryResponse queryResponse = solr.searchSorted(query, parameter.getStartRecord() - 1,
+                parameter.getStartRecord() - 1 + parameter.getMaximumRecords(), getSortClauses(parameter), null, null);
         SolrDocumentList solrDocuments = queryResponse.getResults();
         Element numberOfRecords = new Element("numberOfRecords", SRU_NAMESPACE);
         if (solrDocuments == null || solrDocuments.isEmpty()) {
@@ -281,6 +324,24 @@ public class SruServlet extends HttpServlet {
         return root;
     }
 
+    /**
+     * Writes a general system error diagnostic with status 503 while the search index is unavailable.
+     * 
+     * @param version SRU version of the request; may be null
+     * @param response
+     * @param retryAfterSeconds
+     * @throws IOException
+     */
+    private static void indexUnavailable(String version, HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        String useVersion = version != null && version.matches("\\d+\\.\\d+") ? version : "?";
+        Document doc = createErrorResponseDocument(useVersion, "info:srw/diagnostic/1/1", "General system error", "Search index unavailable");
+        response.setContentType("text/xml;charset=UTF-8");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        XMLOutputter xmlOut = XmlOutput.createOutputter();
+        xmlOut.output(doc, response.getOutputStream());
+    }
+
     /**
      * Creates wrong schema error XML and writes it into response.
      * 
@@ -291,9 +352,7 @@ public class SruServlet extends HttpServlet {
      */
     private static void wrongSchema(SruRequestParameter parameter, HttpServletResponse response, String schema) throws IOException {
         Document doc = createWrongSchemaDocument(parameter != null ? parameter.getVersion() : "?", schema);
-        Format format = Format.getPrettyFormat();
-        format.setEncoding(StandardCharsets.UTF_8.name().toLowerCase());
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        XMLOutputter xmlOut = XmlOutput.createOutputter();
         xmlOut.output(doc, response.getOutputStream());
     }
 
@@ -317,9 +376,7 @@ public class SruServlet extends HttpServlet {
      */
     private static void missingArgument(SruRequestParameter parameter, HttpServletResponse response, String missing) throws IOException {
         Document doc = createMissingArgumentDocument(parameter != null ? parameter.getVersion() : "?", missing);
-        Format format = Format.getPrettyFormat();
-        format.setEncoding(StandardCharsets.UTF_8.name().toLowerCase());
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        XMLOutputter xmlOut = XmlOutput.createOutputter();
         xmlOut.output(doc, response.getOutputStream());
     }
 
@@ -345,9 +402,7 @@ public class SruServlet extends HttpServlet {
      */
     static void unsupportedOperation(SruRequestParameter parameter, HttpServletResponse response, String operation) throws IOException {
         Document doc = createUnsupportedOperationDocument(parameter != null ? parameter.getVersion() : "?", operation);
-        Format format = Format.getPrettyFormat();
-        format.setEncoding(StandardCharsets.UTF_8.name().toLowerCase());
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        XMLOutputter xmlOut = XmlOutput.createOutputter();
         xmlOut.output(doc, response.getOutputStream());
     }
 
@@ -404,6 +459,7 @@ public class SruServlet extends HttpServlet {
      * @return Generated query
      * @should throw {@link IllegalArgumentException} if sruQuery null
      * @should create query correctly
+     * @should remove sortBy clause
      */
     static String generateSearchQuery(String sruQuery, Metadata recordSchema, String filterQuerySuffix) {
         if (sruQuery == null) {
@@ -412,7 +468,7 @@ public class SruServlet extends HttpServlet {
 
         // map dc queries to solr queries
         StringBuilder sbValue = new StringBuilder();
-        String initValue = sruQuery;
+        String initValue = SORT_BY_PATTERN.matcher(sruQuery).replaceFirst("");
         for (Matcher m = Pattern.compile("dc.\\w+").matcher(initValue); m.find();) {
             String searchParameter = m.toMatchResult().group();
             SearchField sf = SearchField.getFieldByDcName(searchParameter);
@@ -463,6 +519,90 @@ public class SruServlet extends HttpServlet {
         return sbValue.toString();
     }
 
+    /**
+     * Collects the Solr sort clauses requested either via the SRU 1.1 <code>sortKeys</code> parameter or a CQL 1.2 <code>sortBy</code> clause.
+     * 
+     * @param parameter
+     * @return List of sort clauses; empty if no (supported) sort was requested
+     * @should prefer sortKeys over sortBy
+     * @should fall back to sortBy clause
+     */
+    static List<SortClause> getSortClauses(SruRequestParameter parameter) {
+        if (StringUtils.isNotBlank(parameter.getSortKeys())) {
+            return parseSortKeys(parameter.getSortKeys());
+        }
+        if (parameter.getQuery() != null) {
+            return parseSortBy(parameter.getQuery());
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Parses SRU 1.1 sort keys (space-separated list of <code>path,schema,ascending,caseSensitive,missingValue</code>).
+     * 
+     * @param sortKeys
+     * @return List of sort clauses for all sortable keys
+     * @should parse sort keys correctly
+     * @should skip unsortable keys
+     */
+    static List<SortClause> parseSortKeys(String sortKeys) {
+        if (StringUtils.isBlank(sortKeys)) {
+            return Collections.emptyList();
+        }
+
+        List<SortClause> ret = new ArrayList<>();
+        for (String sortKey : sortKeys.trim().split("\\s+")) {
+            String[] parts = sortKey.split(",");
+            SearchField field = SearchField.getSortableField(parts[0].trim());
+            if (field == null) {
+                logger.debug("Ignoring unsupported sort key: {}", sortKey);
+                continue;
+            }
+            boolean ascending = parts.length < 3 || !"0".equals(parts[2].trim());
+            ret.add(ascending ? SortClause.asc(field.getSolrSortName()) : SortClause.desc(field.getSolrSortName()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Parses the <code>sortBy</code> clause of a CQL 1.2 query (e.g. <code>dc.title sortBy dc.date/sort.descending dc.title</code>).
+     * 
+     * @param sruQuery
+     * @return List of sort clauses for all sortable indexes
+     * @should parse sortBy clause correctly
+     * @should return empty list if no sortBy clause
+     */
+    static List<SortClause> parseSortBy(String sruQuery) {
+        Matcher m = SORT_BY_PATTERN.matcher(sruQuery);
+        if (!m.find()) {
+            return Collections.emptyList();
+        }
+
+        List<SortClause> ret = new ArrayList<>();
+        for (String sortSpec : m.group(1).trim().split("\\s+")) {
+            String[] parts = sortSpec.split("/");
+            SearchField field = SearchField.getSortableField(parts[0].trim());
+            if (field == null) {
+                logger.debug("Ignoring unsupported sort index: {}", sortSpec);
+                continue;
+            }
+            boolean ascending = true;
+            for (int i = 1; i < parts.length; ++i) {
+                String modifier = parts[i].trim();
+                if ("sort.descending".equalsIgnoreCase(modifier) || "descending".equalsIgnoreCase(modifier)) {
+                    ascending = false;
+                } else if ("sort.ascending".equalsIgnoreCase(modifier) || "ascending".equalsIgnoreCase(modifier)) {
+                    ascending = true;
+                }
+            }
+            ret.add(ascending ? SortClause.asc(field.getSolrSortName()) : SortClause.desc(field.getSolrSortName()));
+        }
+
+        return ret;
+    }
+
     /**
      * @param root
      * @param parameter
@@ -483,7 +623,7 @@ public class SruServlet extends HttpServlet {
         query.setText(parameter.getQuery());
         echoedSearchRetrieveRequest.addContent(query);
 
-        Element recordPacking = new Element("recordPacking", SRU_NAMESPACE);
+        Element recordPacking = new Element(ELE_NAME_RECORD_PACKING, SRU_NAMESPACE);
         recordPacking.setText(parameter.getRecordPacking());
         echoedSearchRetrieveRequest.addContent(recordPacking);
 
@@ -512,52 +652,284 @@ public class SruServlet extends HttpServlet {
             return;
         }
 
-        for (SolrDocument document : solrDocuments) {
-            Element rec = new Element(ELE_NAME_RECORD, SRU_NAMESPACE);
-            records.addContent(rec);
-
-            Element recordSchema = new Element(ELE_NAME_RECORD_SCHEMA, SRU_NAMESPACE);
-            recordSchema.setText(parameter.getRecordSchema().getMetadataPrefix());
-            rec.addContent(recordSchema);
-
-            Element recordPacking = new Element("recordPacking", SRU_NAMESPACE);
-            recordPacking.setText(parameter.getRecordPacking());
-            rec.addContent(recordPacking);
-
-            Element recordData = new Element("recordData", SRU_NAMESPACE);
-            rec.addContent(recordData);
+        // Resolve all anchor titles for this page at once
+        Map<String, String> anchorTitles = Collections.emptyMap();
+        if (Metadata.DC.equals(parameter.getRecordSchema())) {
+            Set<String> iddocParents = new HashSet<>();
+            for (SolrDocument document : solrDocuments) {
+                if (document.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
+                    iddocParents.add((String) document.getFieldValue(SolrConstants.IDDOC_PARENT));
+                }
+            }
+            anchorTitles = solr.getAnchorTitles(iddocParents, filterQuerySuffix);
+        }
 
-            if ("1.2".equals(parameter.getVersion())) {
-                Element recordIdentifier = new Element("recordIdentifier", SRU_NAMESPACE);
-                recordIdentifier.setText(SolrTools.getSingleFieldStringValue(document, SolrConstants.PI_TOPSTRUCT));
-                rec.addContent(recordIdentifier);
+        // Records that are fetched from the viewer are rendered concurrently
+        int threads = Math.max(1, DataManager.getInstance().getConfiguration().getSruRecordRenderingThreads());
+        if (isFetchedRecordSchema(parameter.getRecordSchema()) && solrDocuments.size() > 1 && threads > 1) {
+            long timeout = DataManager.getInstance().getConfiguration().getSruRecordRenderingTimeout();
+            // Bound for the whole page: the time it would take if all renderings used up their timeout at full concurrency
+            long requestDeadline = System.currentTimeMillis() + timeout * ((solrDocuments.size() + threads - 1) / threads);
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                List<RecordRendering> renderings = submitRecordRendering(executor, solrDocuments, threads, document -> {
+                    Element recordData = new Element(ELE_NAME_RECORD_DATA, SRU_NAMESPACE);
+                    renderFetchedRecord(document, recordData, parameter.getRecordSchema());
+                    return recordData;
+                });
+                addRenderedRecords(records, solrDocuments, renderings, parameter, timeout, requestDeadline);
+            } finally {
+                // Do not wait for stalled fetches; their results are no longer needed
+                executor.shutdownNow();
             }
+            return;
+        }
 
+        for (SolrDocument document : solrDocuments) {
+            Element recordData = new Element(ELE_NAME_RECORD_DATA, SRU_NAMESPACE);
             switch (parameter.getRecordSchema()) {
                 case SOLR:
                     generateSolrRecord(document, recordData);
                     break;
-                case METS:
-                    generateMetsRecord(document, recordData);
-                    break;
-                case MODS:
-                    generateModsRecord(document, recordData);
-                    break;
-                case MARCXML:
-                    generateMarcxmlRecord(document, recordData);
-                    break;
                 case DC:
-                    generateDcRecord(document, recordData, solr, filterQuerySuffix);
-                    break;
-                case LIDO:
-                    generateLidoRecord(document, recordData);
+                    generateDcRecord(document, recordData, anchorTitles);
                     break;
                 default:
+                    renderFetchedRecord(document, recordData, parameter.getRecordSchema());
                     break;
             }
+            records.addContent(createRecord(document, recordData, parameter));
+        }
+    }
+
+    /**
+     * Adds the concurrently rendered records to the given element in document order. Records that could not be rendered in time are replaced
+     * by surrogate diagnostic records.
+     * 
+     * @param records Element to add the records to
+     * @param solrDocuments
+     * @param renderings Renderings in the same order as <code>solrDocuments</code>
+     * @param parameter
+     * @param timeout Time in milliseconds after which a single rendering is abandoned
+     * @param requestDeadline Timestamp after which all remaining renderings are abandoned
+     * @should add surrogate diagnostic records for timed out renderings
+     */
+    static void addRenderedRecords(Element records, List<SolrDocument> solrDocuments, List<RecordRendering> renderings,
+            SruRequestParameter parameter, long timeout, long requestDeadline) {
+        for (int i = 0; i < solrDocuments.size(); ++i) {
+            SolrDocument document = solrDocuments.get(i);
+            Element recordData = getRenderedRecordData(renderings.get(i), timeout, requestDeadline);
+            if (recordData != null) {
+                records.addContent(createRecord(document, recordData, parameter));
+            } else {
+                records.addContent(createSurrogateDiagnosticRecord(parameter.getRecordPacking(),
+                        SolrTools.getSingleFieldStringValue(document, SolrConstants.PI_TOPSTRUCT)));
+            }
         }
     }
 
+    /**
+     * 
+     * @param document
+     * @param recordData Rendered <code>recordData</code> element
+     * @param parameter
+     * @return <code>record</code> element
+     */
+    private static Element createRecord(SolrDocument document, Element recordData, SruRequestParameter parameter) {
+        Element rec = new Element(ELE_NAME_RECORD, SRU_NAMESPACE);
+
+        Element recordSchema = new Element(ELE_NAME_RECORD_SCHEMA, SRU_NAMESPACE);
+        recordSchema.setText(parameter.getRecordSchema().getMetadataPrefix());
+        rec.addContent(recordSchema);
+
+        Element recordPacking = new Element(ELE_NAME_RECORD_PACKING, SRU_NAMESPACE);
+        recordPacking.setText(parameter.getRecordPacking());
+        rec.addContent(recordPacking);
+
+        rec.addContent(recordData);
+
+        if ("1.2".equals(parameter.getVersion())) {
+            Element recordIdentifier = new Element("recordIdentifier", SRU_NAMESPACE);
+            recordIdentifier.setText(SolrTools.getSingleFieldStringValue(document, SolrConstants.PI_TOPSTRUCT));
+            rec.addContent(recordIdentifier);
+        }
+
+        return rec;
+    }
+
+    /**
+     * 
+     * @param recordSchema
+     * @return true if records in the given schema are fetched from the viewer; false otherwise
+     */
+    static boolean isFetchedRecordSchema(Metadata recordSchema) {
+        if (recordSchema == null) {
+            return false;
+        }
+        switch (recordSchema) {
+            case METS:
+            case MODS:
+            case MARCXML:
+            case LIDO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Rendering of a single <code>recordData</code> element on its own thread.
+     */
+    static final class RecordRendering {
+
+        /** Released once the rendering has obtained its permit (or given up waiting for it) */
+        private final CountDownLatch started = new CountDownLatch(1);
+        /** Time at which the rendering has obtained its permit */
+        private volatile long startTime;
+        private Future<Element> future;
+    }
+
+    /**
+     * Submits the rendering of the <code>recordData</code> element for each given document. At most <code>threads</code> documents are rendered at
+     * the same time. Each rendering waits until the previous one has obtained its permit before requesting its own, so that permits are handed
+     * out in document order and a record never waits for a permit held by a later record.
+     * 
+     * @param executor
+     * @param solrDocuments
+     * @param threads Maximum number of concurrently rendered records
+     * @param renderer Creates the <code>recordData</code> element for a document
+     * @return List of renderings in the same order as <code>solrDocuments</code>
+     */
+    static List<RecordRendering> submitRecordRendering(ExecutorService executor, List<SolrDocument> solrDocuments, int threads,
+            Function<SolrDocument, Element> renderer) {
+        Semaphore permits = new Semaphore(threads);
+        List<RecordRendering> ret = new ArrayList<>(solrDocuments.size());
+        CountDownLatch previousStarted = null;
+        for (SolrDocument document : solrDocuments) {
+            RecordRendering rendering = new RecordRendering();
+            CountDownLatch waitFor = previousStarted;
+            rendering.future = executor.submit(RequestTrace.wrap(() -> {
+                try {
+                    if (waitFor != null) {
+                        waitFor.await();
+                    }
+                    permits.acquire();
+                } finally {
+                    rendering.startTime = System.currentTimeMillis();
+                    rendering.started.countDown();
+                }
+                try {
+                    return renderer.apply(document);
+                } finally {
+                    permits.release();
+                }
+            }));
+            ret.add(rendering);
+            previousStarted = rendering.started;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Waits for the given rendering. The timeout is measured from the moment the rendering has obtained its permit, so that waiting for a free
+     * permit does not count against it. A rendering that ignores interruption keeps its permit after being abandoned, though, so later records
+     * may wait for a permit that is never released; the request deadline bounds the total time in that case.
+     * 
+     * @param rendering
+     * @param timeout Time in milliseconds after which the rendering is abandoned
+     * @param requestDeadline Timestamp after which the rendering is abandoned regardless of when it started
+     * @return Rendered <code>recordData</code> element; null if rendering failed or timed out
+     * @should return null if rendering times out
+     * @should return null once request deadline has passed
+     */
+    static Element getRenderedRecordData(RecordRendering rendering, long timeout, long requestDeadline) {
+        Future<Element> future = rendering.future;
+        try {
+            long maxWait = Math.max(0, Math.min(timeout, requestDeadline - System.currentTimeMillis()));
+            if (!rendering.started.await(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException();
+            }
+            long deadline = Math.min(rendering.startTime + timeout, requestDeadline);
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Record rendering timed out.");
+        } catch (ExecutionException e) {
+            logger.error(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    /**
+     * 
+     * @param document
+     * @param recordData
+     * @param recordSchema
+     */
+    private static void renderFetchedRecord(SolrDocument document, Element recordData, Metadata recordSchema) {
+        switch (recordSchema) {
+            case METS:
+                generateMetsRecord(document, recordData);
+                break;
+            case MODS:
+                generateModsRecord(document, recordData);
+                break;
+            case MARCXML:
+                generateMarcxmlRecord(document, recordData);
+                break;
+            case LIDO:
+                generateLidoRecord(document, recordData);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Creates a surrogate diagnostic record for a record that could not be rendered in time.
+     * 
+     * @param recordPacking
+     * @param identifier Identifier of the affected record
+     * @return {@link Element}
+     * @should create element correctly
+     */
+    static Element createSurrogateDiagnosticRecord(String recordPacking, String identifier) {
+        Element rec = new Element(ELE_NAME_RECORD, SRU_NAMESPACE);
+
+        Element recordSchema = new Element(ELE_NAME_RECORD_SCHEMA, SRU_NAMESPACE);
+        recordSchema.setText("info:srw/schema/1/diagnostics-v1.1");
+        rec.addContent(recordSchema);
+
+        Element recordPackingElement = new Element(ELE_NAME_RECORD_PACKING, SRU_NAMESPACE);
+        recordPackingElement.setText(recordPacking);
+        rec.addContent(recordPackingElement);
+
+        Element recordData = new Element(ELE_NAME_RECORD_DATA, SRU_NAMESPACE);
+        rec.addContent(recordData);
+
+        Element diagnostic = new Element("diagnostic", DIAG_NAMESPACE);
+        recordData.addContent(diagnostic);
+
+        Element uri = new Element("uri", DIAG_NAMESPACE);
+        uri.setText("info:srw/diagnostic/1/64");
+        diagnostic.addContent(uri);
+
+        Element details = new Element("details", DIAG_NAMESPACE);
+        details.setText(identifier);
+        diagnostic.addContent(details);
+
+        Element message = new Element("message", DIAG_NAMESPACE);
+        message.setText("Record temporarily unavailable");
+        diagnostic.addContent(message);
+
+        return rec;
+    }
+
     /**
      * @param doc
      * @param recordData
@@ -567,18 +939,17 @@ public class SruServlet extends HttpServlet {
                 .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
                 .toString();
         try {
-            String xml = NetTools.getWebContentGET(url);
-            if (StringUtils.isEmpty(xml)) {
+            org.jdom2.Document xmlDoc = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            if (xmlDoc == null) {
                 return;
             }
-            org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
             Element xmlRoot = xmlDoc.getRootElement();
             Element newLido = new Element(Metadata.LIDO.getMetadataPrefix(), LIDO_NAMESPACE);
             newLido.addNamespaceDeclaration(XSI_NAMESPACE);
             newLido.setAttribute(new Attribute("schemaLocation", "http://www.lido-schema.org http://www.lido-schema.org/schema/v1.0/lido-v1.0.xsd",
                     XSI_NAMESPACE));
 
-            newLido.addContent(xmlRoot.cloneContent());
+            newLido.addContent(xmlRoot.removeContent());
             recordData.addContent(newLido);
         } catch (IOException | JDOMException e) {
             logger.error(e.getMessage(), e);
@@ -590,13 +961,9 @@ public class SruServlet extends HttpServlet {
     /**
      * @param doc
      * @param recordData
-     * @param solr
-     * @param filterQuerySuffix Filter query suffix for the client's session
-     * @throws SolrServerException
-     * @throws IOException
+     * @param anchorTitles Pre-fetched anchor titles, keyed by IDDOC
      */
-    private static void generateDcRecord(SolrDocument doc, Element recordData, SolrSearchIndex solr, String filterQuerySuffix)
-            throws SolrServerException, IOException {
+    private static void generateDcRecord(SolrDocument doc, Element recordData, Map<String, String> anchorTitles) {
         Element dc = new Element(ELE_NAME_RECORD, DC_NAMEPSACE);
 
         String title = null;
@@ -612,9 +979,9 @@ public class SruServlet extends HttpServlet {
         } else {
             title = "";
         }
-        if (doc.getFieldValue("IDDOC_PARENT") != null) {
+        if (doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
             // If this is a volume, add anchor title in front
-            String anchorTitle = getAnchorTitle(doc, solr, filterQuerySuffix);
+            String anchorTitle = anchorTitles.get(doc.getFieldValue(SolrConstants.IDDOC_PARENT));
             if (anchorTitle != null) {
                 title = anchorTitle + "; " + title;
             }
@@ -727,25 +1094,6 @@ public class SruServlet extends HttpServlet {
         recordData.addContent(dc);
     }
 
-    /**
-     * 
-     * @param doc
-     * @param solr
-     * @param filterQuerySuffix
-     * @return {@link String}
-     * @throws SolrServerException
-     * @throws IOException
-     */
-    private static String getAnchorTitle(SolrDocument doc, SolrSearchIndex solr, String filterQuerySuffix) throws SolrServerException, IOException {
-        String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-        SolrDocumentList hits = solr.search(SolrConstants.IDDOC + ":" + iddocParent, filterQuerySuffix);
-        if (hits != null && !hits.isEmpty()) {
-            return (String) hits.get(0).getFirstValue("MD_TITLE");
-        }
-
-        return null;
-    }
-
     /**
      * @param document
      * @param recordData
@@ -754,11 +1102,10 @@ public class SruServlet extends HttpServlet {
         String pi = (String) document.getFieldValue(SolrConstants.PI_TOPSTRUCT);
         String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
         try {
-            String xml = NetTools.getWebContentGET(url);
-            if (StringUtils.isEmpty(xml)) {
+            org.jdom2.Document xmlDoc = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            if (xmlDoc == null) {
                 return;
             }
-            org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
             Element xmlRoot = xmlDoc.getRootElement();
             Element newmods = new Element("mods", MODS_NAMESPACE);
             newmods.addNamespaceDeclaration(XSI_NAMESPACE);
@@ -773,7 +1120,7 @@ public class SruServlet extends HttpServlet {
                 Element xmlData = mdWrap.getChild("xmlData", METS_NAMESPACE);
                 Element modsElement = xmlData.getChild("mods", MODS_NAMESPACE);
 
-                newmods.addContent(modsElement.cloneContent());
+                newmods.addContent(modsElement.removeContent());
 
                 newmods.addNamespaceDeclaration(MARC_NAMEPSACE);
                 org.jdom2.Document marcDoc = new org.jdom2.Document();
@@ -789,7 +1136,7 @@ public class SruServlet extends HttpServlet {
 
                     root.setAttribute(ATTR_NAME_SCHEMA_LOCATION, "http://www.loc.gov/MARC21/slim http://www.loc.gov/standards/marcxml/schema/MARC21slim.xsd",
                             XSI_NAMESPACE);
-                    recordData.addContent(root.cloneContent());
+                    recordData.addContent(root.removeContent());
                 } catch (XSLTransformException e) {
                     logger.warn(e.getMessage());
                 }
@@ -822,11 +1169,10 @@ public class SruServlet extends HttpServlet {
                 .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
                 .toString();
         try {
-            String xml = NetTools.getWebContentGET(url);
-            if (StringUtils.isEmpty(xml)) {
+            org.jdom2.Document xmlDoc = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            if (xmlDoc == null) {
                 return;
             }
-            org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
             Element xmlRoot = xmlDoc.getRootElement();
             Element newMods = new Element("mods", MODS_NAMESPACE);
             newMods.addNamespaceDeclaration(XSI_NAMESPACE);
@@ -840,7 +1186,7 @@ public class SruServlet extends HttpServlet {
                 Element mdWrap = firstDmdSec.getChild("mdWrap", METS_NAMESPACE);
                 Element xmlData = mdWrap.getChild("xmlData", METS_NAMESPACE);
                 Element modsElement = xmlData.getChild("mods", MODS_NAMESPACE);
-                newMods.addContent(modsElement.cloneContent());
+                newMods.addContent(modsElement.removeContent());
                 recordData.addContent(newMods);
             }
         } catch (IOException | JDOMException e) {
@@ -860,11 +1206,10 @@ public class SruServlet extends HttpServlet {
                 .toString();
         logger.trace("generateMetsRecord");
         try {
-            String xml = NetTools.getWebContentGET(url);
-            if (StringUtils.isEmpty(xml)) {
+            org.jdom2.Document xmlDoc = DataManager.getInstance().getSourceDocumentProvider().getDocument(url);
+            if (xmlDoc == null) {
                 return;
             }
-            org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
             Element xmlRoot = xmlDoc.getRootElement();
             Element newMets = new Element(Metadata.METS.getMetadataPrefix(), METS_NAMESPACE);
             newMets.addNamespaceDeclaration(XSI_NAMESPACE);
@@ -876,7 +1221,7 @@ public class SruServlet extends HttpServlet {
                     "http://www.loc.gov/mods/v3 http://www.loc.gov/standards/mods/v3/mods-3-3.xsd http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version17/mets.v1-7.xsd",
                     XSI_NAMESPACE);
 
-            newMets.addContent(xmlRoot.cloneContent());
+            newMets.addContent(xmlRoot.removeContent());
             recordData.addContent(newMets);
         } catch (IOException | JDOMException e) {
             logger.error(e.getMessage(), e);
@@ -965,7 +1310,7 @@ public class SruServlet extends HttpServlet {
         recordSchema.setText(EXPLAIN_NAMESPACE.getURI());
         eleRecord.addContent(recordSchema);
 
-        Element recordData = new Element("recordData", SRU_NAMESPACE);
+        Element recordData = new Element(ELE_NAME_RECORD_DATA, SRU_NAMESPACE);
         eleRecord.addContent(recordData);
 
         Element explain = new Element("explain", EXPLAIN_NAMESPACE);
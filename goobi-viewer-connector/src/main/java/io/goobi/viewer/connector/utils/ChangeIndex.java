@@ -0,0 +1,250 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Local, sorted copy of all <code>DATEUPDATED</code> values of records and deletion markers that OAI-PMH lists, kept up to date by polling Solr
+ * for values newer than the last refresh. A selective harvest whose from/until window contains none of these values cannot match anything,
+ * whatever set, format or access conditions apply, so it is answered without running the list query. This only serves as a negative cache
+ * for empty windows; identifiers and set memberships are still read from Solr.
+ */
+public class ChangeIndex implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ChangeIndex.class);
+
+    /** Time after which newly indexed values are expected to be searchable; values younger than this are never considered complete */
+    static final long COMMIT_LAG = 10 * 60 * 1000L;
+
+    private static final int BATCH_SIZE = 10000;
+
+    /** Query for all documents that can appear in an OAI-PMH list */
+    private static final String BASE_QUERY =
+            "+(" + SolrConstants.ISWORK + ":true " + SolrConstants.ISANCHOR + ":true " + SolrConstants.DATEDELETED + ":*)";
+
+    private final SolrSearchIndex searchIndex;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "oai-change-index");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Current content; replaced as a whole on each refresh */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * @param timestamps Distinct timestamps, sorted ascending
+     * @param coveredUntil All timestamps up to this value are contained in timestamps; -1 while nothing has been loaded yet
+     */
+    private record Snapshot(long[] timestamps, long coveredUntil) {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], -1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param searchIndex {@link SolrSearchIndex} to read from
+     */
+    public ChangeIndex(SolrSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Loads the index in the background and refreshes it periodically.
+     *
+     * @param intervalMillis Interval between two refreshes
+     */
+    public void start(long intervalMillis) {
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds all values indexed since the last refresh. Errors are only logged, the next refresh tries again.
+     */
+    synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        long since = snapshot.coveredUntil();
+        StringBuilder sbQuery = new StringBuilder(BASE_QUERY);
+        if (since >= 0) {
+            sbQuery.append(" +").append(SolrConstants.DATEUPDATED).append(":[").append(since).append(" TO *]");
+        }
+        SolrQuery solrQuery = new SolrQuery(sbQuery.toString());
+        solrQuery.setRows(BATCH_SIZE);
+        solrQuery.setFields(SolrConstants.DATEUPDATED);
+        solrQuery.setSort(SortClause.asc(SolrConstants.IDDOC));
+
+        long[] values = new long[BATCH_SIZE];
+        int count = 0;
+        String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        try {
+            while (true) {
+                solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+                QueryResponse resp = searchIndex.querySolr(solrQuery, 1);
+                for (SolrDocument doc : resp.getResults()) {
+                    Collection<Object> fieldValues = doc.getFieldValues(SolrConstants.DATEUPDATED);
+                    if (fieldValues == null) {
+                        continue;
+                    }
+                    for (Object value : fieldValues) {
+                        long timestamp = toLong(value);
+                        if (timestamp >= since) {
+                            if (count == values.length) {
+                                values = Arrays.copyOf(values, count * 2);
+                            }
+                            values[count++] = timestamp;
+                        }
+                    }
+                }
+                String nextCursorMark = resp.getNextCursorMark();
+                if (nextCursorMark == null || nextCursorMark.equals(cursorMark)) {
+                    break;
+                }
+                cursorMark = nextCursorMark;
+            }
+        } catch (IOException | SolrServerException | RuntimeException e) {
+            logger.warn("Could not refresh change index: {}", e.getMessage());
+            return;
+        }
+
+        add(Arrays.copyOf(values, count), start - COMMIT_LAG);
+        logger.debug("Change index refreshed: {} new values, {} total, {} ms", count, size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Merges the given values into the index.
+     *
+     * @param values New timestamps in any order
+     * @param newCoveredUntil Timestamp up to which the index is complete after adding the values
+     */
+    synchronized void add(long[] values, long newCoveredUntil) {
+        Snapshot current = snapshot;
+        long[] merged = Arrays.copyOf(current.timestamps(), current.timestamps().length + values.length);
+        System.arraycopy(values, 0, merged, current.timestamps().length, values.length);
+        Arrays.sort(merged);
+        int size = 0;
+        for (int i = 0; i < merged.length; ++i) {
+            if (size == 0 || merged[i] != merged[size - 1]) {
+                merged[size++] = merged[i];
+            }
+        }
+        snapshot =
+                new Snapshot(size == merged.length ? merged : Arrays.copyOf(merged, size), Math.max(current.coveredUntil(), newCoveredUntil));
+    }
+
+    /**
+     * Discards all loaded values, e.g. after switching to a different index. The next refresh loads everything again.
+     */
+    synchronized void reset() {
+        snapshot = Snapshot.EMPTY;
+    }
+
+    /**
+     * Checks whether no listed record has been updated or deleted within the given range.
+     *
+     * @param from Start of the range (inclusive)
+     * @param until End of the range (inclusive)
+     * @return true if the range is known to be empty; false if it contains a value or lies (partly) outside of the loaded data
+     * @should return true if no value in range
+     * @should return false if value in range
+     * @should return false if range not covered
+     */
+    public boolean isEmpty(long from, long until) {
+        Snapshot current = snapshot;
+        if (until > current.coveredUntil() || from > until) {
+            return false;
+        }
+        long[] values = current.timestamps();
+        int index = Arrays.binarySearch(values, from);
+        if (index >= 0) {
+            return false;
+        }
+        int insertionPoint = -index - 1;
+        return insertionPoint == values.length || values[insertionPoint] > until;
+    }
+
+    /**
+     * Checks with a count query whether no listed record has been updated or deleted within the given range. Used for the part of a range
+     * that lies beyond {@link #getCoveredUntil()}, which is usually only the last few minutes.
+     *
+     * @param from Start of the range (inclusive)
+     * @param until End of the range (inclusive)
+     * @return true if Solr has no matching document; false otherwise
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    public boolean isEmptyInSolr(long from, long until) throws IOException, SolrServerException {
+        SolrQuery solrQuery = new SolrQuery(BASE_QUERY + " +" + SolrConstants.DATEUPDATED + ":[" + from + " TO " + until + "]");
+        solrQuery.setRows(0);
+        return searchIndex.querySolr(solrQuery, 1).getResults().getNumFound() == 0;
+    }
+
+    /**
+     * 
+     * @return Timestamp up to which all values are loaded; -1 while nothing has been loaded yet
+     */
+    public long getCoveredUntil() {
+        return snapshot.coveredUntil();
+    }
+
+    /**
+     * 
+     * @return Number of distinct timestamps in the index
+     */
+    public int size() {
+        return snapshot.timestamps().length;
+    }
+
+    /**
+     * 
+     * @param value Field value
+     * @return value as milliseconds
+     */
+    private static long toLong(Object value) {
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return Long.parseLong(String.valueOf(value));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Circuit breaker for calls to an external service. After a number of consecutive failures the circuit opens and calls fail fast; once
+ * the open interval has passed, a single trial call is let through and its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    /** Circuit states */
+    public enum State {
+        /** Calls pass */
+        CLOSED,
+        /** Calls fail fast */
+        OPEN,
+        /** One trial call passes */
+        HALF_OPEN;
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of the protected service for logging
+     * @param failureThreshold Number of consecutive failures after which the circuit opens
+     * @param openMillis Time the circuit stays open before a trial call is allowed
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of the protected service for logging
+     * @param failureThreshold Number of consecutive failures after which the circuit opens
+     * @param openMillis Time the circuit stays open before a trial call is allowed
+     * @param clock Time source in milliseconds
+     */
+    CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 
+     * @return true if a call may be made; false if the circuit is open
+     * @should allow calls while closed
+     * @should reject calls while open
+     * @should allow single trial call after open interval
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (clock.getAsLong() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                openedAt = clock.getAsLong();
+                return true;
+            case HALF_OPEN:
+                // Trial call still running; allow another one if its outcome has not been recorded within the open interval
+                if (clock.getAsLong() - openedAt < openMillis) {
+                    return false;
+                }
+                openedAt = clock.getAsLong();
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Checks whether {@link #allowRequest()} would currently let a call through, without starting a trial call. Used to reject requests
+     * early; once the open interval has passed, requests are let through so that one of them can make the trial call.
+     *
+     * @return true if the circuit is closed or a trial call is due; false otherwise
+     * @should return false while open
+     * @should return true once trial call is due
+     */
+    public synchronized boolean isRequestAllowed() {
+        return state == State.CLOSED || clock.getAsLong() - openedAt >= openMillis;
+    }
+
+    /**
+     * Records a successful call and closes the circuit.
+     *
+     * @should close circuit after successful trial call
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("{} is available again, closing circuit.", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Records a failed call and opens the circuit if the failure threshold is reached or the trial call failed.
+     *
+     * @should open circuit after threshold failures
+     * @should re-open circuit after failed trial call
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("{} failed {} times in a row, opening circuit for {} ms.", name, consecutiveFailures, openMillis);
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    /**
+     * 
+     * @return Current {@link State}
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 
+     * @return Milliseconds until the next trial call is allowed; 0 if the circuit is closed or a trial call is due
+     * @should return time left in open interval
+     */
+    public synchronized long getRetryAfterMillis() {
+        if (state == State.CLOSED) {
+            return 0;
+        }
+        return Math.max(0, openMillis - (clock.getAsLong() - openedAt));
+    }
+}
@@ -17,6 +17,8 @@ package io.goobi.viewer.connector.utils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -333,6 +335,147 @@ public final class Configuration {
         return getLocalString("solr.solrUrl", "http://localhost:8080/solr");
     }
 
+    /**
+     * Socket timeout for Solr requests. Together with {@link #getSolrRetries()} it bounds how long a request thread can be held by an
+     * unresponsive Solr before the circuit breaker records a failure, so it is kept well below typical client timeouts.
+     *
+     * @return Configured value in milliseconds; 10000 if none configured
+     * @should return correct value
+     */
+    public int getSolrTimeout() {
+        return getLocalInt("solr.timeout", 10000);
+    }
+
+    /**
+     * Core URLs of further Solr replicas; queries are load balanced across these and {@link #getIndexUrl()}.
+     *
+     * @return Configured values; empty list if none configured
+     * @should return all values
+     */
+    public List<String> getSolrReplicaUrls() {
+        return getLocalList("solr.replicaUrl", Collections.emptyList());
+    }
+
+    /**
+     * Base URLs of SolrCloud nodes; if configured, the cluster is used instead of {@link #getIndexUrl()}.
+     *
+     * @return Configured values; empty list if none configured
+     * @should return all values
+     */
+    public List<String> getSolrCloudUrls() {
+        return getLocalList("solr.cloud.solrUrl", Collections.emptyList());
+    }
+
+    /**
+     * SolrCloud collection to query.
+     *
+     * @return Configured value; "collection1" if none configured
+     * @should return correct value
+     */
+    public String getSolrCloudCollection() {
+        return getLocalString("solr.cloud.collection", "collection1");
+    }
+
+    /**
+     * Value of the <code>shards.preference</code> parameter for all queries, e.g. to route harvesting traffic to dedicated pull replicas.
+     *
+     * @return Configured value; empty string if none configured
+     * @should return correct value
+     */
+    public String getSolrShardsPreference() {
+        return getLocalString("solr.shardsPreference", "");
+    }
+
+    /**
+     * Number of retries for Solr queries that failed due to a timeout or connection problem.
+     *
+     * @return Configured value; 3 if none configured
+     * @should return correct value
+     */
+    public int getSolrRetries() {
+        return getLocalInt("solr.retries", 3);
+    }
+
+    /**
+     * Delay before the first retry of a Solr query; doubled for every further retry.
+     *
+     * @return Configured value in milliseconds; 200 if none configured
+     * @should return correct value
+     */
+    public long getSolrRetryBackoff() {
+        return getLocalInt("solr.retryBackoff", 200);
+    }
+
+    /**
+     * Maximum delay between two retries of a Solr query.
+     *
+     * @return Configured value in milliseconds; 10000 if none configured
+     * @should return correct value
+     */
+    public long getSolrRetryBackoffMax() {
+        return getLocalInt("solr.retryBackoffMax", 10000);
+    }
+
+    /**
+     * Number of consecutive failed Solr requests after which queries fail fast.
+     *
+     * @return Configured value; 5 if none configured
+     * @should return correct value
+     */
+    public int getSolrCircuitBreakerFailureThreshold() {
+        return getLocalInt("solr.circuitBreaker.failureThreshold", 5);
+    }
+
+    /**
+     * Time during which Solr queries fail fast before a trial query is made.
+     *
+     * @return Configured value in milliseconds; 30000 if none configured
+     * @should return correct value
+     */
+    public long getSolrCircuitBreakerOpenInterval() {
+        return getLocalInt("solr.circuitBreaker.openInterval", 30000);
+    }
+
+    /**
+     * Interval of background Solr pings and client reload checks.
+     *
+     * @return Configured value in milliseconds; 10000 if none configured; 0 falls back to 60000
+     * @should return correct value
+     */
+    public long getSolrHealthCheckInterval() {
+        return getLocalInt("solr.healthCheckInterval", 10000);
+    }
+
+    /**
+     * Time after which a background Solr ping is considered failed, independent of the socket timeout for queries.
+     *
+     * @return Configured value in milliseconds; 5000 if none configured
+     * @should return correct value
+     */
+    public long getSolrPingTimeout() {
+        return getLocalInt("solr.pingTimeout", 5000);
+    }
+
+    /**
+     * URL of a second Solr replica that receives hedged requests.
+     *
+     * @return Configured value; empty string if none configured
+     * @should return correct value
+     */
+    public String getSolrHedgeUrl() {
+        return getLocalString("solr.hedge.url", "");
+    }
+
+    /**
+     * Time after which a Solr query that has not been answered is also sent to the hedge replica.
+     *
+     * @return Configured value in milliseconds; 500 if none configured
+     * @should return correct value
+     */
+    public long getSolrHedgeDelay() {
+        return getLocalInt("solr.hedge.delay", 500);
+    }
+
     /**
      * <p>
      * getHitsPerToken.
@@ -359,6 +502,57 @@ public final class Configuration {
         return getLocalInt(metadataFormat + ".hitsPerToken", getHitsPerToken());
     }
 
+    /**
+     * Whether the number of records per page is adjusted to the measured cost of each metadata format instead of using the configured
+     * hitsPerToken values.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isAdaptivePagingEnabled() {
+        return getLocalBoolean("adaptivePaging.enabled", false);
+    }
+
+    /**
+     * Time in milliseconds within which an adaptively sized page should be rendered.
+     *
+     * @return Configured value; 10000 if none configured
+     * @should return correct value
+     */
+    public long getAdaptivePagingTargetTime() {
+        return getLocalInt("adaptivePaging.targetTime", 10000);
+    }
+
+    /**
+     * Response size in bytes an adaptively sized page should not exceed.
+     *
+     * @return Configured value; 20971520 if none configured
+     * @should return correct value
+     */
+    public long getAdaptivePagingTargetBytes() {
+        return getLocalInt("adaptivePaging.targetBytes", 20971520);
+    }
+
+    /**
+     * Smallest number of records per adaptively sized page.
+     *
+     * @return Configured value; 10 if none configured
+     * @should return correct value
+     */
+    public int getAdaptivePagingMinHitsPerToken() {
+        return getLocalInt("adaptivePaging.minHitsPerToken", 10);
+    }
+
+    /**
+     * Largest number of records per adaptively sized page.
+     *
+     * @return Configured value; 1000 if none configured
+     * @should return correct value
+     */
+    public int getAdaptivePagingMaxHitsPerToken() {
+        return getLocalInt("adaptivePaging.maxHitsPerToken", 1000);
+    }
+
     /**
      * <p>
      * getVersionDisriminatorFieldForMetadataFormat.
@@ -459,6 +653,361 @@ public final class Configuration {
         return getLocalString("restApiUrl", "http://localhost:8080/viewer/api/v1/");
     }
 
+    /**
+     * Maximum number of SRU records per response that are fetched and rendered concurrently.
+     *
+     * @return Configured value; 8 if none configured
+     * @should return correct value
+     */
+    public int getSruRecordRenderingThreads() {
+        return getLocalInt("sru.recordRenderingThreads", 8);
+    }
+
+    /**
+     * Time in milliseconds after which the rendering of a single SRU record is abandoned, measured from the start of its rendering.
+     *
+     * @return Configured value; 30000 if none configured
+     * @should return correct value
+     */
+    public long getSruRecordRenderingTimeout() {
+        return getLocalInt("sru.recordRenderingTimeout", 30000);
+    }
+
+    /**
+     * Source of records and other documents retrieved from the Goobi viewer (<code>http</code> or <code>filesystem</code>).
+     *
+     * @return Configured value; http if none configured
+     * @should return correct value
+     */
+    public String getSourceDocumentProvider() {
+        return getLocalString("sourceDocuments.provider", "http");
+    }
+
+    /**
+     * Local folders used by the <code>filesystem</code> source document provider.
+     *
+     * @return List of configured folders
+     * @should return all values
+     */
+    public List<String> getSourceDocumentFolders() {
+        return getLocalList("sourceDocuments.folder", Collections.emptyList());
+    }
+
+    /**
+     * Maximum number of concurrent HTTP requests to the Goobi viewer. Streamed responses count against the limit until their headers have
+     * been received, not while their body is being read.
+     *
+     * @return Configured value; 20 if none configured
+     * @should return correct value
+     */
+    public int getSourceDocumentMaxConnections() {
+        return getLocalInt("sourceDocuments.maxConnections", 20);
+    }
+
+    /**
+     * Connect and request timeout in milliseconds for HTTP requests to the Goobi viewer.
+     *
+     * @return Configured value; 10000 if none configured
+     * @should return correct value
+     */
+    public long getSourceDocumentTimeout() {
+        return getLocalInt("sourceDocuments.timeout", 10000);
+    }
+
+    /**
+     * Number of retries after failed HTTP requests to the Goobi viewer.
+     *
+     * @return Configured value; 2 if none configured
+     * @should return correct value
+     */
+    public int getSourceDocumentRetries() {
+        return getLocalInt("sourceDocuments.retries", 2);
+    }
+
+    /**
+     * Maximum size in megabytes of the in-memory cache of TEI/CMDI documents retrieved from the Goobi viewer, which are revalidated with
+     * conditional requests.
+     *
+     * @return Configured value; 32 if none configured; 0 disables the cache
+     * @should return correct value
+     */
+    public int getSourceDocumentCacheSize() {
+        return getLocalInt("sourceDocuments.cacheSize", 32);
+    }
+
+    /**
+     * Maximum number of documents retrieved concurrently for a single OAI-PMH response.
+     *
+     * @return Configured value; 4 if none configured
+     * @should return correct value
+     */
+    public int getSourceDocumentParallelFetches() {
+        return getLocalInt("sourceDocuments.parallelFetches", 4);
+    }
+
+    /**
+     * Whether a local copy of all update timestamps is kept to answer selective harvests for date ranges without changes.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isChangeIndexEnabled() {
+        return getLocalBoolean("changeIndex.enabled", false);
+    }
+
+    /**
+     * Interval in milliseconds between two refreshes of the change index.
+     *
+     * @return Configured value; 60000 if none configured
+     * @should return correct value
+     */
+    public long getChangeIndexRefreshInterval() {
+        return getLocalInt("changeIndex.refreshInterval", 60000);
+    }
+
+    /**
+     * Whether complete record sets are periodically written into downloadable dump files.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isDumpsEnabled() {
+        return getLocalBoolean("dumps.enabled", false);
+    }
+
+    /**
+     * Folder in which dump files are stored, one subfolder per metadataPrefix.
+     *
+     * @return Configured value; /opt/digiverso/viewer/oai/dumps/ if none configured
+     * @should return correct value
+     */
+    public String getDumpFolder() {
+        return getLocalString("dumps.folder", "/opt/digiverso/viewer/oai/dumps/");
+    }
+
+    /**
+     * Interval in milliseconds between two dump updates.
+     *
+     * @return Configured value; 86400000 if none configured
+     * @should return correct value
+     */
+    public long getDumpInterval() {
+        return getLocalInt("dumps.interval", 86400000);
+    }
+
+    /**
+     * Number of records per dump file.
+     *
+     * @return Configured value; 1000 if none configured
+     * @should return correct value
+     */
+    public int getDumpRecordsPerFile() {
+        return getLocalInt("dumps.recordsPerFile", 1000);
+    }
+
+    /**
+     * Whether the next page of a list request is rendered in the background as soon as its resumption token has been issued.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isPrefetchEnabled() {
+        return getLocalBoolean("prefetch.enabled", false);
+    }
+
+    /**
+     * Maximum number of prefetched pages held in memory (including pages still being rendered).
+     *
+     * @return Configured value; 20 if none configured
+     * @should return correct value
+     */
+    public int getPrefetchMaxPages() {
+        return getLocalInt("prefetch.maxPages", 20);
+    }
+
+    /**
+     * Maximum estimated size in bytes of all rendered prefetched pages held in memory, measured as their serialized size.
+     *
+     * @return Configured value; 52428800 if none configured
+     * @should return correct value
+     */
+    public long getPrefetchMaxBytes() {
+        return getLocalInt("prefetch.maxBytes", 52428800);
+    }
+
+    /**
+     * Time in milliseconds after which a prefetched page that has not been requested is discarded.
+     *
+     * @return Configured value; 120000 if none configured
+     * @should return correct value
+     */
+    public long getPrefetchTtl() {
+        return getLocalInt("prefetch.ttl", 120000);
+    }
+
+    /**
+     * Whether responses are written without indentation, leaving the whitespace of embedded documents untouched.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isOutputCompact() {
+        return getLocalBoolean("output.compact", false);
+    }
+
+    /**
+     * Whether the metrics endpoint is enabled.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isMetricsEnabled() {
+        return getLocalBoolean("metrics.enabled", false);
+    }
+
+    /**
+     * Client addresses that may read the metrics endpoint.
+     *
+     * @return Configured values; local host addresses if none configured
+     * @should return all values
+     */
+    public List<String> getMetricsAllowedAddresses() {
+        return getLocalList("metrics.allowedAddress", Arrays.asList("127.0.0.1", "0:0:0:0:0:0:0:1"));
+    }
+
+    /**
+     * Whether per-request phase timings are returned as a <code>Server-Timing</code> header to allowed clients.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isTracingEnabled() {
+        return getLocalBoolean("tracing.enabled", false);
+    }
+
+    /**
+     * Client addresses that receive per-request phase timings.
+     *
+     * @return Configured values; local host addresses if none configured
+     * @should return all values
+     */
+    public List<String> getTracingAllowedAddresses() {
+        return getLocalList("tracing.allowedAddress", Arrays.asList("127.0.0.1", "0:0:0:0:0:0:0:1"));
+    }
+
+    /**
+     * Whether the phase timings of traced requests are also logged.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isTracingLogEnabled() {
+        return getLocalBoolean("tracing.log", false);
+    }
+
+    /**
+     * Whether OAI-PMH and SRU requests are processed asynchronously on virtual threads.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isAsyncEnabled() {
+        return getLocalBoolean("async.enabled", false);
+    }
+
+    /**
+     * Maximum number of concurrently processed asynchronous requests for the given OAI verb or SRU operation.
+     *
+     * @param key OAI verb or SRU operation
+     * @return Configured value for the given key; default limit if none configured
+     * @should return configured value for key
+     * @should return default limit if key not configured
+     */
+    public int getAsyncConcurrencyLimit(String key) {
+        return getLocalInt("async.limits." + key, getLocalInt("async.defaultLimit", 0));
+    }
+
+    /**
+     * Maximum time an asynchronous request waits for a free slot before it is rejected.
+     *
+     * @return Configured value in milliseconds; 30000 if none configured
+     * @should return correct value
+     */
+    public long getAsyncQueueTimeout() {
+        return getLocalInt("async.queueTimeout", 30000);
+    }
+
+    /**
+     * Whether OAI-PMH requests are subject to per-client admission control.
+     *
+     * @return Configured value; false if none configured
+     * @should return correct value
+     */
+    public boolean isAdmissionControlEnabled() {
+        return getLocalBoolean("admission.enabled", false);
+    }
+
+    /**
+     * Rate at which the token bucket of a client refills.
+     *
+     * @return Configured value; 120 if none configured
+     * @should return correct value
+     */
+    public int getAdmissionRequestsPerMinute() {
+        return getLocalInt("admission.requestsPerMinute", 120);
+    }
+
+    /**
+     * Token bucket capacity, i.e. the number of light requests a client may issue in a burst.
+     *
+     * @return Configured value; 20 if none configured
+     * @should return correct value
+     */
+    public int getAdmissionBurst() {
+        return getLocalInt("admission.burst", 20);
+    }
+
+    /**
+     * Maximum number of requests per client and cost class in flight.
+     *
+     * @return Configured value; 2 if none configured
+     * @should return correct value
+     */
+    public int getAdmissionMaxInFlight() {
+        return getLocalInt("admission.maxInFlight", 2);
+    }
+
+    /**
+     * Number of tokens a request for a heavy metadata format costs. Values above the burst size are capped at the burst size when applied.
+     *
+     * @return Configured value; 5 if none configured
+     * @should return correct value
+     */
+    public int getAdmissionHeavyCost() {
+        return getLocalInt("admission.heavyCost", 5);
+    }
+
+    /**
+     * Addresses of reverse proxies whose <code>X-Forwarded-For</code> header identifies the client for admission control. For requests from
+     * any other address, the header is ignored, since clients could otherwise evade their limits by sending a different value each time.
+     *
+     * @return Configured values; empty list if none configured
+     * @should return all values
+     */
+    public List<String> getAdmissionTrustedProxies() {
+        return getLocalList("admission.trustedProxy", Collections.emptyList());
+    }
+
+    /**
+     * metadataPrefixes whose records are rendered from source documents and therefore are expensive to harvest.
+     *
+     * @return Configured values; formats that fetch source documents if none configured
+     * @should return all values
+     */
+    public List<String> getAdmissionHeavyMetadataPrefixes() {
+        return getLocalList("admission.heavyMetadataPrefix", Arrays.asList("mets", "marcxml", "lido", "tei", "cmdi"));
+    }
+
     /**
      * Returns mappings for the ESE "type" element.
      *
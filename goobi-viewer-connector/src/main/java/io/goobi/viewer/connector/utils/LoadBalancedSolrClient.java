@@ -0,0 +1,74 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.Http2SolrClient;
+import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
+import org.apache.solr.client.solrj.impl.LBSolrClient;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Round-robin client for several Solr replicas of the same core. Unreachable replicas are skipped until an alive check succeeds again.
+ * Owns the shared HTTP client, which {@link LBHttp2SolrClient} does not close by itself.
+ */
+class LoadBalancedSolrClient extends SolrClient {
+
+    private static final long serialVersionUID = 3262493167464283614L;
+
+    /** Interval of alive checks for replicas that have failed */
+    private static final int ALIVE_CHECK_INTERVAL_SECONDS = 30;
+
+    private final transient Http2SolrClient httpClient;
+    private final transient LBHttp2SolrClient lbClient;
+
+    /**
+     * Constructor.
+     *
+     * @param solrUrls Full core URLs of all replicas
+     * @param timeoutMillis Socket timeout
+     */
+    LoadBalancedSolrClient(List<String> solrUrls, int timeoutMillis) {
+        this.httpClient = new Http2SolrClient.Builder().withIdleTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .withConnectionTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+        LBSolrClient.Endpoint[] endpoints = solrUrls.stream().map(LBSolrClient.Endpoint::new).toArray(LBSolrClient.Endpoint[]::new);
+        this.lbClient = new LBHttp2SolrClient.Builder(httpClient, endpoints).setAliveCheckInterval(ALIVE_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NamedList<Object> request(SolrRequest<?> request, String collection) throws SolrServerException, IOException {
+        return lbClient.request(request, collection);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        try {
+            lbClient.close();
+        } finally {
+            httpClient.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs {@link SolrSearchIndex#checkReloadNeeded()} periodically on a background thread, so that configuration changes, broken clients and
+ * an unavailable index (as well as its recovery) are detected without request threads having to ping Solr or run into timeouts.
+ */
+public class SolrHealthChecker implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(SolrHealthChecker.class);
+
+    private final SolrSearchIndex searchIndex;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "solr-health-check");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Constructor.
+     *
+     * @param searchIndex {@link SolrSearchIndex} to check
+     */
+    public SolrHealthChecker(SolrSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Starts periodic checks.
+     *
+     * @param intervalMillis Interval between two checks
+     */
+    public void start(long intervalMillis) {
+        scheduler.scheduleWithFixedDelay(this::check, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks Solr once.
+     */
+    void check() {
+        try {
+            searchIndex.checkReloadNeeded();
+        } catch (RuntimeException e) {
+            // An uncaught exception would cancel all further executions
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
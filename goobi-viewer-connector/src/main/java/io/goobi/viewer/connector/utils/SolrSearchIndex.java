@@ -22,10 +22,27 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -33,15 +50,23 @@ import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
+import org.apache.solr.client.solrj.impl.CloudHttp2SolrClient;
 import org.apache.solr.client.solrj.impl.Http2SolrClient;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.FacetField.Count;
 import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.client.solrj.response.json.BucketJsonFacet;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
 
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.controller.StringTools;
 import io.goobi.viewer.exceptions.IndexUnreachableException;
 import io.goobi.viewer.model.search.SearchHelper;
@@ -62,19 +87,50 @@ public class SolrSearchIndex implements Closeable {
 
     /** Constant <code>MAX_HITS=Integer.MAX_VALUE</code> */
     public static final int MAX_HITS = Integer.MAX_VALUE;
-    private static final int TIMEOUT_SO = 300000;
-    private static final int TIMEOUT_CONNECTION = 300000;
-    private static final int RETRY_ATTEMPTS = 20;
+    /** Executes hedged requests */
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    /** Maximum number of cached anchor titles before the cache is reset */
+    private static final int ANCHOR_TITLE_CACHE_SIZE = 10000;
+    /** Maximum number of cached latest volume timestamps before the cache is reset */
+    private static final int LATEST_VOLUME_TIMESTAMP_CACHE_SIZE = 10000;
+    /** Time in milliseconds after which a cached latest volume timestamp is determined again, so that new volumes are picked up */
+    static final long LATEST_VOLUME_TIMESTAMP_CACHE_TTL = 10 * 60 * 1000L;
+    private static final String FACET_ANCHORS = "anchors";
+    private static final String FACET_LATEST = "latest";
 
     private static final String PARAM_FROM = "from";
     private static final String PARAM_UNTIL = "until";
     private static final String PARAM_SET = "set";
     private static final String PARAM_METADATA_PREFIX = "metadataPrefix";
+    private static final String PARAM_SHARDS_PREFERENCE = "shards.preference";
 
-    private long lastPing = 0;
+    /** Goobi workflow process ID */
+    public static final String FIELD_PROCESSID = "MD_PROCESSID";
 
-    private SolrClient client;
+    private volatile long lastPing = 0;
+
+    /** Current client; replaced atomically, closed once the last lease has been returned */
+    private final AtomicReference<ClientLease> clientLease = new AtomicReference<>();
+    /** Client for a second replica that receives hedged requests; null if hedging is disabled */
+    private SolrClient hedgeClient;
     private boolean testMode;
+    private final CircuitBreaker circuitBreaker;
+    private SolrHealthChecker healthChecker;
+    /** Local copy of all update timestamps for answering empty date ranges; null if disabled */
+    private ChangeIndex changeIndex;
+    /** Anchor titles by IDDOC and filter query suffix, shared by all requests */
+    private final Map<String, String> anchorTitleCache = new ConcurrentHashMap<>();
+    /** Latest volume DATEUPDATED values by anchor IDDOC, until timestamp and filter query suffix */
+    private final Map<String, CachedTimestamp> latestVolumeTimestampCache = new ConcurrentHashMap<>();
+
+    /**
+     * Cached latest volume timestamp.
+     * 
+     * @param timestamp Latest volume DATEUPDATED value; -1 if none
+     * @param expires Time in milliseconds after which the value must be determined again
+     */
+    private record CachedTimestamp(long timestamp, long expires) {
+    }
 
     /**
      * <p>
@@ -85,104 +141,405 @@ public class SolrSearchIndex implements Closeable {
      * @param testMode a boolean.
      */
     public SolrSearchIndex(SolrClient client, boolean testMode) {
+        Configuration config = DataManager.getInstance().getConfiguration();
         this.testMode = testMode;
+        this.circuitBreaker =
+                new CircuitBreaker("Solr", config.getSolrCircuitBreakerFailureThreshold(), config.getSolrCircuitBreakerOpenInterval());
         if (client == null) {
-            if (StringUtils.isEmpty(DataManager.getInstance().getConfiguration().getIndexUrl())) {
+            if (StringUtils.isEmpty(config.getIndexUrl())) {
                 logger.error("Solr URL is not configured. Cannot instantiate the OAI-PMH interface.");
                 return;
             }
-            this.client = getNewSolrClient(DataManager.getInstance().getConfiguration().getIndexUrl());
+            this.clientLease.set(new ClientLease(createSolrClient(config), getClientSignature(config)));
         } else {
-            this.client = client;
+            this.clientLease.set(new ClientLease(client, getClientSignature(config)));
+        }
+        if (!testMode) {
+            if (StringUtils.isNotEmpty(config.getSolrHedgeUrl())) {
+                this.hedgeClient = getNewSolrClient(config.getSolrHedgeUrl());
+            }
+            this.healthChecker = new SolrHealthChecker(this);
+            this.healthChecker.start(getCheckInterval(config));
+            if (config.isChangeIndexEnabled()) {
+                this.changeIndex = new ChangeIndex(this);
+                this.changeIndex.start(config.getChangeIndexRefreshInterval());
+            }
         }
     }
 
     @Override
     public void close() throws IOException {
-        if (client != null) {
-            client.close();
+        if (healthChecker != null) {
+            healthChecker.close();
+        }
+        if (changeIndex != null) {
+            changeIndex.close();
+        }
+        if (hedgeClient != null) {
+            hedgeClient.close();
+        }
+        ClientLease lease = clientLease.getAndSet(null);
+        if (lease != null) {
+            lease.close();
         }
     }
 
     /**
-     * Checks whether the server's configured URL matches that in the config file. If not, a new server instance is created.
+     * Checks whether the configured Solr setup has changed or the client has become unusable (ping fails) and replaces the client if so.
+     * Called periodically by the {@link SolrHealthChecker} rather than on request threads; the ping outcome is reported to the circuit
+     * breaker.
      *
      * @should create new client if solr url changed
      * @should ping server if last ping too old
      */
     public void checkReloadNeeded() {
-        if (testMode || !(client instanceof Http2SolrClient)) {
+        ClientLease current = clientLease.get();
+        if (testMode || current == null) {
             return;
         }
 
-        String baseUrl = ((Http2SolrClient) client).getBaseURL();
-        if (!DataManager.getInstance().getConfiguration().getIndexUrl().equals(baseUrl)) {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        String signature = getClientSignature(config);
+        if (!signature.equals(current.signature)) {
             // Re-init Solr client if the configured Solr URL has been changed
             logger.info("Solr URL has changed, re-initializing Solr client...");
-            synchronized (this) {
-                try {
-                    client.close();
-                } catch (IOException e) {
-                    logger.error(e.getMessage());
-                }
-                client = getNewSolrClient(DataManager.getInstance().getConfiguration().getIndexUrl());
+            swapClient(current, createSolrClient(config), signature);
+            if (changeIndex != null) {
+                changeIndex.reset();
             }
-        } else if (lastPing == 0 || System.currentTimeMillis() - lastPing > 60000) {
-            // Check whether the HTTP connection pool of the Solr client has been shut down and re-init
+        } else if (lastPing == 0 || System.currentTimeMillis() - lastPing >= getCheckInterval(config)) {
             try {
-                client.ping();
-            } catch (IOException | SolrServerException e) {
-                logger.warn("HTTP client was closed, re-initializing Solr client...");
-                synchronized (this) {
-                    try {
-                        client.close();
-                    } catch (IOException e1) {
-                        logger.error(e1.getMessage());
-                    }
-                    client = getNewSolrClient(DataManager.getInstance().getConfiguration().getIndexUrl());
+                ping();
+                if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+                    logger.info("Solr ping successful again.");
                 }
+                circuitBreaker.recordSuccess();
+            } catch (IOException | SolrServerException | RuntimeException e) {
+                // The HTTP connection pool of the Solr client may have been shut down
+                logger.warn("Solr ping failed ({}), re-initializing Solr client...", e.getMessage());
+                circuitBreaker.recordFailure();
+                swapClient(current, createSolrClient(config), signature);
             }
             lastPing = System.currentTimeMillis();
         }
     }
 
+    /**
+     * 
+     * @param config
+     * @return Configured health check interval; 60 seconds if health checks are disabled (configuration changes are still picked up)
+     */
+    private static long getCheckInterval(Configuration config) {
+        long interval = config.getSolrHealthCheckInterval();
+        return interval > 0 ? interval : 60000;
+    }
+
+    /**
+     * Pings Solr with the current client. The ping runs on its own thread and is abandoned after the configured ping timeout, so that an
+     * unresponsive Solr does not block the health checker for the full socket timeout.
+     *
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    void ping() throws SolrServerException, IOException {
+        long timeout = DataManager.getInstance().getConfiguration().getSolrPingTimeout();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try (ClientLease lease = leaseClient()) {
+                lease.getClient().ping();
+            }
+            return null;
+        });
+        Thread.ofVirtual().name("solr-ping").start(task);
+        try {
+            task.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            throw new SolrServerException("Ping timed out after " + timeout + " ms");
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Ping interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SolrServerException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new SolrServerException(e.getCause());
+        }
+    }
+
+    /**
+     * Replaces the given client, unless it has already been replaced by another thread. The old client is closed as soon as all queries
+     * using it have finished.
+     * 
+     * @param expected Client to replace
+     * @param newClient
+     * @param signature Configuration signature of the new client
+     */
+    private void swapClient(ClientLease expected, SolrClient newClient, String signature) {
+        ClientLease replacement = new ClientLease(newClient, signature);
+        if (clientLease.compareAndSet(expected, replacement)) {
+            expected.close();
+        } else {
+            replacement.close();
+        }
+    }
+
+    /**
+     * Borrows the current client. The returned lease must be closed after use.
+     * 
+     * @return {@link ClientLease}
+     * @throws SolrServerException if no client is available
+     * @should keep replaced client open until lease closed
+     */
+    ClientLease leaseClient() throws SolrServerException {
+        while (true) {
+            ClientLease ret = clientLease.get();
+            if (ret == null) {
+                throw new SolrServerException("Solr client is not initialized");
+            }
+            if (ret.retain()) {
+                return ret;
+            }
+            // Lease was replaced and closed in the meantime, try the new one
+        }
+    }
+
+    /**
+     * 
+     * @param config
+     * @return String that changes whenever a configuration change requires a new Solr client
+     */
+    static String getClientSignature(Configuration config) {
+        return config.getIndexUrl() + '|' + config.getSolrReplicaUrls() + '|' + config.getSolrCloudUrls() + '|'
+                + config.getSolrCloudCollection();
+    }
+
     /**
      * 
      * @param solrUrl
      * @return New {@link SolrClient}
      */
     public static SolrClient getNewSolrClient(String solrUrl) {
-        return SolrTools.newSolrClient(solrUrl, TIMEOUT_SO);
+        return SolrTools.newSolrClient(solrUrl, DataManager.getInstance().getConfiguration().getSolrTimeout());
+    }
+
+    /**
+     * Creates a client for the configured Solr setup: a SolrCloud client if cluster URLs are configured, a load balancing client if replica
+     * URLs are configured, otherwise a client for the single configured Solr URL.
+     * 
+     * @param config
+     * @return New {@link SolrClient}
+     * @should create load balanced client if replicas configured
+     */
+    public static SolrClient createSolrClient(Configuration config) {
+        if (!config.getSolrCloudUrls().isEmpty()) {
+            logger.info("Using SolrCloud cluster {}, collection {}", config.getSolrCloudUrls(), config.getSolrCloudCollection());
+            Http2SolrClient.Builder httpClientBuilder =
+                    new Http2SolrClient.Builder().withIdleTimeout(config.getSolrTimeout(), TimeUnit.MILLISECONDS)
+                            .withConnectionTimeout(config.getSolrTimeout(), TimeUnit.MILLISECONDS);
+            return new CloudHttp2SolrClient.Builder(config.getSolrCloudUrls()).withDefaultCollection(config.getSolrCloudCollection())
+                    .withInternalClientBuilder(httpClientBuilder)
+                    .build();
+        }
+        if (!config.getSolrReplicaUrls().isEmpty()) {
+            List<String> solrUrls = new ArrayList<>(config.getSolrReplicaUrls().size() + 1);
+            solrUrls.add(config.getIndexUrl());
+            solrUrls.addAll(config.getSolrReplicaUrls());
+            logger.info("Using Solr replicas {}", solrUrls);
+            return new LoadBalancedSolrClient(solrUrls, config.getSolrTimeout());
+        }
+
+        return getNewSolrClient(config.getIndexUrl());
+    }
+
+    /**
+     * Once the open interval of the circuit breaker has passed, requests are let through again so that the first query can serve as the
+     * trial call; recovery therefore does not depend on the background health check alone.
+     * 
+     * @return true if Solr queries are currently attempted; false if they fail fast because Solr is considered unavailable
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isRequestAllowed();
+    }
+
+    /**
+     * 
+     * @return Seconds until Solr queries are attempted again (the time left in the open interval of the circuit breaker), for
+     *         <code>Retry-After</code> headers (at least 1)
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.getRetryAfterMillis() + 999));
     }
 
     /**
-     * Attempts multiple times to query the Solr client with the given query.
+     * 
+     * @return Number of attempts for each query
+     */
+    private static int getMaxTries() {
+        return DataManager.getInstance().getConfiguration().getSolrRetries() + 1;
+    }
+
+    /**
+     * Attempts multiple times to query the Solr client with the given query. Retryable failures (timeouts, connection problems) are retried
+     * after a jittered, exponentially growing delay. Queries fail fast while the circuit breaker is open.
      * 
      * @param solrQuery Readily built SolrQuery object
      * @param maxTries Number of attempts to query Solr before giving up
      * @return {@link QueryResponse}
      * @throws SolrServerException
      * @throws IOException
+     * @should fail fast if circuit open
      */
     QueryResponse querySolr(SolrQuery solrQuery, final int maxTries) throws SolrServerException, IOException {
         if (solrQuery == null) {
             throw new IllegalArgumentException("solrQuery may not be null");
         }
+        if (!circuitBreaker.allowRequest()) {
+            throw new SolrServerException("Solr is unavailable, retry in " + circuitBreaker.getRetryAfterMillis() + " ms");
+        }
 
-        int tries = maxTries;
-        while (tries > 0) {
-            tries--;
-            try {
-                return client.query(solrQuery);
-            } catch (SolrServerException e) {
-                if (tries == 0 || !(e.getMessage().toLowerCase().contains("timeout") || e.getMessage().toLowerCase().contains("timed out"))) {
-                    throw e;
+        Configuration config = DataManager.getInstance().getConfiguration();
+        if (StringUtils.isNotEmpty(config.getSolrShardsPreference()) && solrQuery.get(PARAM_SHARDS_PREFERENCE) == null) {
+            solrQuery.set(PARAM_SHARDS_PREFERENCE, config.getSolrShardsPreference());
+        }
+        long start = System.nanoTime();
+        int retries = 0;
+        try {
+            while (true) {
+                try {
+                    QueryResponse ret = executeQuery(solrQuery);
+                    circuitBreaker.recordSuccess();
+                    return ret;
+                } catch (SolrServerException | IOException e) {
+                    boolean retryable = isRetryable(e);
+                    if (retries + 1 >= maxTries || !retryable) {
+                        if (retryable) {
+                            circuitBreaker.recordFailure();
+                        }
+                        throw e;
+                    }
+                    retries++;
+                    long delay = getBackoffMillis(retries, config.getSolrRetryBackoff(), config.getSolrRetryBackoffMax());
+                    logger.warn("Solr query failed ({}), retry {}/{} in {} ms", e.getMessage(), retries, maxTries - 1, delay);
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e1) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            DataManager.getInstance().getMetrics().recordSolrQuery(System.nanoTime() - start, retries);
+        }
+    }
+
+    /**
+     * Sends the given query to Solr. If a hedge client is configured and the primary client has not answered within the hedge delay (or
+     * failed), the query is also sent to the hedge client and the first successful response is used.
+     * 
+     * @param solrQuery
+     * @return {@link QueryResponse}
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    private QueryResponse executeQuery(SolrQuery solrQuery) throws SolrServerException, IOException {
+        SolrClient hedge = hedgeClient;
+        long hedgeDelay = DataManager.getInstance().getConfiguration().getSolrHedgeDelay();
+        if (hedge == null || hedgeDelay <= 0) {
+            try (ClientLease lease = leaseClient()) {
+                return lease.getClient().query(solrQuery);
+            }
+        }
+
+        CompletionService<QueryResponse> completionService = new ExecutorCompletionService<>(HEDGE_EXECUTOR);
+        List<Future<QueryResponse>> futures = new ArrayList<>(2);
+        futures.add(completionService.submit(() -> {
+            try (ClientLease lease = leaseClient()) {
+                return lease.getClient().query(solrQuery);
+            }
+        }));
+        Throwable failure = null;
+        try {
+            int pending = 1;
+            Future<QueryResponse> done = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (done != null) {
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
                 }
-                logger.error(e.getMessage());
             }
+            logger.debug("Sending hedged Solr request: {}", solrQuery.getQuery());
+            futures.add(completionService.submit(() -> hedge.query(solrQuery)));
+            pending++;
+            while (pending > 0) {
+                done = completionService.take();
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolrServerException("Interrupted while waiting for Solr", e);
+        } finally {
+            for (Future<QueryResponse> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        if (failure instanceof SolrServerException sse) {
+            throw sse;
+        }
+        if (failure instanceof IOException ioe) {
+            throw ioe;
+        }
+        if (failure instanceof RuntimeException re) {
+            throw re;
         }
+        throw new SolrServerException(failure);
+    }
+
+    /**
+     * 
+     * @param e
+     * @return true if the given exception indicates a transient problem (timeout, connection failure); false otherwise
+     * @should return true for timeouts
+     * @should return true for connection problems
+     * @should return false for other errors
+     */
+    static boolean isRetryable(Exception e) {
+        if (e instanceof IOException || e.getCause() instanceof IOException) {
+            return true;
+        }
+        String message = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
+        return message.contains("timeout") || message.contains("timed out");
+    }
 
-        return new QueryResponse();
+    /**
+     * Exponential backoff with "equal jitter": half of the exponential delay plus a random share of the other half.
+     * 
+     * @param retry Number of the retry (starting with 1)
+     * @param initialMillis Delay before the first retry
+     * @param maxMillis Maximum delay
+     * @return Delay in milliseconds
+     * @should grow exponentially
+     * @should not exceed max
+     */
+    public static long getBackoffMillis(int retry, long initialMillis, long maxMillis) {
+        long exponential = Math.min(maxMillis, initialMillis << Math.min(retry - 1, 30));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(exponential - half + 1);
     }
 
     /**
@@ -205,7 +562,7 @@ public class SolrSearchIndex implements Closeable {
         // logger.trace("search: {}", finalQuery); //NOSONAR Debug
         solrQuery.setRows(MAX_HITS);
 
-        return querySolr(solrQuery, RETRY_ATTEMPTS).getResults();
+        return querySolr(solrQuery, getMaxTries()).getResults();
     }
 
     /**
@@ -226,13 +583,39 @@ public class SolrSearchIndex implements Closeable {
      */
     public QueryResponse search(String query, int first, int rows, List<String> sortFields, List<String> fieldList, Map<String, String> params)
             throws SolrServerException, IOException {
+        List<SortClause> sortClauses = null;
+        if (sortFields != null && !sortFields.isEmpty()) {
+            sortClauses = new ArrayList<>(sortFields.size());
+            for (String sortField : sortFields) {
+                sortClauses.add(SortClause.asc(sortField));
+            }
+        }
+
+        return searchSorted(query, first, rows, sortClauses, fieldList, params);
+    }
+
+    /**
+     * Pure Solr search method with explicit sort directions.
+     *
+     * @param query {@link java.lang.String}
+     * @param first {@link java.lang.Integer}
+     * @param rows {@link java.lang.Integer}
+     * @param sortClauses Sort clauses, applied in the given order
+     * @param fieldList If not null, only the fields in the list will be returned.
+     * @param params Additional query parameters.
+     * @return {@link org.apache.solr.client.solrj.response.QueryResponse}
+     * @throws org.apache.solr.client.solrj.SolrServerException
+     * @throws IOException
+     */
+    public QueryResponse searchSorted(String query, int first, int rows, List<SortClause> sortClauses, List<String> fieldList,
+            Map<String, String> params) throws SolrServerException, IOException {
         SolrQuery solrQuery = new SolrQuery(query);
         solrQuery.setStart(first);
         solrQuery.setRows(rows - first);
 
-        if (sortFields != null && !sortFields.isEmpty()) {
-            for (String sortField : sortFields) {
-                solrQuery.addSort(sortField, ORDER.asc);
+        if (sortClauses != null && !sortClauses.isEmpty()) {
+            for (SortClause sortClause : sortClauses) {
+                solrQuery.addSort(sortClause);
             }
         }
         if (fieldList != null && !fieldList.isEmpty()) {
@@ -248,7 +631,78 @@ public class SolrSearchIndex implements Closeable {
             }
         }
 
-        return querySolr(solrQuery, RETRY_ATTEMPTS);
+        return querySolr(solrQuery, getMaxTries());
+    }
+
+    /**
+     * Runs the given query and passes each hit to the given consumer as soon as it has been decoded from the response, instead of collecting all
+     * hits in a {@link SolrDocumentList} first. Meant for queries whose number of hits is not bounded by a page size (e.g. all pages of a record).
+     * Since documents may already have been consumed when the request fails, failed requests are not retried.
+     *
+     * @param query Solr query
+     * @param sortFields Fields to sort by (ascending)
+     * @param fieldList If not null, only the fields in the list will be returned
+     * @param consumer Consumer for the hits; called in the order of the result
+     * @return Number of documents passed to the consumer
+     * @throws SolrServerException
+     * @throws IOException
+     * @should pass all hits to consumer
+     */
+    public long stream(String query, List<String> sortFields, List<String> fieldList, Consumer<SolrDocument> consumer)
+            throws SolrServerException, IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer may not be null");
+        }
+        if (!circuitBreaker.allowRequest()) {
+            throw new SolrServerException("Solr is unavailable, retry in " + circuitBreaker.getRetryAfterMillis() + " ms");
+        }
+
+        SolrQuery solrQuery = new SolrQuery(query);
+        solrQuery.setRows(MAX_HITS);
+        if (sortFields != null) {
+            for (String sortField : sortFields) {
+                solrQuery.addSort(SortClause.asc(sortField));
+            }
+        }
+        if (fieldList != null) {
+            for (String field : fieldList) {
+                if (StringUtils.isNotEmpty(field)) {
+                    solrQuery.addField(field);
+                }
+            }
+        }
+        Configuration config = DataManager.getInstance().getConfiguration();
+        if (StringUtils.isNotEmpty(config.getSolrShardsPreference())) {
+            solrQuery.set(PARAM_SHARDS_PREFERENCE, config.getSolrShardsPreference());
+        }
+
+        long[] count = { 0 };
+        long start = System.nanoTime();
+        try (ClientLease lease = leaseClient()) {
+            lease.getClient().queryAndStreamResponse(solrQuery, new StreamingResponseCallback() {
+
+                @Override
+                public void streamSolrDocument(SolrDocument doc) {
+                    consumer.accept(doc);
+                    count[0]++;
+                }
+
+                @Override
+                public void streamDocListInfo(long numFound, long start, Float maxScore) {
+                    logger.trace("Streaming {} hits", numFound);
+                }
+            });
+            circuitBreaker.recordSuccess();
+        } catch (SolrServerException | IOException e) {
+            if (isRetryable(e)) {
+                circuitBreaker.recordFailure();
+            }
+            throw e;
+        } finally {
+            DataManager.getInstance().getMetrics().recordSolrQuery(System.nanoTime() - start, 0);
+        }
+
+        return count[0];
     }
 
     /**
@@ -272,6 +726,10 @@ public class SolrSearchIndex implements Closeable {
     public QueryResponse search(String from, String until, String setSpec, String metadataPrefix, int firstRow, int numRows, boolean urnOnly,
             String additionalQuery, String filterQuerySuffix, List<String> fieldList, List<String> fieldStatistics)
             throws IOException, SolrServerException {
+        if ((fieldStatistics == null || fieldStatistics.isEmpty()) && isDateRangeEmpty(from, until, setSpec, metadataPrefix, additionalQuery)) {
+            logger.debug("No changes between {} and {}, skipping OAI query", from, until);
+            return createEmptyResponse();
+        }
         StringBuilder sbQuery = new StringBuilder(SolrSearchTools.buildQueryString(from, until, setSpec, metadataPrefix, urnOnly, additionalQuery));
         if (urnOnly) {
             sbQuery.append(" +(").append(SolrConstants.URN).append(":* ").append(SolrConstants.IMAGEURN_OAI).append(":*)");
@@ -296,13 +754,80 @@ public class SolrSearchIndex implements Closeable {
             }
         }
 
-        QueryResponse resp = querySolr(solrQuery, RETRY_ATTEMPTS);
+        QueryResponse resp = querySolr(solrQuery, getMaxTries());
         logger.debug("Total hits (Solr only): {}, fetched records {} - {}", resp.getResults().getNumFound(), firstRow,
                 firstRow + resp.getResults().size() - 1);
 
         return resp;
     }
 
+    /**
+     * Checks whether the change index shows that nothing listed by OAI-PMH has been updated or deleted in the requested from/until range. Only
+     * applies where the range restricts the standard OAI query; custom set queries, additional docstruct queries and formats without date ranges
+     * are never considered empty. The part of the range that lies beyond the loaded data (always the case for harvests without
+     * <code>until</code>) is checked with a count query, which is much cheaper than the list query itself.
+     * 
+     * @param from
+     * @param until
+     * @param setSpec
+     * @param metadataPrefix
+     * @param additionalQuery Additional query clause of the format
+     * @return true if the date range is known to match nothing; false otherwise
+     * @should return true if no change in range
+     * @should return false if change in range
+     * @should return false if additional query set
+     * @should check tail in solr if until missing
+     */
+    boolean isDateRangeEmpty(String from, String until, String setSpec, String metadataPrefix, String additionalQuery) {
+        if (changeIndex == null || (from == null && until == null) || Metadata.IV_OVERVIEWPAGE.getMetadataPrefix().equals(metadataPrefix)
+                || Metadata.IV_CROWDSOURCING.getMetadataPrefix().equals(metadataPrefix)) {
+            return false;
+        }
+        // Additional docstructs extend the standard query with documents that are not in the change index
+        if (StringUtils.isNotEmpty(additionalQuery)) {
+            return false;
+        }
+        // Additional sets replace the standard query, so their hits are not necessarily in the change index
+        if (setSpec != null
+                && DataManager.getInstance().getConfiguration().getAdditionalSets().stream().anyMatch(s -> s.getSetSpec().equals(setSpec))) {
+            return false;
+        }
+        long fromTimestamp = RequestHandler.getFromTimestamp(from);
+        long untilTimestamp = RequestHandler.getUntilTimestamp(until);
+        if (fromTimestamp == untilTimestamp) {
+            untilTimestamp += 999;
+        }
+        long coveredUntil = changeIndex.getCoveredUntil();
+        if (coveredUntil < 0 || fromTimestamp > untilTimestamp) {
+            return false;
+        }
+        if (untilTimestamp <= coveredUntil) {
+            return changeIndex.isEmpty(fromTimestamp, untilTimestamp);
+        }
+        // Clamp to the loaded data and check the remaining tail in Solr
+        if (fromTimestamp <= coveredUntil && !changeIndex.isEmpty(fromTimestamp, coveredUntil)) {
+            return false;
+        }
+        try {
+            return changeIndex.isEmptyInSolr(Math.max(fromTimestamp, coveredUntil + 1), untilTimestamp);
+        } catch (IOException | SolrServerException e) {
+            logger.warn("Could not check recent changes: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 
+     * @return {@link QueryResponse} without any hits
+     */
+    static QueryResponse createEmptyResponse() {
+        NamedList<Object> response = new NamedList<>();
+        response.add("response", new SolrDocumentList());
+        QueryResponse ret = new QueryResponse();
+        ret.setResponse(response);
+        return ret;
+    }
+
     /**
      * There is no difference between oai_dc or mets.
      *
@@ -433,7 +958,7 @@ public class SolrSearchIndex implements Closeable {
             }
         }
 
-        return querySolr(solrQuery, RETRY_ATTEMPTS).getResults();
+        return querySolr(solrQuery, getMaxTries()).getResults();
     }
 
     /**
@@ -454,7 +979,7 @@ public class SolrSearchIndex implements Closeable {
         solrQuery.setRows(0);
         solrQuery.addFacetField(field);
         logger.trace("Set query: {}", solrQuery.getQuery());
-        QueryResponse resp = querySolr(solrQuery, RETRY_ATTEMPTS);
+        QueryResponse resp = querySolr(solrQuery, getMaxTries());
 
         FacetField facetField = resp.getFacetField(field);
         if (facetField != null) {
@@ -487,6 +1012,10 @@ public class SolrSearchIndex implements Closeable {
      */
     public long getTotalHitNumber(Map<String, String> params, boolean urnOnly, String additionalQuery, List<String> fieldStatistics,
             String filterQuerySuffix) throws IOException, SolrServerException {
+        if (isDateRangeEmpty(params.get(PARAM_FROM), params.get(PARAM_UNTIL), params.get(PARAM_SET), params.get(PARAM_METADATA_PREFIX),
+                additionalQuery)) {
+            return 0;
+        }
         StringBuilder sbQuery = new StringBuilder(SolrSearchTools.buildQueryString(params.get(PARAM_FROM), params.get(PARAM_UNTIL),
                 params.get(PARAM_SET), params.get(PARAM_METADATA_PREFIX), urnOnly, additionalQuery));
         if (urnOnly) {
@@ -503,7 +1032,7 @@ public class SolrSearchIndex implements Closeable {
                 solrQuery.setGetFieldStatistics(field);
             }
         }
-        QueryResponse resp = querySolr(solrQuery, RETRY_ATTEMPTS);
+        QueryResponse resp = querySolr(solrQuery, getMaxTries());
         long num = resp.getResults().getNumFound();
         logger.debug("Total hits: {}", num);
         return num;
@@ -526,7 +1055,7 @@ public class SolrSearchIndex implements Closeable {
             solrQuery.setRows(1);
             solrQuery.addField(SolrConstants.DATECREATED);
             solrQuery.addSort(SolrConstants.DATECREATED, ORDER.asc);
-            QueryResponse resp = querySolr(solrQuery, RETRY_ATTEMPTS);
+            QueryResponse resp = querySolr(solrQuery, getMaxTries());
             if (!resp.getResults().isEmpty()) {
                 SolrDocument doc = resp.getResults().get(0);
                 if (doc.getFieldValue(SolrConstants.DATECREATED) != null) {
@@ -555,6 +1084,7 @@ public class SolrSearchIndex implements Closeable {
      * @return a long.
      * @throws IOException
      * @throws SolrServerException
+     * @should return -1 if doc not anchor
      */
     public long getLatestVolumeTimestamp(SolrDocument anchorDoc, long untilTimestamp, String filterQuerySuffix)
             throws SolrServerException, IOException {
@@ -562,27 +1092,118 @@ public class SolrSearchIndex implements Closeable {
             return -1;
         }
 
-        SolrDocumentList volumes = search(
-                SolrConstants.ISWORK + ":true AND " + SolrConstants.IDDOC_PARENT + ":" + (String) anchorDoc.getFieldValue(SolrConstants.IDDOC),
-                filterQuerySuffix);
-        if (volumes == null) {
-            return -1;
+        String iddoc = String.valueOf(anchorDoc.getFieldValue(SolrConstants.IDDOC));
+        return getLatestVolumeTimestamps(Collections.singletonList(iddoc), untilTimestamp, filterQuerySuffix).getOrDefault(iddoc, -1L);
+    }
+
+    /**
+     * Returns the latest DATEUPDATED value up to <code>untilTimestamp</code> of the volumes of each of the given anchors. The maximum is
+     * computed by Solr with a single faceted query for all anchors that are not yet in the cache. Cached values expire after
+     * {@link #LATEST_VOLUME_TIMESTAMP_CACHE_TTL} milliseconds, so that volumes added later are taken into account.
+     *
+     * @param anchorIddocs IDDOC values of the anchor documents
+     * @param untilTimestamp Upper bound for DATEUPDATED values; 0 for none
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return Map containing the latest volume timestamp for each given anchor, keyed by IDDOC; -1 for anchors without a valid timestamp
+     * @throws SolrServerException
+     * @throws IOException
+     * @should return latest volume timestamps correctly
+     * @should return empty map if iddocs empty
+     */
+    public Map<String, Long> getLatestVolumeTimestamps(Collection<String> anchorIddocs, long untilTimestamp, String filterQuerySuffix)
+            throws SolrServerException, IOException {
+        if (anchorIddocs == null || anchorIddocs.isEmpty()) {
+            return Collections.emptyMap();
         }
 
-        long latest = 0;
-        for (SolrDocument volume : volumes) {
-            long volumeTimestamp = SolrSearchTools.getLatestValidDateUpdated(volume, untilTimestamp);
-            if (latest < volumeTimestamp) {
-                latest = volumeTimestamp;
+        String suffix = filterQuerySuffix != null ? filterQuerySuffix : "";
+        String cacheKeySuffix = "|" + untilTimestamp + "|" + suffix;
+        long now = System.currentTimeMillis();
+        Map<String, Long> ret = new HashMap<>(anchorIddocs.size());
+        Set<String> missing = new HashSet<>();
+        for (String iddoc : anchorIddocs) {
+            if (StringUtils.isEmpty(iddoc)) {
+                continue;
+            }
+            CachedTimestamp cached = latestVolumeTimestampCache.get(iddoc + cacheKeySuffix);
+            if (cached != null && cached.expires() > now) {
+                ret.put(iddoc, cached.timestamp());
+            } else {
+                missing.add(iddoc);
             }
         }
+        DataManager.getInstance().getMetrics().recordCacheGets("latestVolumeTimestamps", ret.size(), missing.size());
+        if (missing.isEmpty()) {
+            return ret;
+        }
+
+        StringBuilder sbQuery = new StringBuilder().append('+')
+                .append(SolrConstants.ISWORK)
+                .append(":true +")
+                .append(SolrConstants.IDDOC_PARENT)
+                .append(":(")
+                // Explicit OR, since the index may use AND as its default operator
+                .append(String.join(" OR ", missing))
+                .append(')');
+        if (untilTimestamp > 0) {
+            sbQuery.append(" +").append(SolrConstants.DATEUPDATED).append(":[* TO ").append(untilTimestamp).append(']');
+        }
+        sbQuery.append(suffix);
+        SolrQuery solrQuery = new SolrQuery(sbQuery.toString());
+        solrQuery.setRows(0);
+        solrQuery.set("json.facet", "{" + FACET_ANCHORS + ":{type:terms,field:" + SolrConstants.IDDOC_PARENT + ",limit:-1,facet:{"
+                + FACET_LATEST + ":\"max(" + SolrConstants.DATEUPDATED + ")\"}}}");
+        logger.trace("latest volume timestamps query: {}", solrQuery.getQuery());
+        QueryResponse qr = querySolr(solrQuery, getMaxTries());
 
-        if (latest > 0) {
-            return latest;
+        Map<String, Long> found = new HashMap<>(missing.size());
+        if (qr.getJsonFacetingResponse() != null && qr.getJsonFacetingResponse().getBucketBasedFacets(FACET_ANCHORS) != null) {
+            for (BucketJsonFacet bucket : qr.getJsonFacetingResponse().getBucketBasedFacets(FACET_ANCHORS).getBuckets()) {
+                Object latest = bucket.getStatValue(FACET_LATEST);
+                if (latest instanceof Number n) {
+                    found.put(String.valueOf(bucket.getVal()), n.longValue());
+                }
+            }
         }
 
-        return -1;
+        if (latestVolumeTimestampCache.size() > LATEST_VOLUME_TIMESTAMP_CACHE_SIZE) {
+            latestVolumeTimestampCache.clear();
+        }
+        for (String iddoc : missing) {
+            long latest = found.getOrDefault(iddoc, -1L);
+            if (untilTimestamp > 0 && latest > untilTimestamp) {
+                // A volume also has (multi-valued) DATEUPDATED values beyond the until bound, so the maximum has to be determined per value
+                latest = getLatestVolumeTimestampFromVolumes(iddoc, untilTimestamp, suffix);
+            }
+            ret.put(iddoc, latest);
+            latestVolumeTimestampCache.put(iddoc + cacheKeySuffix, new CachedTimestamp(latest, now + LATEST_VOLUME_TIMESTAMP_CACHE_TTL));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Determines the latest valid DATEUPDATED value of the volumes of the given anchor by retrieving the DATEUPDATED values of all volumes.
+     * 
+     * @param anchorIddoc
+     * @param untilTimestamp
+     * @param filterQuerySuffix
+     * @return Latest DATEUPDATED value up to untilTimestamp; -1 if none found
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    private long getLatestVolumeTimestampFromVolumes(String anchorIddoc, long untilTimestamp, String filterQuerySuffix)
+            throws SolrServerException, IOException {
+        String query = "+" + SolrConstants.ISWORK + ":true +" + SolrConstants.IDDOC_PARENT + ":" + anchorIddoc + filterQuerySuffix;
+        long[] latest = { 0 };
+        stream(query, null, Collections.singletonList(SolrConstants.DATEUPDATED), volume -> {
+            long volumeTimestamp = SolrSearchTools.getLatestValidDateUpdated(volume, untilTimestamp);
+            if (latest[0] < volumeTimestamp) {
+                latest[0] = volumeTimestamp;
+            }
+        });
 
+        return latest[0] > 0 ? latest[0] : -1;
     }
 
     /**
@@ -641,21 +1262,124 @@ public class SolrSearchIndex implements Closeable {
                 .append(SolrConstants.OPEN_ACCESS_VALUE)
                 .toString();
 
-        QueryResponse qr = search(query, 0, MAX_HITS, Collections.singletonList(SolrConstants.ORDER),
-                Arrays.asList(SolrConstants.ORDER, SolrConstants.FILENAME_ALTO, SolrConstants.FILENAME_FULLTEXT), null);
-        if (!qr.getResults().isEmpty()) {
-            Map<Integer, String> ret = new HashMap<>(qr.getResults().size());
-            for (SolrDocument doc : qr.getResults()) {
-                if (doc.containsKey(SolrConstants.FILENAME_ALTO)) {
-                    ret.put((int) doc.getFieldValue(SolrConstants.ORDER), (String) doc.getFieldValue(SolrConstants.FILENAME_ALTO));
-                } else if (doc.containsKey(SolrConstants.FILENAME_FULLTEXT)) {
-                    ret.put((int) doc.getFieldValue(SolrConstants.ORDER), (String) doc.getFieldValue(SolrConstants.FILENAME_FULLTEXT));
-                }
+        Map<Integer, String> ret = new HashMap<>();
+        stream(query, Collections.singletonList(SolrConstants.ORDER),
+                Arrays.asList(SolrConstants.ORDER, SolrConstants.FILENAME_ALTO, SolrConstants.FILENAME_FULLTEXT), doc -> {
+                    if (doc.containsKey(SolrConstants.FILENAME_ALTO)) {
+                        ret.put((int) doc.getFieldValue(SolrConstants.ORDER), (String) doc.getFieldValue(SolrConstants.FILENAME_ALTO));
+                    } else if (doc.containsKey(SolrConstants.FILENAME_FULLTEXT)) {
+                        ret.put((int) doc.getFieldValue(SolrConstants.ORDER), (String) doc.getFieldValue(SolrConstants.FILENAME_FULLTEXT));
+                    }
+                });
+
+        return ret.isEmpty() ? Collections.emptyMap() : ret;
+    }
+
+    /**
+     * Returns the titles of the anchor documents with the given IDDOC values. Titles not yet in the anchor title cache are resolved with a
+     * single query.
+     *
+     * @param iddocs IDDOC values of the anchor documents
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return Map containing the titles of all found anchors, keyed by IDDOC
+     * @throws org.apache.solr.client.solrj.SolrServerException
+     * @throws IOException
+     * @should return titles correctly
+     * @should return empty map if iddocs empty
+     */
+    public Map<String, String> getAnchorTitles(Collection<String> iddocs, String filterQuerySuffix) throws SolrServerException, IOException {
+        if (iddocs == null || iddocs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        String suffix = filterQuerySuffix != null ? filterQuerySuffix : "";
+        // Titles are only visible to clients whose filter query matches the anchor
+        String cacheKeySuffix = "|" + suffix;
+        Map<String, String> ret = new HashMap<>(iddocs.size());
+        Set<String> missing = new HashSet<>();
+        for (String iddoc : iddocs) {
+            if (StringUtils.isEmpty(iddoc)) {
+                continue;
             }
+            String title = anchorTitleCache.get(iddoc + cacheKeySuffix);
+            if (title != null) {
+                ret.put(iddoc, title);
+            } else {
+                missing.add(iddoc);
+            }
+        }
+        DataManager.getInstance().getMetrics().recordCacheGets("anchorTitles", ret.size(), missing.size());
+        if (missing.isEmpty()) {
             return ret;
         }
 
-        return Collections.emptyMap();
+        String query = new StringBuilder().append('+')
+                .append(SolrConstants.IDDOC)
+                .append(":(")
+                // Explicit OR, since the index may use AND as its default operator
+                .append(String.join(" OR ", missing))
+                .append(')')
+                .append(suffix)
+                .toString();
+        logger.trace("anchor titles query: {}", query);
+        QueryResponse qr = search(query, 0, missing.size(), null, Arrays.asList(SolrConstants.IDDOC, SolrConstants.TITLE), null);
+        if (anchorTitleCache.size() > ANCHOR_TITLE_CACHE_SIZE) {
+            anchorTitleCache.clear();
+        }
+        for (SolrDocument doc : qr.getResults()) {
+            String iddoc = String.valueOf(doc.getFieldValue(SolrConstants.IDDOC));
+            Object title = doc.getFirstValue(SolrConstants.TITLE);
+            if (title != null) {
+                ret.put(iddoc, (String) title);
+                anchorTitleCache.put(iddoc + cacheKeySuffix, (String) title);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the process IDs (MD_PROCESSID) of the records with the given PI values, resolved with a single query.
+     *
+     * @param pis PI values
+     * @return Map containing the process IDs of all found records that have one, keyed by PI
+     * @throws org.apache.solr.client.solrj.SolrServerException
+     * @throws IOException
+     * @should return process ids correctly
+     * @should return empty map if pis empty
+     */
+    public Map<String, String> getProcessIds(Collection<String> pis) throws SolrServerException, IOException {
+        if (pis == null || pis.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Set<String> uniquePis = new HashSet<>(pis.size());
+        List<String> escapedPis = new ArrayList<>(pis.size());
+        for (String pi : pis) {
+            if (StringUtils.isNotEmpty(pi) && uniquePis.add(pi)) {
+                escapedPis.add(ClientUtils.escapeQueryChars(pi));
+            }
+        }
+        if (uniquePis.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // Explicit OR, since the index may use AND as its default operator
+        StringBuilder sbQuery = new StringBuilder().append('+')
+                .append(SolrConstants.PI)
+                .append(":(")
+                .append(String.join(" OR ", escapedPis))
+                .append(')');
+        logger.trace("process IDs query: {}", sbQuery);
+        QueryResponse qr = search(sbQuery.toString(), 0, uniquePis.size(), null, Arrays.asList(SolrConstants.PI, FIELD_PROCESSID), null);
+        Map<String, String> ret = new HashMap<>(uniquePis.size());
+        for (SolrDocument doc : qr.getResults()) {
+            Object processId = doc.getFirstValue(FIELD_PROCESSID);
+            if (processId != null) {
+                ret.put((String) doc.getFieldValue(SolrConstants.PI), (String) processId);
+            }
+        }
+
+        return ret;
     }
 
     /**
@@ -676,13 +1400,23 @@ public class SolrSearchIndex implements Closeable {
         this.lastPing = lastPing;
     }
 
+    /**
+     * Getter for tests.
+     * 
+     * @return the circuitBreaker
+     */
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
     /**
      * Getter for tests.
      * 
      * @return the client
      */
     SolrClient getClient() {
-        return client;
+        ClientLease lease = clientLease.get();
+        return lease != null ? lease.getClient() : null;
     }
 
     /**
@@ -694,6 +1428,15 @@ public class SolrSearchIndex implements Closeable {
         return testMode;
     }
 
+    /**
+     * Setter for tests.
+     * 
+     * @param changeIndex the changeIndex to set
+     */
+    void setChangeIndex(ChangeIndex changeIndex) {
+        this.changeIndex = changeIndex;
+    }
+
     /**
      * Setter for tests.
      * 
@@ -702,4 +1445,70 @@ public class SolrSearchIndex implements Closeable {
     void setTestMode(boolean testMode) {
         this.testMode = testMode;
     }
+
+    /**
+     * Reference-counted holder of a {@link SolrClient}. The holder itself owns one reference, which is returned when the client is replaced;
+     * every query holds another one while it runs. The client is closed when the count drops to zero.
+     */
+    static final class ClientLease implements AutoCloseable {
+
+        private final SolrClient client;
+        private final String signature;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        /**
+         * 
+         * @param client
+         * @param signature
+         */
+        private ClientLease(SolrClient client, String signature) {
+            this.client = client;
+            this.signature = signature;
+        }
+
+        /**
+         * 
+         * @return true if a reference was added; false if the client has already been closed
+         */
+        private boolean retain() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * 
+         * @return the client
+         */
+        SolrClient getClient() {
+            return client;
+        }
+
+        /**
+         * Returns a reference and closes the client if it was the last one.
+         */
+        @Override
+        public void close() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    logger.error("Error closing Solr client: {}", e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * 
+         * @return Number of references
+         */
+        int getReferences() {
+            return references.get();
+        }
+    }
 }
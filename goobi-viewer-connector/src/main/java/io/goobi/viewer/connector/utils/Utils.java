@@ -16,6 +16,7 @@
 package io.goobi.viewer.connector.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -25,16 +26,16 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.XMLReaders;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.Version;
 import io.goobi.viewer.connector.oai.RequestHandler;
 
@@ -48,8 +49,6 @@ public final class Utils {
 
     private static final Logger logger = LogManager.getLogger(Utils.class);
 
-    private static final int HTTP_TIMEOUT = 10000;
-
     /** Constant <code>formatterISO8601DateTimeWithOffset</code> */
     public static final DateTimeFormatter FORMATTER_ISO8601_DATETIME_WITH_OFFSET =
             DateTimeFormatter.ISO_OFFSET_DATE_TIME; // yyyy-MM-dd'T'HH:mm:ss+01:00
@@ -62,6 +61,12 @@ public final class Utils {
     /** Constant <code>formatterISO8601DateTimeNoSeconds</code> */
     public static final DateTimeFormatter FORMATTER_ISO8601_DATETIME_NO_SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    /** 0000-01-01T00:00:00Z; years outside 0000-9999 are formatted with a sign and handled by the {@link DateTimeFormatter} */
+    private static final long MIN_FAST_FORMAT_MILLIS = -62_167_219_200_000L;
+    /** 10000-01-01T00:00:00Z */
+    private static final long MAX_FAST_FORMAT_MILLIS = 253_402_300_800_000L;
+
     private Utils() {
     }
 
@@ -90,11 +95,81 @@ public final class Utils {
      * @param milliSeconds a long.
      * @return a {@link java.lang.String} object.
      * @should convert time correctly
+     * @should format milliseconds like DateTimeFormatter
+     * @should fall back for years outside four digits
      */
     public static String convertDate(long milliSeconds) {
-        return Instant.ofEpochMilli(milliSeconds)
-                .atOffset(ZoneOffset.UTC)
-                .format(FORMATTER_ISO8601_DATETIME_WITH_OFFSET);
+        if (milliSeconds < MIN_FAST_FORMAT_MILLIS || milliSeconds >= MAX_FAST_FORMAT_MILLIS) {
+            return Instant.ofEpochMilli(milliSeconds)
+                    .atOffset(ZoneOffset.UTC)
+                    .format(FORMATTER_ISO8601_DATETIME_WITH_OFFSET);
+        }
+
+        // Same output as FORMATTER_ISO8601_DATETIME_WITH_OFFSET in UTC, without creating intermediate date/time objects
+        long days = Math.floorDiv(milliSeconds, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(milliSeconds, MILLIS_PER_DAY);
+
+        // Civil date from days since epoch (proleptic Gregorian calendar, eras of 400 years starting March 1st)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        int millis = millisOfDay % 1000;
+        int seconds = millisOfDay / 1000;
+        char[] buf = new char[millis == 0 ? 20 : 24];
+        put4(buf, 0, year);
+        buf[4] = '-';
+        put2(buf, 5, month);
+        buf[7] = '-';
+        put2(buf, 8, day);
+        buf[10] = 'T';
+        put2(buf, 11, seconds / 3600);
+        buf[13] = ':';
+        put2(buf, 14, seconds / 60 % 60);
+        buf[16] = ':';
+        put2(buf, 17, seconds % 60);
+        int pos = 19;
+        if (millis != 0) {
+            buf[pos++] = '.';
+            buf[pos++] = (char) ('0' + millis / 100);
+            if (millis % 100 != 0) {
+                buf[pos++] = (char) ('0' + millis / 10 % 10);
+                if (millis % 10 != 0) {
+                    buf[pos++] = (char) ('0' + millis % 10);
+                }
+            }
+        }
+        buf[pos++] = 'Z';
+
+        return new String(buf, 0, pos);
+    }
+
+    /**
+     * 
+     * @param buf
+     * @param pos
+     * @param value Value between 0 and 99
+     */
+    private static void put2(char[] buf, int pos, int value) {
+        buf[pos] = (char) ('0' + value / 10);
+        buf[pos + 1] = (char) ('0' + value % 10);
+    }
+
+    /**
+     * 
+     * @param buf
+     * @param pos
+     * @param value Value between 0 and 9999
+     */
+    private static void put4(char[] buf, int pos, int value) {
+        put2(buf, pos, value / 100);
+        put2(buf, pos + 2, value % 100);
     }
 
     /**
@@ -108,17 +183,26 @@ public final class Utils {
      * @throws java.io.IOException if any.
      */
     public static int getHttpResponseStatus(String url) throws UnsupportedOperationException, IOException {
-        RequestConfig defaultRequestConfig = RequestConfig.custom()
-                .setSocketTimeout(HTTP_TIMEOUT)
-                .setConnectTimeout(HTTP_TIMEOUT)
-                .setConnectionRequestTimeout(HTTP_TIMEOUT)
-                .build();
-        try (CloseableHttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(defaultRequestConfig).build()) {
-            HttpGet get = new HttpGet(url);
-            try (CloseableHttpResponse response = httpClient.execute(get)) {
-                return response.getStatusLine().getStatusCode();
-            }
-        }
+        return DataManager.getInstance().getSourceDocumentProvider().getStatus(url);
+    }
+
+    /**
+     * Parses an XML document from the given stream. DTDs and external entities are not loaded.
+     *
+     * @param in {@link InputStream} containing the XML document
+     * @return Parsed {@link Document}
+     * @throws IOException
+     * @throws JDOMException if the document is not well-formed
+     * @should parse document correctly
+     */
+    public static Document getDocumentFromStream(InputStream in) throws IOException, JDOMException {
+        SAXBuilder builder = new SAXBuilder(XMLReaders.NONVALIDATING);
+        builder.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        builder.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        builder.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        builder.setExpandEntities(false);
+
+        return builder.build(in);
     }
 
     /**
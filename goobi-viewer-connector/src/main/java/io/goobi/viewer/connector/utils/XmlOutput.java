@@ -0,0 +1,108 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.output.support.AbstractXMLOutputProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.model.ErrorElement;
+
+/**
+ * Creates the {@link XMLOutputter}s used for writing OAI-PMH and SRU responses.
+ */
+public final class XmlOutput {
+
+    private XmlOutput() {
+    }
+
+    /**
+     * Returns the output format for responses: indented if pretty output is configured, otherwise written as-is without any whitespace changes.
+     *
+     * @param compact If true, no indentation is added and embedded documents are written without reformatting
+     * @return {@link Format}
+     * @should return raw format if compact
+     * @should return pretty format if not compact
+     */
+    public static Format getFormat(boolean compact) {
+        Format format = compact ? Format.getRawFormat() : Format.getPrettyFormat();
+        format.setEncoding(StandardCharsets.UTF_8.name().toLowerCase());
+        return format;
+    }
+
+    /**
+     * Returns an outputter using the configured output mode.
+     *
+     * @return {@link XMLOutputter}
+     * @should write error elements like regular elements
+     */
+    public static XMLOutputter createOutputter() {
+        return createOutputter(element -> false);
+    }
+
+    /**
+     * Returns an outputter using the configured output mode that writes each element matching the given predicate with all namespaces it uses
+     * declared on itself, even if an ancestor element already declares them. Unmodified {@link ErrorElement}s are written from their pre-rendered
+     * form.
+     *
+     * @param selfContained Elements to write with a complete set of namespace declarations
+     * @return {@link XMLOutputter}
+     * @should declare inherited namespaces on matching elements
+     */
+    public static XMLOutputter createOutputter(Predicate<Element> selfContained) {
+        return new XMLOutputter(getFormat(DataManager.getInstance().getConfiguration().isOutputCompact()),
+                new ResponseOutputProcessor(selfContained));
+    }
+
+    /**
+     * Output processor that starts a new namespace scope at each matching element, so that the element and its descendants redeclare every
+     * namespace they use instead of relying on declarations of the enclosing document. Error elements whose namespace is already in scope are
+     * copied from their pre-rendered form.
+     */
+    static class ResponseOutputProcessor extends AbstractXMLOutputProcessor {
+
+        private final Predicate<Element> selfContained;
+
+        /**
+         * @param selfContained Elements to write with a new namespace scope
+         */
+        ResponseOutputProcessor(Predicate<Element> selfContained) {
+            this.selfContained = selfContained;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void printElement(Writer out, FormatStack fstack, NamespaceStack nstack, Element element) throws IOException {
+            if (element instanceof ErrorElement error && nstack.isInScope(error.getNamespace())) {
+                String fragment = error.getFragment();
+                if (fragment != null) {
+                    out.write(fragment);
+                    return;
+                }
+            }
+            super.printElement(out, fstack, selfContained.test(element) ? new NamespaceStack() : nstack, element);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.oai.AdmissionControl;
+import io.goobi.viewer.connector.oai.AdmissionControl.CostClass;
+import io.goobi.viewer.connector.utils.Configuration;
+
+class AsyncRequestDispatcherTest extends AbstractTest {
+
+    /**
+     * @see AsyncRequestDispatcher#getLimit(String)
+     * @verifies return semaphore with configured limit
+     */
+    @Test
+    void getLimit_shouldReturnSemaphoreWithConfiguredLimit() {
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(DataManager.getInstance().getConfiguration());
+        try {
+            Semaphore limit = dispatcher.getLimit("ListRecords");
+            Assertions.assertNotNull(limit);
+            Assertions.assertEquals(4, limit.availablePermits());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * @see AsyncRequestDispatcher#getLimit(String)
+     * @verifies fall back to default limit
+     */
+    @Test
+    void getLimit_shouldFallBackToDefaultLimit() {
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(DataManager.getInstance().getConfiguration());
+        try {
+            Semaphore limit = dispatcher.getLimit("GetRecord");
+            Assertions.assertNotNull(limit);
+            Assertions.assertEquals(20, limit.availablePermits());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * @see AsyncRequestDispatcher#getLimit(String)
+     * @verifies return same semaphore for same key
+     */
+    @Test
+    void getLimit_shouldReturnSameSemaphoreForSameKey() {
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(DataManager.getInstance().getConfiguration());
+        try {
+            Assertions.assertSame(dispatcher.getLimit("searchRetrieve"), dispatcher.getLimit("searchRetrieve"));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * @see AsyncRequestDispatcher#dispatch(HttpServletRequest,HttpServletResponse,String,AsyncRequestDispatcher.RequestProcessor,Runnable)
+     * @verifies run release if request rejected by concurrency limit
+     */
+    @Test
+    void dispatch_shouldRunReleaseIfRequestRejectedByConcurrencyLimit() throws Exception {
+        Configuration config = new Configuration(TEST_CONFIG_PATH);
+        config.overrideValue("async.queueTimeout", 10);
+        AdmissionControl admission = new AdmissionControl(config);
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(config);
+        try {
+            // All slots taken, so every request times out in the queue
+            dispatcher.getLimit("ListRecords").drainPermits();
+            AtomicInteger status = new AtomicInteger();
+            // More rejections than requests in flight allowed per client
+            for (int i = 0; i <= config.getAdmissionMaxInFlight(); ++i) {
+                Assertions.assertEquals(0, admission.tryAdmit("127.0.0.1", CostClass.LIGHT));
+                CountDownLatch released = new CountDownLatch(1);
+                Assertions.assertTrue(dispatcher.dispatch(createRequest(), createResponse(status), "ListRecords",
+                        (request, response) -> Assertions.fail("Request must not be processed"), () -> {
+                            admission.release("127.0.0.1", CostClass.LIGHT);
+                            released.countDown();
+                        }));
+                Assertions.assertTrue(released.await(10, TimeUnit.SECONDS));
+                Assertions.assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, status.get());
+            }
+            // No admission has leaked
+            Assertions.assertEquals(0, admission.tryAdmit("127.0.0.1", CostClass.LIGHT));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * @see AsyncRequestDispatcher#tryReserve(String)
+     * @verifies return null if limit saturated
+     */
+    @Test
+    void tryReserve_shouldReturnNullIfLimitSaturated() {
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(DataManager.getInstance().getConfiguration());
+        try {
+            dispatcher.getLimit("ListRecords").drainPermits();
+            Assertions.assertNull(dispatcher.tryReserve("ListRecords"));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * @see AsyncRequestDispatcher#tryReserve(String)
+     * @verifies free slot only once
+     */
+    @Test
+    void tryReserve_shouldFreeSlotOnlyOnce() {
+        AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(DataManager.getInstance().getConfiguration());
+        try {
+            Semaphore limit = dispatcher.getLimit("ListRecords");
+            Runnable release = dispatcher.tryReserve("ListRecords");
+            Assertions.assertNotNull(release);
+            Assertions.assertEquals(3, limit.availablePermits());
+            release.run();
+            release.run();
+            Assertions.assertEquals(4, limit.availablePermits());
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * 
+     * @return {@link HttpServletRequest} that supports asynchronous processing
+     */
+    private static HttpServletRequest createRequest() {
+        AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(AsyncRequestDispatcherTest.class.getClassLoader(),
+                new Class<?>[] { AsyncContext.class }, (proxy, method, args) -> null);
+        return (HttpServletRequest) Proxy.newProxyInstance(AsyncRequestDispatcherTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "isAsyncSupported" -> true;
+                    case "startAsync" -> asyncContext;
+                    default -> null;
+                });
+    }
+
+    /**
+     * 
+     * @param status Receives the status of sent errors
+     * @return {@link HttpServletResponse}
+     */
+    private static HttpServletResponse createResponse(AtomicInteger status) {
+        return (HttpServletResponse) Proxy.newProxyInstance(AsyncRequestDispatcherTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                    if ("sendError".equals(method.getName())) {
+                        status.set((int) args[0]);
+                    }
+                    return null;
+                });
+    }
+}
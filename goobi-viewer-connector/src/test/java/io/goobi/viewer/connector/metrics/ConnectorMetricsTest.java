@@ -0,0 +1,105 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+class ConnectorMetricsTest extends AbstractTest {
+
+    /**
+     * @see ConnectorMetrics#recordOaiRequest(String,String,int,long,long)
+     * @verifies record timer with verb and metadataPrefix tags
+     */
+    @Test
+    void recordOaiRequest_shouldRecordTimerWithVerbAndMetadataPrefixTags() {
+        ConnectorMetrics metrics = new ConnectorMetrics();
+        metrics.recordOaiRequest("ListRecords", "oai_dc", 200, TimeUnit.MILLISECONDS.toNanos(20), 1000);
+        metrics.recordOaiRequest("ListRecords", "oai_dc", 200, TimeUnit.MILLISECONDS.toNanos(40), 3000);
+
+        Timer timer = metrics.getRegistry()
+                .find(ConnectorMetrics.METRIC_OAI_REQUESTS)
+                .tags("verb", "ListRecords", "metadataPrefix", "oai_dc", "status", "200")
+                .timer();
+        Assertions.assertNotNull(timer);
+        Assertions.assertEquals(2, timer.count());
+        Assertions.assertEquals(60, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        Assertions.assertEquals(4000,
+                metrics.getRegistry().find(ConnectorMetrics.METRIC_RESPONSE_SIZE).tag("endpoint", "oai").summary().totalAmount(), 0.001);
+    }
+
+    /**
+     * @see ConnectorMetrics#recordCacheGets(String,int,int)
+     * @verifies count hits and misses separately
+     */
+    @Test
+    void recordCacheGets_shouldCountHitsAndMissesSeparately() {
+        ConnectorMetrics metrics = new ConnectorMetrics();
+        metrics.recordCacheGets("anchorTitles", 3, 1);
+        metrics.recordCacheGets("anchorTitles", 0, 1);
+
+        Counter hits = metrics.getRegistry().find(ConnectorMetrics.METRIC_CACHE_GETS).tags("cache", "anchorTitles", "result", "hit").counter();
+        Counter misses = metrics.getRegistry().find(ConnectorMetrics.METRIC_CACHE_GETS).tags("cache", "anchorTitles", "result", "miss").counter();
+        Assertions.assertNotNull(hits);
+        Assertions.assertNotNull(misses);
+        Assertions.assertEquals(3, hits.count(), 0.001);
+        Assertions.assertEquals(2, misses.count(), 0.001);
+    }
+
+    /**
+     * @see ConnectorMetrics#scrape()
+     * @verifies include recorded metrics
+     */
+    @Test
+    void scrape_shouldIncludeRecordedMetrics() {
+        ConnectorMetrics metrics = new ConnectorMetrics();
+        metrics.recordSolrQuery(TimeUnit.MILLISECONDS.toNanos(5), 1);
+
+        String scrape = metrics.scrape();
+        Assertions.assertTrue(scrape.contains("connector_solr_queries_seconds_count"));
+        Assertions.assertTrue(scrape.contains("connector_solr_retries_total"));
+        Assertions.assertTrue(scrape.contains("connector_oai_tokens_stored"));
+    }
+
+    /**
+     * @see ConnectorMetrics#countFiles(Path)
+     * @verifies count files in folder
+     */
+    @Test
+    void countFiles_shouldCountFilesInFolder(@TempDir Path tempDir) throws Exception {
+        Files.createFile(tempDir.resolve("oai_1"));
+        Files.createFile(tempDir.resolve("oai_2"));
+        Assertions.assertEquals(2, ConnectorMetrics.countFiles(tempDir));
+    }
+
+    /**
+     * @see ConnectorMetrics#countFiles(Path)
+     * @verifies return zero if folder missing
+     */
+    @Test
+    void countFiles_shouldReturnZeroIfFolderMissing(@TempDir Path tempDir) {
+        Assertions.assertEquals(0, ConnectorMetrics.countFiles(tempDir.resolve("notfound")));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RequestTraceTest {
+
+    /**
+     * @see RequestTrace#toServerTiming(long)
+     * @verifies contain measured phases with counts
+     */
+    @Test
+    void toServerTiming_shouldContainMeasuredPhasesWithCounts() {
+        RequestTrace trace = new RequestTrace();
+        trace.record(RequestTrace.PHASE_SOLR, TimeUnit.MILLISECONDS.toNanos(10));
+        trace.record(RequestTrace.PHASE_SOLR, TimeUnit.MILLISECONDS.toNanos(5));
+        trace.record(RequestTrace.PHASE_FETCH, TimeUnit.MILLISECONDS.toNanos(20));
+
+        String result = trace.toServerTiming(TimeUnit.MILLISECONDS.toNanos(50));
+        Assertions.assertTrue(result.startsWith("solr;dur=15.0;desc=\"2\", fetch;dur=20.0;desc=\"1\""), result);
+        Assertions.assertTrue(result.endsWith("total;dur=50.0"), result);
+    }
+
+    /**
+     * @see RequestTrace#toServerTiming(long)
+     * @verifies derive render phase from total
+     */
+    @Test
+    void toServerTiming_shouldDeriveRenderPhaseFromTotal() {
+        RequestTrace trace = new RequestTrace();
+        trace.record(RequestTrace.PHASE_SOLR, TimeUnit.MILLISECONDS.toNanos(10));
+        trace.record(RequestTrace.PHASE_OUTPUT, TimeUnit.MILLISECONDS.toNanos(5));
+
+        Assertions.assertTrue(trace.toServerTiming(TimeUnit.MILLISECONDS.toNanos(40)).contains("render;dur=25.0"));
+    }
+
+    /**
+     * @see RequestTrace#toServerTiming(long)
+     * @verifies omit phases without durations
+     */
+    @Test
+    void toServerTiming_shouldOmitPhasesWithoutDurations() {
+        Assertions.assertEquals("render;dur=3.0, total;dur=3.0", new RequestTrace().toServerTiming(TimeUnit.MILLISECONDS.toNanos(3)));
+    }
+
+    /**
+     * @see RequestTrace#wrap(Callable)
+     * @verifies propagate trace to task
+     */
+    @Test
+    void wrap_shouldPropagateTraceToTask() throws Exception {
+        RequestTrace trace = RequestTrace.begin();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<Boolean> task = RequestTrace.wrap(() -> {
+                RequestTrace.add(RequestTrace.PHASE_XSLT, 1000);
+                return RequestTrace.isActive();
+            });
+            Assertions.assertTrue(executor.submit(task).get());
+            Assertions.assertEquals(1, trace.getCount(RequestTrace.PHASE_XSLT));
+            Assertions.assertEquals(1000, trace.getNanos(RequestTrace.PHASE_XSLT));
+            // Worker thread no longer has a trace after the task
+            Assertions.assertFalse(executor.submit(RequestTrace::isActive).get());
+        } finally {
+            RequestTrace.end();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import org.jdom2.Element;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.oai.enums.Verb;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.XmlConstants;
+
+class AdaptivePageSizerTest extends AbstractTest {
+
+    private Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        config = new Configuration(TEST_CONFIG_PATH);
+        config.overrideValue("adaptivePaging.enabled", true);
+    }
+
+    /**
+     * @see AdaptivePageSizer#getHitsPerToken(Verb,String)
+     * @verifies return configured value if disabled
+     */
+    @Test
+    void getHitsPerToken_shouldReturnConfiguredValueIfDisabled() {
+        config.overrideValue("adaptivePaging.enabled", false);
+        AdaptivePageSizer sizer = new AdaptivePageSizer(config);
+        sizer.recordRendering(Verb.LISTRECORDS, "oai_dc", createPage(10), 10_000_000_000L);
+        Assertions.assertEquals(11, sizer.getHitsPerToken(Verb.LISTRECORDS, "oai_dc"));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getHitsPerToken(Verb,String)
+     * @verifies return configured value if nothing measured
+     */
+    @Test
+    void getHitsPerToken_shouldReturnConfiguredValueIfNothingMeasured() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(config);
+        sizer.recordRendering(Verb.LISTRECORDS, "oai_dc", createPage(0), 1_000_000_000L);
+        Assertions.assertEquals(11, sizer.getHitsPerToken(Verb.LISTRECORDS, "oai_dc"));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getHitsPerToken(Verb,String)
+     * @verifies reduce size for expensive records
+     */
+    @Test
+    void getHitsPerToken_shouldReduceSizeForExpensiveRecords() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(config);
+        // 100 ms per record, target 5000 ms
+        sizer.recordRendering(Verb.LISTRECORDS, "mets", createPage(10), 1_000_000_000L);
+        Assertions.assertEquals(50, sizer.getHitsPerToken(Verb.LISTRECORDS, "mets"));
+        // 64 KB per record, target 1 MB
+        sizer.recordOutput(Verb.LISTRECORDS, "mets", createPage(10), 655_360L);
+        Assertions.assertEquals(16, sizer.getHitsPerToken(Verb.LISTRECORDS, "mets"));
+        // Other formats are not affected
+        Assertions.assertEquals(11, sizer.getHitsPerToken(Verb.LISTRECORDS, "oai_dc"));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getHitsPerToken(Verb,String)
+     * @verifies keep size within bounds
+     */
+    @Test
+    void getHitsPerToken_shouldKeepSizeWithinBounds() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(config);
+        sizer.recordRendering(Verb.LISTRECORDS, "oai_dc", createPage(10), 1_000_000L);
+        Assertions.assertEquals(200, sizer.getHitsPerToken(Verb.LISTRECORDS, "oai_dc"));
+        sizer.recordOutput(Verb.LISTRECORDS, "mets", createPage(10), 100_000_000L);
+        Assertions.assertEquals(5, sizer.getHitsPerToken(Verb.LISTRECORDS, "mets"));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getHitsPerToken(Verb,String)
+     * @verifies size verbs separately
+     */
+    @Test
+    void getHitsPerToken_shouldSizeVerbsSeparately() {
+        AdaptivePageSizer sizer = new AdaptivePageSizer(config);
+        sizer.recordRendering(Verb.LISTRECORDS, "mets", createPage(10), 1_000_000_000L);
+        Assertions.assertEquals(50, sizer.getHitsPerToken(Verb.LISTRECORDS, "mets"));
+        // Headers of the same format are not affected by expensive records
+        Assertions.assertEquals(13, sizer.getHitsPerToken(Verb.LISTIDENTIFIERS, "mets"));
+    }
+
+    /**
+     * 
+     * @param records
+     * @return ListRecords element with the given number of records
+     */
+    private static Element createPage(int records) {
+        Element ret = new Element("ListRecords", Format.OAI_NS);
+        for (int i = 0; i < records; ++i) {
+            ret.addContent(new Element(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS));
+        }
+        return ret;
+    }
+}
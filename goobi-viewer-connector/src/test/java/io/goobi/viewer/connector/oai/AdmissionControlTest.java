@@ -0,0 +1,207 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.AdmissionControl.CostClass;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.Configuration;
+
+class AdmissionControlTest extends AbstractTest {
+
+    private static final String CLIENT = "192.168.0.10";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdmissionControl createAdmissionControl() {
+        return new AdmissionControl(DataManager.getInstance().getConfiguration(), clock::get);
+    }
+
+    /**
+     * @see AdmissionControl#getCostClass(String,Metadata,boolean)
+     * @verifies return heavy for configured metadataPrefix
+     */
+    @Test
+    void getCostClass_shouldReturnHeavyForConfiguredMetadataPrefix() {
+        Assertions.assertEquals(CostClass.HEAVY, createAdmissionControl().getCostClass(CLIENT, Metadata.METS, false));
+    }
+
+    /**
+     * @see AdmissionControl#getCostClass(String,Metadata,boolean)
+     * @verifies return light for other metadataPrefix
+     */
+    @Test
+    void getCostClass_shouldReturnLightForOtherMetadataPrefix() {
+        Assertions.assertEquals(CostClass.LIGHT, createAdmissionControl().getCostClass(CLIENT, Metadata.OAI_DC, false));
+    }
+
+    /**
+     * @see AdmissionControl#getCostClass(String,Metadata,boolean)
+     * @verifies return cost class of previous request for resumption
+     */
+    @Test
+    void getCostClass_shouldReturnCostClassOfPreviousRequestForResumption() {
+        AdmissionControl admission = createAdmissionControl();
+        admission.getCostClass(CLIENT, Metadata.OAI_DC, false);
+        Assertions.assertEquals(CostClass.LIGHT, admission.getCostClass(CLIENT, null, true));
+    }
+
+    /**
+     * @see AdmissionControl#getCostClass(String,Metadata,boolean)
+     * @verifies return heavy for resumption of unknown client
+     */
+    @Test
+    void getCostClass_shouldReturnHeavyForResumptionOfUnknownClient() {
+        Assertions.assertEquals(CostClass.HEAVY, createAdmissionControl().getCostClass(CLIENT, null, true));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies admit requests within burst
+     */
+    @Test
+    void tryAdmit_shouldAdmitRequestsWithinBurst() {
+        AdmissionControl admission = createAdmissionControl();
+        for (int i = 0; i < 10; ++i) {
+            Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+            admission.release(CLIENT, CostClass.LIGHT);
+        }
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies reject requests beyond burst
+     */
+    @Test
+    void tryAdmit_shouldRejectRequestsBeyondBurst() {
+        AdmissionControl admission = createAdmissionControl();
+        for (int i = 0; i < 10; ++i) {
+            admission.tryAdmit(CLIENT, CostClass.LIGHT);
+            admission.release(CLIENT, CostClass.LIGHT);
+        }
+        // One token per second
+        Assertions.assertEquals(1, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies admit requests again after refill
+     */
+    @Test
+    void tryAdmit_shouldAdmitRequestsAgainAfterRefill() {
+        AdmissionControl admission = createAdmissionControl();
+        for (int i = 0; i < 10; ++i) {
+            admission.tryAdmit(CLIENT, CostClass.LIGHT);
+            admission.release(CLIENT, CostClass.LIGHT);
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies reject requests beyond max in flight
+     */
+    @Test
+    void tryAdmit_shouldRejectRequestsBeyondMaxInFlight() {
+        AdmissionControl admission = createAdmissionControl();
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+        Assertions.assertEquals(AdmissionControl.RETRY_AFTER_IN_FLIGHT, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+        // Other cost class is not affected
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        admission.release(CLIENT, CostClass.LIGHT);
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies charge heavy requests more tokens
+     */
+    @Test
+    void tryAdmit_shouldChargeHeavyRequestsMoreTokens() {
+        AdmissionControl admission = createAdmissionControl();
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        admission.release(CLIENT, CostClass.HEAVY);
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        admission.release(CLIENT, CostClass.HEAVY);
+        // 2 of 10 tokens left, 4 needed
+        Assertions.assertEquals(2, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies cap heavy cost at burst
+     */
+    @Test
+    void tryAdmit_shouldCapHeavyCostAtBurst() {
+        Configuration config = new Configuration(TEST_CONFIG_PATH);
+        config.overrideValue("admission.heavyCost", 50);
+        AdmissionControl admission = new AdmissionControl(config, clock::get);
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        admission.release(CLIENT, CostClass.HEAVY);
+        // Whole bucket of 10 tokens used, refill rate 1 per second
+        Assertions.assertEquals(10, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertEquals(0, admission.tryAdmit(CLIENT, CostClass.HEAVY));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies track clients separately
+     */
+    @Test
+    void tryAdmit_shouldTrackClientsSeparately() {
+        AdmissionControl admission = createAdmissionControl();
+        admission.tryAdmit(CLIENT, CostClass.LIGHT);
+        admission.tryAdmit(CLIENT, CostClass.LIGHT);
+        Assertions.assertEquals(AdmissionControl.RETRY_AFTER_IN_FLIGHT, admission.tryAdmit(CLIENT, CostClass.LIGHT));
+        Assertions.assertEquals(0, admission.tryAdmit("192.168.0.11", CostClass.LIGHT));
+    }
+
+    /**
+     * @see AdmissionControl#tryAdmit(String,CostClass)
+     * @verifies scan for idle clients at most once per interval
+     */
+    @Test
+    void tryAdmit_shouldScanForIdleClientsAtMostOncePerInterval() {
+        AdmissionControl admission = createAdmissionControl();
+        for (int i = 0; i <= AdmissionControl.MAX_TRACKED_CLIENTS + 1; ++i) {
+            String client = "client" + i;
+            admission.tryAdmit(client, CostClass.LIGHT);
+            admission.release(client, CostClass.LIGHT);
+        }
+        Assertions.assertEquals(AdmissionControl.MAX_TRACKED_CLIENTS + 2, admission.getTrackedClientCount());
+
+        // All buckets are full again, but the last scan was less than an interval ago
+        clock.addAndGet(AdmissionControl.CLEANUP_INTERVAL_NANOS / 2);
+        admission.tryAdmit(CLIENT, CostClass.LIGHT);
+        Assertions.assertEquals(AdmissionControl.MAX_TRACKED_CLIENTS + 3, admission.getTrackedClientCount());
+
+        clock.addAndGet(AdmissionControl.CLEANUP_INTERVAL_NANOS);
+        admission.tryAdmit("192.168.0.11", CostClass.LIGHT);
+        // Only clients with requests in flight remain
+        Assertions.assertEquals(2, admission.getTrackedClientCount());
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+
+class HarvestContextTest extends AbstractTest {
+
+    /**
+     * @see HarvestContext#HarvestContext(RequestHandler,Configuration)
+     * @verifies parse timestamps correctly
+     */
+    @Test
+    void HarvestContext_shouldParseTimestampsCorrectly() {
+        RequestHandler handler = new RequestHandler();
+        handler.setUntil("2015-01-01");
+        HarvestContext context = new HarvestContext(handler, DataManager.getInstance().getConfiguration());
+        Assertions.assertEquals(1420156799999L, context.getUntilTimestamp());
+    }
+
+    /**
+     * @see HarvestContext#HarvestContext(RequestHandler,Configuration)
+     * @verifies set repository identifier correctly
+     */
+    @Test
+    void HarvestContext_shouldSetRepositoryIdentifierCorrectly() {
+        HarvestContext context = new HarvestContext(new RequestHandler(), DataManager.getInstance().getConfiguration());
+        Assertions.assertEquals("repo", context.getRepositoryIdentifier());
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jdom2.Element;
+import org.jdom2.output.XMLOutputter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.AsyncRequestDispatcher;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.XmlOutput;
+
+class HarvestPrefetcherTest extends AbstractTest {
+
+    private Configuration config;
+    private AsyncRequestDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        config = new Configuration(TEST_CONFIG_PATH);
+        config.overrideValue("prefetch.enabled", true);
+        dispatcher = new AsyncRequestDispatcher(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * @see HarvestPrefetcher#schedule(Element,String)
+     * @verifies prefetch page for resumption token
+     */
+    @Test
+    void schedule_shouldPrefetchPageForResumptionToken() {
+        AtomicInteger renderCount = new AtomicInteger();
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> {
+            renderCount.incrementAndGet();
+            return new Element("ListRecords", Format.OAI_NS).setAttribute("token", tokenName + suffix);
+        })) {
+            prefetcher.schedule(createPage("oai_1700000000000"), " +ACCESSCONDITION:OPENACCESS");
+            prefetcher.schedule(createPage("oai_1700000000000"), " +ACCESSCONDITION:OPENACCESS");
+            Assertions.assertEquals(1, prefetcher.size());
+            Assertions.assertNull(prefetcher.take("oai_1700000000000", ""));
+            Element page = prefetcher.take("oai_1700000000000", " +ACCESSCONDITION:OPENACCESS");
+            Assertions.assertNotNull(page);
+            Assertions.assertEquals("oai_1700000000000 +ACCESSCONDITION:OPENACCESS", page.getAttributeValue("token"));
+            Assertions.assertEquals(1, renderCount.get());
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#schedule(Element,String)
+     * @verifies ignore pages without resumption token
+     */
+    @Test
+    void schedule_shouldIgnorePagesWithoutResumptionToken() {
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> new Element("ListRecords", Format.OAI_NS))) {
+            prefetcher.schedule(new Element("ListRecords", Format.OAI_NS), "");
+            prefetcher.schedule(null, "");
+            Assertions.assertEquals(0, prefetcher.size());
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#schedule(Element,String)
+     * @verifies evict oldest page if limit reached
+     */
+    @Test
+    void schedule_shouldEvictOldestPageIfLimitReached() {
+        config.overrideValue("prefetch.maxPages", 2);
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> new Element("ListRecords", Format.OAI_NS))) {
+            prefetcher.schedule(createPage("oai_1700000000001"), "");
+            prefetcher.schedule(createPage("oai_1700000000002"), "");
+            prefetcher.schedule(createPage("oai_1700000000003"), "");
+            Assertions.assertEquals(2, prefetcher.size());
+            Assertions.assertNull(prefetcher.take("oai_1700000000001", ""));
+            Assertions.assertNotNull(prefetcher.take("oai_1700000000003", ""));
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#schedule(Element,String)
+     * @verifies evict oldest pages if size limit exceeded
+     */
+    @Test
+    void schedule_shouldEvictOldestPagesIfSizeLimitExceeded() throws Exception {
+        Element rendered = new Element("ListRecords", Format.OAI_NS).setText(StringUtils.repeat('x', 1000));
+        long pageSize = HarvestPrefetcher.estimateSize(rendered);
+        // Room for two pages, but not for three
+        config.overrideValue("prefetch.maxBytes", pageSize * 2 + pageSize / 2);
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> rendered.clone())) {
+            prefetcher.schedule(createPage("oai_1700000000001"), "");
+            await(() -> prefetcher.getTotalBytes() == pageSize);
+            prefetcher.schedule(createPage("oai_1700000000002"), "");
+            await(() -> prefetcher.getTotalBytes() == pageSize * 2);
+            prefetcher.schedule(createPage("oai_1700000000003"), "");
+            await(() -> prefetcher.size() == 2);
+            Assertions.assertEquals(pageSize * 2, prefetcher.getTotalBytes());
+            Assertions.assertNull(prefetcher.take("oai_1700000000001", ""));
+            Assertions.assertNotNull(prefetcher.take("oai_1700000000003", ""));
+            Assertions.assertEquals(pageSize, prefetcher.getTotalBytes());
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#schedule(Element,String)
+     * @verifies skip prefetching if concurrency limit saturated
+     */
+    @Test
+    void schedule_shouldSkipPrefetchingIfConcurrencyLimitSaturated() {
+        AtomicInteger renderCount = new AtomicInteger();
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> {
+            renderCount.incrementAndGet();
+            return new Element("ListRecords", Format.OAI_NS);
+        })) {
+            int permits = dispatcher.getLimit("ListRecords").drainPermits();
+            prefetcher.schedule(createPage("oai_1700000000000"), "");
+            Assertions.assertEquals(0, prefetcher.size());
+            Assertions.assertNull(prefetcher.take("oai_1700000000000", ""));
+            Assertions.assertEquals(0, renderCount.get());
+
+            // Slot is freed again once the prefetched page has been rendered
+            dispatcher.getLimit("ListRecords").release(permits);
+            prefetcher.schedule(createPage("oai_1700000000000"), "");
+            Assertions.assertNotNull(prefetcher.take("oai_1700000000000", ""));
+            Assertions.assertEquals(permits, dispatcher.getLimit("ListRecords").availablePermits());
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#estimateSize(Element)
+     * @verifies return serialized size
+     */
+    @Test
+    void estimateSize_shouldReturnSerializedSize() {
+        Element page = createPage("oai_1700000000000");
+        page.addContent(new Element("record", Format.OAI_NS).setText("Grüße"));
+        Assertions.assertEquals(new XMLOutputter(XmlOutput.getFormat(true)).outputString(page).getBytes(StandardCharsets.UTF_8).length,
+                HarvestPrefetcher.estimateSize(page));
+    }
+
+    /**
+     * @see HarvestPrefetcher#take(String,String)
+     * @verifies return page only once
+     */
+    @Test
+    void take_shouldReturnPageOnlyOnce() {
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> new Element("ListRecords", Format.OAI_NS))) {
+            prefetcher.schedule(createPage("oai_1700000000000"), "");
+            Assertions.assertNotNull(prefetcher.take("oai_1700000000000", ""));
+            Assertions.assertNull(prefetcher.take("oai_1700000000000", ""));
+        }
+    }
+
+    /**
+     * @see HarvestPrefetcher#take(String,String)
+     * @verifies return null if rendering failed
+     */
+    @Test
+    void take_shouldReturnNullIfRenderingFailed() {
+        try (HarvestPrefetcher prefetcher = new HarvestPrefetcher(config, dispatcher, (tokenName, suffix) -> {
+            throw new IOException("Solr unreachable");
+        })) {
+            prefetcher.schedule(createPage("oai_1700000000000"), "");
+            Assertions.assertNull(prefetcher.take("oai_1700000000000", ""));
+        }
+    }
+
+    /**
+     * Waits up to ten seconds for the given condition, which is met once background rendering has finished.
+     * 
+     * @param condition
+     * @throws InterruptedException
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * 
+     * @param tokenName
+     * @return ListRecords element with the given resumption token
+     */
+    private static Element createPage(String tokenName) {
+        Element ret = new Element("ListRecords", Format.OAI_NS);
+        ret.addContent(new Element("resumptionToken", Format.OAI_NS).setText(tokenName));
+        return ret;
+    }
+}
@@ -61,4 +61,30 @@ class RequestHandlerTest extends AbstractTest {
         String until = "2015-01-01";
         Assertions.assertEquals(1420156799999L, RequestHandler.getUntilTimestamp(until));
     }
-}
\ No newline at end of file
+
+    /**
+     * @see RequestHandler#getHarvestContext()
+     * @verifies create context from current values
+     */
+    @Test
+    void getHarvestContext_shouldCreateContextFromCurrentValues() {
+        RequestHandler handler = new RequestHandler();
+        handler.setUntil("2015-01-01T00:00:00Z");
+        HarvestContext context = handler.getHarvestContext();
+        Assertions.assertEquals(1420070400999L, context.getUntilTimestamp());
+        Assertions.assertSame(context, handler.getHarvestContext());
+    }
+
+    /**
+     * @see RequestHandler#getHarvestContext()
+     * @verifies recreate context after until changed
+     */
+    @Test
+    void getHarvestContext_shouldRecreateContextAfterUntilChanged() {
+        RequestHandler handler = new RequestHandler();
+        handler.setUntil("2015-01-01T00:00:00Z");
+        Assertions.assertEquals(1420070400999L, handler.getHarvestContext().getUntilTimestamp());
+        handler.setUntil("2015-01-01");
+        Assertions.assertEquals(1420156799999L, handler.getHarvestContext().getUntilTimestamp());
+    }
+}
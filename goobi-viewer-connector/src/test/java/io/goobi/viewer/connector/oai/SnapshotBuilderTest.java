@@ -0,0 +1,120 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+
+class SnapshotBuilderTest extends AbstractTest {
+
+    /**
+     * @see SnapshotBuilder#isDumpable(Metadata,io.goobi.viewer.connector.utils.Configuration)
+     * @verifies return true for enabled standard formats
+     */
+    @Test
+    void isDumpable_shouldReturnTrueForEnabledStandardFormats() {
+        Assertions.assertTrue(SnapshotBuilder.isDumpable(Metadata.OAI_DC, DataManager.getInstance().getConfiguration()));
+        Assertions.assertTrue(SnapshotBuilder.isDumpable(Metadata.METS, DataManager.getInstance().getConfiguration()));
+    }
+
+    /**
+     * @see SnapshotBuilder#isDumpable(Metadata,io.goobi.viewer.connector.utils.Configuration)
+     * @verifies return false for formats without one record per identifier
+     */
+    @Test
+    void isDumpable_shouldReturnFalseForFormatsWithoutOneRecordPerIdentifier() {
+        Assertions.assertFalse(SnapshotBuilder.isDumpable(Metadata.EPICUR, DataManager.getInstance().getConfiguration()));
+        Assertions.assertFalse(SnapshotBuilder.isDumpable(Metadata.IV_OVERVIEWPAGE, DataManager.getInstance().getConfiguration()));
+        // Version discriminator configured
+        Assertions.assertFalse(SnapshotBuilder.isDumpable(Metadata.TEI, DataManager.getInstance().getConfiguration()));
+    }
+
+    /**
+     * @see SnapshotBuilder#getFileName(int)
+     * @verifies format number correctly
+     */
+    @Test
+    void getFileName_shouldFormatNumberCorrectly() {
+        Assertions.assertEquals("part-00042.xml.gz", SnapshotBuilder.getFileName(42));
+        Assertions.assertTrue(SnapshotBuilder.FILE_NAME_PATTERN.matcher(SnapshotBuilder.getFileName(1)).matches());
+    }
+
+    /**
+     * @see SnapshotBuilder#getSignature(java.util.List)
+     * @verifies return same value for equal headers
+     */
+    @Test
+    void getSignature_shouldReturnSameValueForEqualHeaders() {
+        Assertions.assertEquals(SnapshotBuilder.getSignature(Arrays.asList(createHeader("PPN1", "2024-01-01T00:00:00Z"))),
+                SnapshotBuilder.getSignature(Arrays.asList(createHeader("PPN1", "2024-01-01T00:00:00Z"))));
+    }
+
+    /**
+     * @see SnapshotBuilder#getSignature(java.util.List)
+     * @verifies return different value if datestamp changed
+     */
+    @Test
+    void getSignature_shouldReturnDifferentValueIfDatestampChanged() {
+        Assertions.assertNotEquals(SnapshotBuilder.getSignature(Arrays.asList(createHeader("PPN1", "2024-01-01T00:00:00Z"))),
+                SnapshotBuilder.getSignature(Arrays.asList(createHeader("PPN1", "2024-01-02T00:00:00Z"))));
+    }
+
+    /**
+     * @see SnapshotBuilder#writePart(Document,Path,Path,String,boolean)
+     * @verifies write signature if complete
+     */
+    @Test
+    void writePart_shouldWriteSignatureIfComplete(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve(SnapshotBuilder.getFileName(1));
+        Path signatureFile = tempDir.resolve(SnapshotBuilder.getFileName(1) + SnapshotBuilder.SIGNATURE_SUFFIX);
+        SnapshotBuilder.writePart(new Document(new Element("OAI-PMH", Format.OAI_NS)), file, signatureFile, "abc", true);
+        Assertions.assertTrue(Files.isRegularFile(file));
+        Assertions.assertEquals("abc", Files.readString(signatureFile));
+    }
+
+    /**
+     * @see SnapshotBuilder#writePart(Document,Path,Path,String,boolean)
+     * @verifies remove signature if records missing
+     */
+    @Test
+    void writePart_shouldRemoveSignatureIfRecordsMissing(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve(SnapshotBuilder.getFileName(1));
+        Path signatureFile = tempDir.resolve(SnapshotBuilder.getFileName(1) + SnapshotBuilder.SIGNATURE_SUFFIX);
+        Files.writeString(signatureFile, "abc");
+        SnapshotBuilder.writePart(new Document(new Element("OAI-PMH", Format.OAI_NS)), file, signatureFile, "abc", false);
+        Assertions.assertTrue(Files.isRegularFile(file));
+        Assertions.assertFalse(Files.exists(signatureFile));
+    }
+
+    private static Element createHeader(String identifier, String datestamp) {
+        Element header = new Element("header", Format.OAI_NS);
+        header.addContent(new Element("identifier", Format.OAI_NS).setText(identifier));
+        header.addContent(new Element("datestamp", Format.OAI_NS).setText(datestamp));
+        return header;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+
+class ErrorElementTest extends AbstractTest {
+
+    /**
+     * @see ErrorElement#getFragment()
+     * @verifies return fragment if unmodified
+     */
+    @Test
+    void getFragment_shouldReturnFragmentIfUnmodified() {
+        ErrorElement ele = (ErrorElement) new ErrorCode().getBadVerb();
+        Assertions.assertEquals("<error code=\"badVerb\">" + ErrorCode.BODY_BAD_VERB + "</error>", ele.getFragment());
+    }
+
+    /**
+     * @see ErrorElement#getFragment()
+     * @verifies return null if modified
+     */
+    @Test
+    void getFragment_shouldReturnNullIfModified() {
+        ErrorElement ele = (ErrorElement) new ErrorCode().getBadVerb();
+        ele.setText("foo");
+        Assertions.assertNull(ele.getFragment());
+
+        ele = (ErrorElement) new ErrorCode().getBadVerb();
+        ele.setAttribute("code", "badArgument");
+        Assertions.assertNull(ele.getFragment());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.formats;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
+import io.goobi.viewer.connector.utils.Utils;
+
+class GoobiViewerUpdateFormatTest extends AbstractTest {
+
+    /**
+     * @see GoobiViewerUpdateFormat#getTotalHits(Map,String,String)
+     * @verifies return cached total if available
+     */
+    @Test
+    void getTotalHits_shouldReturnCachedTotalIfAvailable() throws Exception {
+        RequestHandler handler = new RequestHandler();
+        handler.setVerb(Verb.LISTRECORDS);
+        handler.setMetadataPrefix(Metadata.IV_CROWDSOURCING);
+        handler.setFrom("2020-01-01");
+        handler.setUntil("2020-12-31");
+        Map<String, String> params = Utils.filterDatestampFromRequest(handler);
+        GoobiViewerUpdateFormat.cacheTotalHits(params, 123);
+
+        // No harvest URL is reachable in tests, so the value can only come from the cache
+        Assertions.assertEquals(123, new GoobiViewerUpdateFormat().getTotalHits(params, null, null));
+    }
+
+    /**
+     * @see GoobiViewerUpdateFormat#getTotalHitsCacheKey(Map)
+     * @verifies create identical keys for identical harvests
+     */
+    @Test
+    void getTotalHitsCacheKey_shouldCreateIdenticalKeysForIdenticalHarvests() {
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(Metadata.IV_OVERVIEWPAGE);
+        handler.setUntil("2020-12-31T00:00:00Z");
+        RequestHandler handler2 = new RequestHandler();
+        handler2.setMetadataPrefix(Metadata.IV_OVERVIEWPAGE);
+        handler2.setUntil("2020-12-31T00:00:00Z");
+        Assertions.assertEquals(GoobiViewerUpdateFormat.getTotalHitsCacheKey(Utils.filterDatestampFromRequest(handler)),
+                GoobiViewerUpdateFormat.getTotalHitsCacheKey(Utils.filterDatestampFromRequest(handler2)));
+
+        handler2.setUntil("2021-12-31T00:00:00Z");
+        Assertions.assertNotEquals(GoobiViewerUpdateFormat.getTotalHitsCacheKey(Utils.filterDatestampFromRequest(handler)),
+                GoobiViewerUpdateFormat.getTotalHitsCacheKey(Utils.filterDatestampFromRequest(handler2)));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+
+class DumpServletTest extends AbstractTest {
+
+    /**
+     * @see DumpServlet#resolveFile(String,io.goobi.viewer.connector.utils.Configuration)
+     * @verifies resolve valid path correctly
+     */
+    @Test
+    void resolveFile_shouldResolveValidPathCorrectly() {
+        Assertions.assertEquals(Paths.get("src/test/resources/oai/dumps/oai_dc/part-00001.xml.gz"),
+                DumpServlet.resolveFile("/oai_dc/part-00001.xml.gz", DataManager.getInstance().getConfiguration()));
+    }
+
+    /**
+     * @see DumpServlet#resolveFile(String,io.goobi.viewer.connector.utils.Configuration)
+     * @verifies return null for invalid paths
+     */
+    @Test
+    void resolveFile_shouldReturnNullForInvalidPaths() {
+        Assertions.assertNull(DumpServlet.resolveFile("/oai_dc/../../config_oai.test.xml", DataManager.getInstance().getConfiguration()));
+        Assertions.assertNull(DumpServlet.resolveFile("/foo/part-00001.xml.gz", DataManager.getInstance().getConfiguration()));
+        Assertions.assertNull(DumpServlet.resolveFile("/oai_dc/part-00001.xml.gz.sha256", DataManager.getInstance().getConfiguration()));
+        Assertions.assertNull(DumpServlet.resolveFile("/oai_dc/", DataManager.getInstance().getConfiguration()));
+    }
+
+    /**
+     * @see DumpServlet#transfer(FileChannel,long,java.nio.channels.WritableByteChannel)
+     * @verifies transfer given number of bytes
+     */
+    @Test
+    void transfer_shouldTransferGivenNumberOfBytes(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("part-00001.xml.gz"), "0123456789", StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(file)) {
+            DumpServlet.transfer(channel, 6, Channels.newChannel(out));
+        }
+        Assertions.assertEquals("012345", out.toString(StandardCharsets.UTF_8));
+    }
+}
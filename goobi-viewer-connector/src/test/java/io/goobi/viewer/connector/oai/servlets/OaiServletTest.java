@@ -16,6 +16,8 @@
 package io.goobi.viewer.connector.oai.servlets;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -167,6 +169,25 @@ class OaiServletTest extends AbstractTest {
         Assertions.assertEquals("203.0.113.5", OaiServlet.extractClientIp("  203.0.113.5  , 198.51.100.7", "10.0.0.1"));
     }
 
+    /**
+     * @see OaiServlet#getAdmissionClient(String,String,List)
+     * @verifies use forwarded for from trusted proxy
+     */
+    @Test
+    void getAdmissionClient_shouldUseForwardedForFromTrustedProxy() {
+        Assertions.assertEquals("203.0.113.5", OaiServlet.getAdmissionClient("203.0.113.5", "10.0.0.1", Collections.singletonList("10.0.0.1")));
+    }
+
+    /**
+     * @see OaiServlet#getAdmissionClient(String,String,List)
+     * @verifies ignore forwarded for from other addresses
+     */
+    @Test
+    void getAdmissionClient_shouldIgnoreForwardedForFromOtherAddresses() {
+        Assertions.assertEquals("10.0.0.2", OaiServlet.getAdmissionClient("203.0.113.5", "10.0.0.2", Collections.singletonList("10.0.0.1")));
+        Assertions.assertEquals("10.0.0.2", OaiServlet.getAdmissionClient("203.0.113.5", "10.0.0.2", Collections.emptyList()));
+    }
+
     /**
      * Local stand-in for org.apache.catalina.connector.ClientAbortException so the simple-class-name
      * heuristic in isClientAbort can be exercised without depending on Tomcat at test time.
@@ -0,0 +1,117 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.jdom2.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.exceptions.HTTPException;
+
+class FileSystemSourceDocumentProviderTest extends AbstractTest {
+
+    private static final String RESOLVER_URL = "http://localhost/viewer/metsresolver?id=";
+
+    private final FileSystemSourceDocumentProvider provider = new FileSystemSourceDocumentProvider(
+            Arrays.asList(Path.of("src/test/resources/viewer/indexed_mets"), Path.of("src/test/resources/viewer/indexed_lido")),
+            Collections.singletonList(RESOLVER_URL));
+
+    /**
+     * @see FileSystemSourceDocumentProvider#resolve(String)
+     * @verifies resolve document resolver url correctly
+     */
+    @Test
+    void resolve_shouldResolveDocumentResolverUrlCorrectly() {
+        Path path = provider.resolve(RESOLVER_URL + "PPN517154005");
+        Assertions.assertNotNull(path);
+        Assertions.assertEquals("PPN517154005.xml", path.getFileName().toString());
+
+        path = provider.resolve(RESOLVER_URL + "455820");
+        Assertions.assertNotNull(path);
+        Assertions.assertEquals("indexed_lido", path.getParent().getFileName().toString());
+    }
+
+    /**
+     * @see FileSystemSourceDocumentProvider#resolve(String)
+     * @verifies return null for unknown base url
+     */
+    @Test
+    void resolve_shouldReturnNullForUnknownBaseUrl() {
+        Assertions.assertNull(provider.resolve("http://example.com/metsresolver?id=PPN517154005"));
+    }
+
+    /**
+     * @see FileSystemSourceDocumentProvider#resolve(String)
+     * @verifies not resolve paths outside of folders
+     */
+    @Test
+    void resolve_shouldNotResolvePathsOutsideOfFolders() {
+        Assertions.assertNull(provider.resolve(RESOLVER_URL + "../../config_oai.test.xml"));
+    }
+
+    /**
+     * @see FileSystemSourceDocumentProvider#getContent(String)
+     * @verifies throw HTTPException if document not found
+     */
+    @Test
+    void getContent_shouldThrowHTTPExceptionIfDocumentNotFound() {
+        Assertions.assertThrows(HTTPException.class, () -> provider.getContent(RESOLVER_URL + "notfound"));
+        Assertions.assertDoesNotThrow(() -> Assertions.assertTrue(provider.getContent(RESOLVER_URL + "PPN517154005").contains("mets:mets")));
+    }
+
+    /**
+     * @see SourceDocumentProvider#getDocument(String)
+     * @verifies parse document from stream
+     */
+    @Test
+    void getDocument_shouldParseDocumentFromStream() throws Exception {
+        Document doc = provider.getDocument(RESOLVER_URL + "455820");
+        Assertions.assertNotNull(doc);
+        Assertions.assertEquals("lido", doc.getRootElement().getName());
+    }
+
+    /**
+     * @see SourceDocumentProvider#create(io.goobi.viewer.connector.utils.Configuration)
+     * @verifies create http provider by default
+     */
+    @Test
+    void create_shouldCreateHttpProviderByDefault() throws Exception {
+        try (SourceDocumentProvider result = SourceDocumentProvider.create(DataManager.getInstance().getConfiguration())) {
+            Assertions.assertInstanceOf(HttpSourceDocumentProvider.class, result);
+        }
+    }
+
+    /**
+     * @see SourceDocumentProvider#create(io.goobi.viewer.connector.utils.Configuration)
+     * @verifies create filesystem provider if configured
+     */
+    @Test
+    void create_shouldCreateFilesystemProviderIfConfigured() throws Exception {
+        DataManager.getInstance().getConfiguration().overrideValue("sourceDocuments.provider", "filesystem");
+        try (SourceDocumentProvider result = SourceDocumentProvider.create(DataManager.getInstance().getConfiguration())) {
+            Assertions.assertInstanceOf(FileSystemSourceDocumentProvider.class, result);
+            Assertions.assertEquals(200, result.getStatus("http://localhost/viewer/metsresolver?id=PPN517154005"));
+        } finally {
+            DataManager.getInstance().getConfiguration().overrideValue("sourceDocuments.provider", "http");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.sources;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SourceDocumentCacheTest {
+
+    /**
+     * @see SourceDocumentCache#put(String,byte[],long)
+     * @verifies evict least recently used entries
+     */
+    @Test
+    void put_shouldEvictLeastRecentlyUsedEntries() {
+        SourceDocumentCache cache = new SourceDocumentCache(10);
+        cache.put("a", new byte[4], 1);
+        cache.put("b", new byte[4], 2);
+        Assertions.assertNotNull(cache.get("a")); // "b" is now least recently used
+        cache.put("c", new byte[4], 3);
+        Assertions.assertNotNull(cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertNotNull(cache.get("c"));
+        Assertions.assertEquals(8, cache.getBytes());
+    }
+
+    /**
+     * @see SourceDocumentCache#put(String,byte[],long)
+     * @verifies not cache bodies larger than limit
+     */
+    @Test
+    void put_shouldNotCacheBodiesLargerThanLimit() {
+        SourceDocumentCache cache = new SourceDocumentCache(10);
+        cache.put("a", new byte[4], 1);
+        cache.put("a", new byte[11], 2);
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertEquals(0, cache.getBytes());
+    }
+}
@@ -2,7 +2,12 @@ package io.goobi.viewer.connector.sru;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
 import org.apache.solr.common.SolrDocument;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -153,6 +158,215 @@ class SruServletTest extends AbstractSolrEnabledTest {
         Assertions.assertEquals("*:foo AND SOURCEDOCFORMAT:METS AND (ISWORK:true OR ISANCHOR:true)", result);
     }
     
+    /**
+     * @see SruServlet#generateSearchQuery(String,Metadata,String)
+     * @verifies remove sortBy clause
+     */
+    @Test
+    void generateSearchQuery_shouldRemoveSortByClause() {
+        String result = SruServlet.generateSearchQuery("anywhere=foo sortBy dc.title/sort.descending", Metadata.MARCXML, null);
+        Assertions.assertEquals("*:foo AND SOURCEDOCFORMAT:METS AND (ISWORK:true OR ISANCHOR:true)", result);
+    }
+
+    /**
+     * @see SruServlet#parseSortKeys(String)
+     * @verifies parse sort keys correctly
+     */
+    @Test
+    void parseSortKeys_shouldParseSortKeysCorrectly() {
+        List<SortClause> result = SruServlet.parseSortKeys("dc.title,,0 year,,1 identifier");
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals(SortClause.desc("SORT_TITLE"), result.get(0));
+        Assertions.assertEquals(SortClause.asc("SORT_YEARPUBLISH"), result.get(1));
+        Assertions.assertEquals(SortClause.asc(SolrConstants.PI), result.get(2));
+    }
+
+    /**
+     * @see SruServlet#parseSortKeys(String)
+     * @verifies skip unsortable keys
+     */
+    @Test
+    void parseSortKeys_shouldSkipUnsortableKeys() {
+        List<SortClause> result = SruServlet.parseSortKeys("dc.creator,,1 sortKeys_value dc.publisher,,0");
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(SortClause.desc("SORT_PUBLISHER"), result.get(0));
+    }
+
+    /**
+     * @see SruServlet#parseSortBy(String)
+     * @verifies parse sortBy clause correctly
+     */
+    @Test
+    void parseSortBy_shouldParseSortByClauseCorrectly() {
+        List<SortClause> result = SruServlet.parseSortBy("dc.title=foo sortBy dc.date/sort.descending title");
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals(SortClause.desc("SORT_YEARPUBLISH"), result.get(0));
+        Assertions.assertEquals(SortClause.asc("SORT_TITLE"), result.get(1));
+    }
+
+    /**
+     * @see SruServlet#parseSortBy(String)
+     * @verifies return empty list if no sortBy clause
+     */
+    @Test
+    void parseSortBy_shouldReturnEmptyListIfNoSortByClause() {
+        Assertions.assertTrue(SruServlet.parseSortBy("dc.title=foo").isEmpty());
+    }
+
+    /**
+     * @see SruServlet#getSortClauses(SruRequestParameter)
+     * @verifies prefer sortKeys over sortBy
+     */
+    @Test
+    void getSortClauses_shouldPreferSortKeysOverSortBy() {
+        SruRequestParameter parameter =
+                new SruRequestParameter(SruOperation.SEARCHRETRIEVE, "1.1", "title=foo sortBy dc.date", 1, 10, null, Metadata.OAI_DC, null, null,
+                        "dc.title,,0", null, null, null, 5, 10);
+        List<SortClause> result = SruServlet.getSortClauses(parameter);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(SortClause.desc("SORT_TITLE"), result.get(0));
+    }
+
+    /**
+     * @see SruServlet#getSortClauses(SruRequestParameter)
+     * @verifies fall back to sortBy clause
+     */
+    @Test
+    void getSortClauses_shouldFallBackToSortByClause() {
+        SruRequestParameter parameter =
+                new SruRequestParameter(SruOperation.SEARCHRETRIEVE, "1.2", "title=foo sortBy dc.date", 1, 10, null, Metadata.OAI_DC, null, null,
+                        "", null, null, null, 5, 10);
+        List<SortClause> result = SruServlet.getSortClauses(parameter);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(SortClause.asc("SORT_YEARPUBLISH"), result.get(0));
+    }
+
+    /**
+     * @see SruServlet#createSurrogateDiagnosticRecord(String,String)
+     * @verifies create element correctly
+     */
+    @Test
+    void createSurrogateDiagnosticRecord_shouldCreateElementCorrectly() {
+        Element ele = SruServlet.createSurrogateDiagnosticRecord("xml", "PPN123");
+        Assertions.assertNotNull(ele);
+        Assertions.assertEquals("info:srw/schema/1/diagnostics-v1.1", ele.getChildText("recordSchema", SruServlet.SRU_NAMESPACE));
+        Assertions.assertEquals("xml", ele.getChildText("recordPacking", SruServlet.SRU_NAMESPACE));
+        Element eleDiagnostic = ele.getChild("recordData", SruServlet.SRU_NAMESPACE).getChild("diagnostic", SruServlet.DIAG_NAMESPACE);
+        Assertions.assertNotNull(eleDiagnostic);
+        Assertions.assertEquals("info:srw/diagnostic/1/64", eleDiagnostic.getChildText("uri", SruServlet.DIAG_NAMESPACE));
+        Assertions.assertEquals("PPN123", eleDiagnostic.getChildText("details", SruServlet.DIAG_NAMESPACE));
+    }
+
+    /**
+     * @see SruServlet#getRenderedRecordData(SruServlet.RecordRendering,long,long)
+     * @verifies return null if rendering times out
+     */
+    @Test
+    void getRenderedRecordData_shouldReturnNullIfRenderingTimesOut() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<SruServlet.RecordRendering> renderings =
+                    SruServlet.submitRecordRendering(executor, Arrays.asList(createDocument("PPN1")), 1, createRenderer(null));
+            long start = System.currentTimeMillis();
+            Assertions.assertNull(SruServlet.getRenderedRecordData(renderings.get(0), 100, start + 60000));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @see SruServlet#getRenderedRecordData(SruServlet.RecordRendering,long,long)
+     * @verifies return null once request deadline has passed
+     */
+    @Test
+    void getRenderedRecordData_shouldReturnNullOnceRequestDeadlineHasPassed() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // The first rendering ignores interruption and keeps the only permit
+            List<SruServlet.RecordRendering> renderings = SruServlet.submitRecordRendering(executor,
+                    Arrays.asList(createDocument("PPN1"), createDocument("PPN2")), 1, createRenderer(unblock));
+            long start = System.currentTimeMillis();
+            long requestDeadline = start + 300;
+            Assertions.assertNull(SruServlet.getRenderedRecordData(renderings.get(0), 10000, requestDeadline));
+            Assertions.assertNull(SruServlet.getRenderedRecordData(renderings.get(1), 10000, requestDeadline));
+            Assertions.assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            unblock.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @see SruServlet#addRenderedRecords(Element,List,List,SruRequestParameter,long,long)
+     * @verifies add surrogate diagnostic records for timed out renderings
+     */
+    @Test
+    void addRenderedRecords_shouldAddSurrogateDiagnosticRecordsForTimedOutRenderings() throws Exception {
+        SruRequestParameter parameter = new SruRequestParameter(SruOperation.SEARCHRETRIEVE, "1.2", "title=foo", 1, 10, "xml", Metadata.METS,
+                null, null, null, null, null, null, 0, 0);
+        List<SolrDocument> documents = Arrays.asList(createDocument("PPN1"), createDocument("PPN2"));
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            // Only PPN1 is rendered, PPN2 stalls
+            Function<SolrDocument, Element> renderer = createRenderer(null);
+            List<SruServlet.RecordRendering> renderings = SruServlet.submitRecordRendering(executor, documents, 2,
+                    document -> "PPN1".equals(document.getFieldValue(SolrConstants.PI_TOPSTRUCT))
+                            ? new Element("recordData", SruServlet.SRU_NAMESPACE) : renderer.apply(document));
+            Element records = new Element("records", SruServlet.SRU_NAMESPACE);
+            SruServlet.addRenderedRecords(records, documents, renderings, parameter, 200, System.currentTimeMillis() + 60000);
+
+            List<Element> children = records.getChildren("record", SruServlet.SRU_NAMESPACE);
+            Assertions.assertEquals(2, children.size());
+            Assertions.assertEquals(Metadata.METS.getMetadataPrefix(), children.get(0).getChildText("recordSchema", SruServlet.SRU_NAMESPACE));
+            Assertions.assertEquals("PPN1", children.get(0).getChildText("recordIdentifier", SruServlet.SRU_NAMESPACE));
+            Assertions.assertEquals("info:srw/schema/1/diagnostics-v1.1", children.get(1).getChildText("recordSchema", SruServlet.SRU_NAMESPACE));
+            Element eleDiagnostic =
+                    children.get(1).getChild("recordData", SruServlet.SRU_NAMESPACE).getChild("diagnostic", SruServlet.DIAG_NAMESPACE);
+            Assertions.assertEquals("PPN2", eleDiagnostic.getChildText("details", SruServlet.DIAG_NAMESPACE));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 
+     * @param pi
+     * @return {@link SolrDocument} with the given identifier
+     */
+    private static SolrDocument createDocument(String pi) {
+        SolrDocument ret = new SolrDocument();
+        ret.setField(SolrConstants.PI_TOPSTRUCT, pi);
+        return ret;
+    }
+
+    /**
+     * 
+     * @param unblock Latch to wait for while ignoring interruption; null to wait interruptibly for a long time
+     * @return Renderer that stalls
+     */
+    private static Function<SolrDocument, Element> createRenderer(CountDownLatch unblock) {
+        return document -> {
+            if (unblock == null) {
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+            while (true) {
+                try {
+                    unblock.await();
+                    return null;
+                } catch (InterruptedException e) {
+                    // Ignored on purpose, like a fetch that does not respond to interruption
+                }
+            }
+        };
+    }
+
     /**
      * @see SruServlet#generateSolrRecord(SolrDocument,Element)
      * @verifies add correct element types
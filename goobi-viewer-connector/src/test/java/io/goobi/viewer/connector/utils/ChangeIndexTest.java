@@ -0,0 +1,69 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+
+class ChangeIndexTest extends AbstractTest {
+
+    /**
+     * @see ChangeIndex#isEmpty(long,long)
+     * @verifies return true if no value in range
+     */
+    @Test
+    void isEmpty_shouldReturnTrueIfNoValueInRange() {
+        try (ChangeIndex index = new ChangeIndex(null)) {
+            index.add(new long[] { 3000, 1000, 5000, 3000 }, 10000);
+            Assertions.assertEquals(3, index.size());
+            Assertions.assertTrue(index.isEmpty(1001, 2999));
+            Assertions.assertTrue(index.isEmpty(0, 999));
+            Assertions.assertTrue(index.isEmpty(5001, 10000));
+        }
+    }
+
+    /**
+     * @see ChangeIndex#isEmpty(long,long)
+     * @verifies return false if value in range
+     */
+    @Test
+    void isEmpty_shouldReturnFalseIfValueInRange() {
+        try (ChangeIndex index = new ChangeIndex(null)) {
+            index.add(new long[] { 1000, 5000 }, 10000);
+            index.add(new long[] { 3000 }, 10000);
+            Assertions.assertFalse(index.isEmpty(1000, 1000));
+            Assertions.assertFalse(index.isEmpty(2000, 4000));
+            Assertions.assertFalse(index.isEmpty(0, 10000));
+        }
+    }
+
+    /**
+     * @see ChangeIndex#isEmpty(long,long)
+     * @verifies return false if range not covered
+     */
+    @Test
+    void isEmpty_shouldReturnFalseIfRangeNotCovered() {
+        try (ChangeIndex index = new ChangeIndex(null)) {
+            Assertions.assertFalse(index.isEmpty(0, 100));
+            index.add(new long[] { 1000 }, 2000);
+            Assertions.assertFalse(index.isEmpty(1500, 2500));
+            index.reset();
+            Assertions.assertFalse(index.isEmpty(1500, 1600));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    private CircuitBreaker createOpenCircuitBreaker() {
+        CircuitBreaker ret = new CircuitBreaker("test", 2, 100, clock::get);
+        ret.recordFailure();
+        ret.recordFailure();
+        return ret;
+    }
+
+    /**
+     * @see CircuitBreaker#allowRequest()
+     * @verifies allow calls while closed
+     */
+    @Test
+    void allowRequest_shouldAllowCallsWhileClosed() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 100, clock::get);
+        breaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.allowRequest());
+    }
+
+    /**
+     * @see CircuitBreaker#allowRequest()
+     * @verifies reject calls while open
+     */
+    @Test
+    void allowRequest_shouldRejectCallsWhileOpen() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(99);
+        Assertions.assertFalse(breaker.allowRequest());
+        Assertions.assertEquals(1, breaker.getRetryAfterMillis());
+    }
+
+    /**
+     * @see CircuitBreaker#allowRequest()
+     * @verifies allow single trial call after open interval
+     */
+    @Test
+    void allowRequest_shouldAllowSingleTrialCallAfterOpenInterval() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(100);
+        Assertions.assertTrue(breaker.allowRequest());
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.allowRequest());
+    }
+
+    /**
+     * @see CircuitBreaker#recordSuccess()
+     * @verifies close circuit after successful trial call
+     */
+    @Test
+    void recordSuccess_shouldCloseCircuitAfterSuccessfulTrialCall() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(100);
+        breaker.allowRequest();
+        breaker.recordSuccess();
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.allowRequest());
+    }
+
+    /**
+     * @see CircuitBreaker#recordFailure()
+     * @verifies open circuit after threshold failures
+     */
+    @Test
+    void recordFailure_shouldOpenCircuitAfterThresholdFailures() {
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, createOpenCircuitBreaker().getState());
+    }
+
+    /**
+     * @see CircuitBreaker#recordFailure()
+     * @verifies re-open circuit after failed trial call
+     */
+    @Test
+    void recordFailure_shouldReopenCircuitAfterFailedTrialCall() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(100);
+        breaker.allowRequest();
+        breaker.recordFailure();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.allowRequest());
+    }
+
+    /**
+     * @see CircuitBreaker#isRequestAllowed()
+     * @verifies return false while open
+     */
+    @Test
+    void isRequestAllowed_shouldReturnFalseWhileOpen() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(99);
+        Assertions.assertFalse(breaker.isRequestAllowed());
+    }
+
+    /**
+     * @see CircuitBreaker#isRequestAllowed()
+     * @verifies return true once trial call is due
+     */
+    @Test
+    void isRequestAllowed_shouldReturnTrueOnceTrialCallIsDue() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(100);
+        Assertions.assertTrue(breaker.isRequestAllowed());
+        // Checking does not use up the trial call
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assertions.assertTrue(breaker.allowRequest());
+        Assertions.assertFalse(breaker.isRequestAllowed());
+    }
+
+    /**
+     * @see CircuitBreaker#getRetryAfterMillis()
+     * @verifies return time left in open interval
+     */
+    @Test
+    void getRetryAfterMillis_shouldReturnTimeLeftInOpenInterval() {
+        CircuitBreaker breaker = createOpenCircuitBreaker();
+        clock.addAndGet(40);
+        Assertions.assertEquals(60, breaker.getRetryAfterMillis());
+        clock.addAndGet(60);
+        Assertions.assertEquals(0, breaker.getRetryAfterMillis());
+        // Trial call running
+        breaker.allowRequest();
+        clock.addAndGet(30);
+        Assertions.assertEquals(70, breaker.getRetryAfterMillis());
+    }
+}
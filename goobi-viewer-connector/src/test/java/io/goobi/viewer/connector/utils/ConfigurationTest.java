@@ -135,6 +135,135 @@ class ConfigurationTest extends AbstractTest {
         Assertions.assertEquals(AbstractSolrEnabledTest.SOLR_TEST_URL, DataManager.getInstance().getConfiguration().getIndexUrl());
     }
 
+    /**
+     * @see Configuration#getSolrTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrTimeout_shouldReturnCorrectValue() {
+        Assertions.assertEquals(60000, DataManager.getInstance().getConfiguration().getSolrTimeout());
+    }
+
+    /**
+     * @see Configuration#getSolrReplicaUrls()
+     * @verifies return all values
+     */
+    @Test
+    void getSolrReplicaUrls_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getSolrReplicaUrls();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("http://localhost:8983/solr/collection1", result.get(0));
+        Assertions.assertEquals("http://localhost:8984/solr/collection1", result.get(1));
+    }
+
+    /**
+     * @see Configuration#getSolrCloudUrls()
+     * @verifies return all values
+     */
+    @Test
+    void getSolrCloudUrls_shouldReturnAllValues() {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().getSolrCloudUrls().isEmpty());
+    }
+
+    /**
+     * @see Configuration#getSolrCloudCollection()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrCloudCollection_shouldReturnCorrectValue() {
+        Assertions.assertEquals("viewer", DataManager.getInstance().getConfiguration().getSolrCloudCollection());
+    }
+
+    /**
+     * @see Configuration#getSolrShardsPreference()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrShardsPreference_shouldReturnCorrectValue() {
+        Assertions.assertEquals("replica.type:PULL,replica.location:local", DataManager.getInstance().getConfiguration().getSolrShardsPreference());
+    }
+
+    /**
+     * @see Configuration#getSolrRetries()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrRetries_shouldReturnCorrectValue() {
+        Assertions.assertEquals(2, DataManager.getInstance().getConfiguration().getSolrRetries());
+    }
+
+    /**
+     * @see Configuration#getSolrRetryBackoff()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrRetryBackoff_shouldReturnCorrectValue() {
+        Assertions.assertEquals(100, DataManager.getInstance().getConfiguration().getSolrRetryBackoff());
+    }
+
+    /**
+     * @see Configuration#getSolrRetryBackoffMax()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrRetryBackoffMax_shouldReturnCorrectValue() {
+        Assertions.assertEquals(2000, DataManager.getInstance().getConfiguration().getSolrRetryBackoffMax());
+    }
+
+    /**
+     * @see Configuration#getSolrCircuitBreakerFailureThreshold()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrCircuitBreakerFailureThreshold_shouldReturnCorrectValue() {
+        Assertions.assertEquals(3, DataManager.getInstance().getConfiguration().getSolrCircuitBreakerFailureThreshold());
+    }
+
+    /**
+     * @see Configuration#getSolrCircuitBreakerOpenInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrCircuitBreakerOpenInterval_shouldReturnCorrectValue() {
+        Assertions.assertEquals(15000, DataManager.getInstance().getConfiguration().getSolrCircuitBreakerOpenInterval());
+    }
+
+    /**
+     * @see Configuration#getSolrHealthCheckInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrHealthCheckInterval_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5000, DataManager.getInstance().getConfiguration().getSolrHealthCheckInterval());
+    }
+
+    /**
+     * @see Configuration#getSolrPingTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrPingTimeout_shouldReturnCorrectValue() {
+        Assertions.assertEquals(2000, DataManager.getInstance().getConfiguration().getSolrPingTimeout());
+    }
+
+    /**
+     * @see Configuration#getSolrHedgeUrl()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrHedgeUrl_shouldReturnCorrectValue() {
+        Assertions.assertEquals("http://localhost:8983/solr/collection1", DataManager.getInstance().getConfiguration().getSolrHedgeUrl());
+    }
+
+    /**
+     * @see Configuration#getSolrHedgeDelay()
+     * @verifies return correct value
+     */
+    @Test
+    void getSolrHedgeDelay_shouldReturnCorrectValue() {
+        Assertions.assertEquals(250, DataManager.getInstance().getConfiguration().getSolrHedgeDelay());
+    }
+
     /**
      * @see Configuration#getMods2MarcXsl()
      * @verifies return correct value
@@ -368,6 +497,389 @@ class ConfigurationTest extends AbstractTest {
         Assertions.assertEquals("http://localhost/viewer/api/v1/", DataManager.getInstance().getConfiguration().getRestApiUrl());
     }
 
+    /**
+     * @see Configuration#getSruRecordRenderingThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void getSruRecordRenderingThreads_shouldReturnCorrectValue() {
+        Assertions.assertEquals(4, DataManager.getInstance().getConfiguration().getSruRecordRenderingThreads());
+    }
+
+    /**
+     * @see Configuration#getSruRecordRenderingTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getSruRecordRenderingTimeout_shouldReturnCorrectValue() {
+        Assertions.assertEquals(20000, DataManager.getInstance().getConfiguration().getSruRecordRenderingTimeout());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentProvider()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentProvider_shouldReturnCorrectValue() {
+        Assertions.assertEquals("http", DataManager.getInstance().getConfiguration().getSourceDocumentProvider());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentFolders()
+     * @verifies return all values
+     */
+    @Test
+    void getSourceDocumentFolders_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getSourceDocumentFolders();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("src/test/resources/viewer/indexed_mets", result.get(0));
+        Assertions.assertEquals("src/test/resources/viewer/indexed_lido", result.get(1));
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentMaxConnections()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentMaxConnections_shouldReturnCorrectValue() {
+        Assertions.assertEquals(10, DataManager.getInstance().getConfiguration().getSourceDocumentMaxConnections());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentTimeout_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5000, DataManager.getInstance().getConfiguration().getSourceDocumentTimeout());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentRetries()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentRetries_shouldReturnCorrectValue() {
+        Assertions.assertEquals(1, DataManager.getInstance().getConfiguration().getSourceDocumentRetries());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentCacheSize_shouldReturnCorrectValue() {
+        Assertions.assertEquals(16, DataManager.getInstance().getConfiguration().getSourceDocumentCacheSize());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentParallelFetches()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentParallelFetches_shouldReturnCorrectValue() {
+        Assertions.assertEquals(8, DataManager.getInstance().getConfiguration().getSourceDocumentParallelFetches());
+    }
+
+    /**
+     * @see Configuration#isChangeIndexEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isChangeIndexEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isChangeIndexEnabled());
+    }
+
+    /**
+     * @see Configuration#getChangeIndexRefreshInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getChangeIndexRefreshInterval_shouldReturnCorrectValue() {
+        Assertions.assertEquals(30000, DataManager.getInstance().getConfiguration().getChangeIndexRefreshInterval());
+    }
+
+    /**
+     * @see Configuration#isDumpsEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isDumpsEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isDumpsEnabled());
+    }
+
+    /**
+     * @see Configuration#getDumpFolder()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpFolder_shouldReturnCorrectValue() {
+        Assertions.assertEquals("src/test/resources/oai/dumps/", DataManager.getInstance().getConfiguration().getDumpFolder());
+    }
+
+    /**
+     * @see Configuration#getDumpInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpInterval_shouldReturnCorrectValue() {
+        Assertions.assertEquals(3600000, DataManager.getInstance().getConfiguration().getDumpInterval());
+    }
+
+    /**
+     * @see Configuration#getDumpRecordsPerFile()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpRecordsPerFile_shouldReturnCorrectValue() {
+        Assertions.assertEquals(500, DataManager.getInstance().getConfiguration().getDumpRecordsPerFile());
+    }
+
+    /**
+     * @see Configuration#isAdaptivePagingEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isAdaptivePagingEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isAdaptivePagingEnabled());
+    }
+
+    /**
+     * @see Configuration#getAdaptivePagingTargetTime()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdaptivePagingTargetTime_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5000, DataManager.getInstance().getConfiguration().getAdaptivePagingTargetTime());
+    }
+
+    /**
+     * @see Configuration#getAdaptivePagingTargetBytes()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdaptivePagingTargetBytes_shouldReturnCorrectValue() {
+        Assertions.assertEquals(1048576, DataManager.getInstance().getConfiguration().getAdaptivePagingTargetBytes());
+    }
+
+    /**
+     * @see Configuration#getAdaptivePagingMinHitsPerToken()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdaptivePagingMinHitsPerToken_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5, DataManager.getInstance().getConfiguration().getAdaptivePagingMinHitsPerToken());
+    }
+
+    /**
+     * @see Configuration#getAdaptivePagingMaxHitsPerToken()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdaptivePagingMaxHitsPerToken_shouldReturnCorrectValue() {
+        Assertions.assertEquals(200, DataManager.getInstance().getConfiguration().getAdaptivePagingMaxHitsPerToken());
+    }
+
+    /**
+     * @see Configuration#isPrefetchEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isPrefetchEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isPrefetchEnabled());
+    }
+
+    /**
+     * @see Configuration#getPrefetchMaxPages()
+     * @verifies return correct value
+     */
+    @Test
+    void getPrefetchMaxPages_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5, DataManager.getInstance().getConfiguration().getPrefetchMaxPages());
+    }
+
+    /**
+     * @see Configuration#getPrefetchMaxBytes()
+     * @verifies return correct value
+     */
+    @Test
+    void getPrefetchMaxBytes_shouldReturnCorrectValue() {
+        Assertions.assertEquals(10485760, DataManager.getInstance().getConfiguration().getPrefetchMaxBytes());
+    }
+
+    /**
+     * @see Configuration#getPrefetchTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getPrefetchTtl_shouldReturnCorrectValue() {
+        Assertions.assertEquals(60000, DataManager.getInstance().getConfiguration().getPrefetchTtl());
+    }
+
+    /**
+     * @see Configuration#isOutputCompact()
+     * @verifies return correct value
+     */
+    @Test
+    void isOutputCompact_shouldReturnCorrectValue() {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isOutputCompact());
+    }
+
+    /**
+     * @see Configuration#isMetricsEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isMetricsEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isMetricsEnabled());
+    }
+
+    /**
+     * @see Configuration#getMetricsAllowedAddresses()
+     * @verifies return all values
+     */
+    @Test
+    void getMetricsAllowedAddresses_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getMetricsAllowedAddresses();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("127.0.0.1", result.get(0));
+        Assertions.assertEquals("192.168.0.2", result.get(1));
+    }
+
+    /**
+     * @see Configuration#isTracingEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isTracingEnabled_shouldReturnCorrectValue() {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isTracingEnabled());
+    }
+
+    /**
+     * @see Configuration#getTracingAllowedAddresses()
+     * @verifies return all values
+     */
+    @Test
+    void getTracingAllowedAddresses_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getTracingAllowedAddresses();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("127.0.0.1", result.get(0));
+        Assertions.assertEquals("192.168.0.1", result.get(1));
+    }
+
+    /**
+     * @see Configuration#isTracingLogEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isTracingLogEnabled_shouldReturnCorrectValue() {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isTracingLogEnabled());
+    }
+
+    /**
+     * @see Configuration#isAsyncEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isAsyncEnabled_shouldReturnCorrectValue() {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isAsyncEnabled());
+    }
+
+    /**
+     * @see Configuration#getAsyncConcurrencyLimit(String)
+     * @verifies return configured value for key
+     */
+    @Test
+    void getAsyncConcurrencyLimit_shouldReturnConfiguredValueForKey() {
+        Assertions.assertEquals(4, DataManager.getInstance().getConfiguration().getAsyncConcurrencyLimit("ListRecords"));
+    }
+
+    /**
+     * @see Configuration#getAsyncConcurrencyLimit(String)
+     * @verifies return default limit if key not configured
+     */
+    @Test
+    void getAsyncConcurrencyLimit_shouldReturnDefaultLimitIfKeyNotConfigured() {
+        Assertions.assertEquals(20, DataManager.getInstance().getConfiguration().getAsyncConcurrencyLimit("Identify"));
+    }
+
+    /**
+     * @see Configuration#getAsyncQueueTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getAsyncQueueTimeout_shouldReturnCorrectValue() {
+        Assertions.assertEquals(5000, DataManager.getInstance().getConfiguration().getAsyncQueueTimeout());
+    }
+
+    /**
+     * @see Configuration#isAdmissionControlEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isAdmissionControlEnabled_shouldReturnCorrectValue() {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isAdmissionControlEnabled());
+    }
+
+    /**
+     * @see Configuration#getAdmissionRequestsPerMinute()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdmissionRequestsPerMinute_shouldReturnCorrectValue() {
+        Assertions.assertEquals(60, DataManager.getInstance().getConfiguration().getAdmissionRequestsPerMinute());
+    }
+
+    /**
+     * @see Configuration#getAdmissionBurst()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdmissionBurst_shouldReturnCorrectValue() {
+        Assertions.assertEquals(10, DataManager.getInstance().getConfiguration().getAdmissionBurst());
+    }
+
+    /**
+     * @see Configuration#getAdmissionMaxInFlight()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdmissionMaxInFlight_shouldReturnCorrectValue() {
+        Assertions.assertEquals(2, DataManager.getInstance().getConfiguration().getAdmissionMaxInFlight());
+    }
+
+    /**
+     * @see Configuration#getAdmissionHeavyCost()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdmissionHeavyCost_shouldReturnCorrectValue() {
+        Assertions.assertEquals(4, DataManager.getInstance().getConfiguration().getAdmissionHeavyCost());
+    }
+
+    /**
+     * @see Configuration#getAdmissionTrustedProxies()
+     * @verifies return all values
+     */
+    @Test
+    void getAdmissionTrustedProxies_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getAdmissionTrustedProxies();
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("127.0.0.1", result.get(0));
+    }
+
+    /**
+     * @see Configuration#getAdmissionHeavyMetadataPrefixes()
+     * @verifies return all values
+     */
+    @Test
+    void getAdmissionHeavyMetadataPrefixes_shouldReturnAllValues() {
+        List<String> result = DataManager.getInstance().getConfiguration().getAdmissionHeavyMetadataPrefixes();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("mets", result.get(0));
+        Assertions.assertEquals("lido", result.get(1));
+    }
+
     /**
      * @see Configuration#getHarvestUrl()
      * @verifies return correct value
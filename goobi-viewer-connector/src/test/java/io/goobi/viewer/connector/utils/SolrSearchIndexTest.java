@@ -15,18 +15,30 @@
  */
 package io.goobi.viewer.connector.utils;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.util.NamedList;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import io.goobi.viewer.connector.AbstractSolrEnabledTest;
 import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.solr.SolrConstants;
 
@@ -130,4 +142,306 @@ class SolrSearchIndexTest extends AbstractSolrEnabledTest {
         Assertions.assertEquals(4, result.size());
         Assertions.assertEquals("alto/lit30844/p0085.xml", result.get(1));
     }
-}
\ No newline at end of file
+
+    /**
+     * @see SolrSearchIndex#stream(String,List,List,Consumer)
+     * @verifies pass all hits to consumer
+     */
+    @Test
+    void stream_shouldPassAllHitsToConsumer() throws Exception {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        String query = "+" + SolrConstants.PI_TOPSTRUCT + ":PPN517154005 +" + SolrConstants.DOCTYPE + ":PAGE";
+        List<Integer> orders = new ArrayList<>();
+        long count = index.stream(query, Collections.singletonList(SolrConstants.ORDER), Collections.singletonList(SolrConstants.ORDER),
+                doc -> orders.add((Integer) doc.getFieldValue(SolrConstants.ORDER)));
+        Assertions.assertTrue(count > 0);
+        Assertions.assertEquals(index.search(query, 0, 1, null, null, null).getResults().getNumFound(), count);
+        Assertions.assertEquals(count, orders.size());
+        for (int i = 1; i < orders.size(); ++i) {
+            Assertions.assertTrue(orders.get(i - 1) <= orders.get(i));
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#getProcessIds(Collection)
+     * @verifies return process ids correctly
+     */
+    @Test
+    void getProcessIds_shouldReturnProcessIdsCorrectly() throws Exception {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        SolrDocument doc = index.getFirstDoc(SolrConstants.PI + ":PPN517154005", Collections.singletonList(SolrSearchIndex.FIELD_PROCESSID));
+        Assertions.assertNotNull(doc);
+        Map<String, String> result = index.getProcessIds(Arrays.asList("PPN517154005", "PPN517154005", "notfound"));
+        Assertions.assertFalse(result.containsKey("notfound"));
+        // Must match the single record lookup
+        Assertions.assertEquals(doc.getFirstValue(SolrSearchIndex.FIELD_PROCESSID), result.get("PPN517154005"));
+    }
+
+    /**
+     * @see SolrSearchIndex#getProcessIds(Collection)
+     * @verifies return empty map if pis empty
+     */
+    @Test
+    void getProcessIds_shouldReturnEmptyMapIfPisEmpty() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getSearchIndex().getProcessIds(Collections.emptyList()).isEmpty());
+    }
+
+    /**
+     * @see SolrSearchIndex#getAnchorTitles(Collection,String)
+     * @verifies return titles correctly
+     */
+    @Test
+    void getAnchorTitles_shouldReturnTitlesCorrectly() throws Exception {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        SolrDocument anchorDoc = index.getFirstDoc(SolrConstants.ISANCHOR + ":true", Arrays.asList(SolrConstants.IDDOC, SolrConstants.TITLE));
+        Assertions.assertNotNull(anchorDoc);
+        String iddoc = String.valueOf(anchorDoc.getFieldValue(SolrConstants.IDDOC));
+
+        Map<String, String> result = index.getAnchorTitles(Arrays.asList(iddoc, "-1"), "");
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(anchorDoc.getFirstValue(SolrConstants.TITLE), result.get(iddoc));
+        // Second call is served from the cache
+        Assertions.assertEquals(result, index.getAnchorTitles(Collections.singletonList(iddoc), ""));
+    }
+
+    /**
+     * @see SolrSearchIndex#getAnchorTitles(Collection,String)
+     * @verifies return empty map if iddocs empty
+     */
+    @Test
+    void getAnchorTitles_shouldReturnEmptyMapIfIddocsEmpty() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getSearchIndex().getAnchorTitles(Collections.emptyList(), "").isEmpty());
+    }
+
+    /**
+     * @see SolrSearchIndex#getLatestVolumeTimestamps(Collection,long,String)
+     * @verifies return latest volume timestamps correctly
+     */
+    @Test
+    void getLatestVolumeTimestamps_shouldReturnLatestVolumeTimestampsCorrectly() throws Exception {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        SolrDocument anchorDoc = index.getFirstDoc(SolrConstants.ISANCHOR + ":true", Collections.singletonList(SolrConstants.IDDOC));
+        Assertions.assertNotNull(anchorDoc);
+        String iddoc = String.valueOf(anchorDoc.getFieldValue(SolrConstants.IDDOC));
+
+        // Expected value determined from all volumes
+        long expected = -1;
+        for (SolrDocument volume : index.search("+" + SolrConstants.ISWORK + ":true +" + SolrConstants.IDDOC_PARENT + ":" + iddoc, "")) {
+            expected = Math.max(expected, SolrSearchTools.getLatestValidDateUpdated(volume, 0));
+        }
+        Assertions.assertTrue(expected > 0);
+
+        Map<String, Long> result = index.getLatestVolumeTimestamps(Arrays.asList(iddoc, "-1"), 0, "");
+        Assertions.assertEquals(expected, result.get(iddoc));
+        Assertions.assertEquals(-1L, result.get("-1"));
+        // Second call is served from the cache
+        Assertions.assertEquals(result, index.getLatestVolumeTimestamps(Arrays.asList(iddoc, "-1"), 0, ""));
+    }
+
+    /**
+     * @see SolrSearchIndex#getLatestVolumeTimestamps(Collection,long,String)
+     * @verifies return empty map if iddocs empty
+     */
+    @Test
+    void getLatestVolumeTimestamps_shouldReturnEmptyMapIfIddocsEmpty() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamps(Collections.emptyList(), 0, "").isEmpty());
+    }
+
+    /**
+     * @see SolrSearchIndex#getLatestVolumeTimestamp(SolrDocument,long,String)
+     * @verifies return -1 if doc not anchor
+     */
+    @Test
+    void getLatestVolumeTimestamp_shouldReturn1IfDocNotAnchor() throws Exception {
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SolrConstants.IDDOC, "1");
+        Assertions.assertEquals(-1, DataManager.getInstance().getSearchIndex().getLatestVolumeTimestamp(doc, 0, ""));
+    }
+
+    /**
+     * @see SolrSearchIndex#querySolr(SolrQuery,int)
+     * @verifies fail fast if circuit open
+     */
+    @Test
+    void querySolr_shouldFailFastIfCircuitOpen() {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        for (int i = 0; i < DataManager.getInstance().getConfiguration().getSolrCircuitBreakerFailureThreshold(); ++i) {
+            index.getCircuitBreaker().recordFailure();
+        }
+        Assertions.assertFalse(index.isAvailable());
+        SolrServerException e = Assertions.assertThrows(SolrServerException.class, () -> index.querySolr(new SolrQuery("*:*"), 1));
+        Assertions.assertTrue(e.getMessage().startsWith("Solr is unavailable"));
+    }
+
+    /**
+     * @see SolrSearchIndex#isRetryable(Exception)
+     * @verifies return true for timeouts
+     */
+    @Test
+    void isRetryable_shouldReturnTrueForTimeouts() {
+        Assertions.assertTrue(SolrSearchIndex.isRetryable(new SolrServerException("Idle timeout expired: 300000/300000 ms")));
+        Assertions.assertTrue(SolrSearchIndex.isRetryable(new SolrServerException("Read timed out")));
+    }
+
+    /**
+     * @see SolrSearchIndex#isRetryable(Exception)
+     * @verifies return true for connection problems
+     */
+    @Test
+    void isRetryable_shouldReturnTrueForConnectionProblems() {
+        Assertions.assertTrue(SolrSearchIndex.isRetryable(new SolrServerException(new ConnectException("Connection refused"))));
+        Assertions.assertTrue(SolrSearchIndex.isRetryable(new IOException("Connection reset")));
+    }
+
+    /**
+     * @see SolrSearchIndex#isRetryable(Exception)
+     * @verifies return false for other errors
+     */
+    @Test
+    void isRetryable_shouldReturnFalseForOtherErrors() {
+        Assertions.assertFalse(SolrSearchIndex.isRetryable(new SolrServerException("Error parsing response")));
+    }
+
+    /**
+     * @see SolrSearchIndex#getBackoffMillis(int,long,long)
+     * @verifies grow exponentially
+     */
+    @Test
+    void getBackoffMillis_shouldGrowExponentially() {
+        for (int retry = 1; retry <= 4; ++retry) {
+            long exponential = 100L << (retry - 1);
+            long result = SolrSearchIndex.getBackoffMillis(retry, 100, 10000);
+            Assertions.assertTrue(result >= exponential / 2 && result <= exponential, retry + ": " + result);
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#getBackoffMillis(int,long,long)
+     * @verifies not exceed max
+     */
+    @Test
+    void getBackoffMillis_shouldNotExceedMax() {
+        Assertions.assertTrue(SolrSearchIndex.getBackoffMillis(40, 100, 2000) <= 2000);
+    }
+
+    /**
+     * @see SolrSearchIndex#createSolrClient(Configuration)
+     * @verifies create load balanced client if replicas configured
+     */
+    @Test
+    void createSolrClient_shouldCreateLoadBalancedClientIfReplicasConfigured() throws Exception {
+        try (SolrClient client = SolrSearchIndex.createSolrClient(DataManager.getInstance().getConfiguration())) {
+            Assertions.assertInstanceOf(LoadBalancedSolrClient.class, client);
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#leaseClient()
+     * @verifies keep replaced client open until lease closed
+     */
+    @Test
+    void leaseClient_shouldKeepReplacedClientOpenUntilLeaseClosed() throws Exception {
+        boolean[] closed = { false };
+        SolrClient unreachableClient = new SolrClient() {
+
+            @Override
+            public NamedList<Object> request(SolrRequest<?> request, String collection) throws SolrServerException {
+                throw new SolrServerException("unreachable");
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        SolrSearchIndex index = new SolrSearchIndex(unreachableClient, true);
+        try {
+            SolrSearchIndex.ClientLease lease = index.leaseClient();
+            Assertions.assertSame(unreachableClient, lease.getClient());
+
+            // Failed ping replaces the client
+            index.setTestMode(false);
+            index.checkReloadNeeded();
+            Assertions.assertNotSame(unreachableClient, index.getClient());
+            Assertions.assertFalse(closed[0]);
+
+            lease.close();
+            Assertions.assertTrue(closed[0]);
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#isDateRangeEmpty(String,String,String,String,String)
+     * @verifies return true if no change in range
+     */
+    @Test
+    void isDateRangeEmpty_shouldReturnTrueIfNoChangeInRange() throws Exception {
+        SolrSearchIndex index = new SolrSearchIndex(null, true);
+        try (ChangeIndex changeIndex = new ChangeIndex(null)) {
+            changeIndex.add(new long[] { 1000 }, System.currentTimeMillis());
+            index.setChangeIndex(changeIndex);
+            Assertions.assertTrue(index.isDateRangeEmpty("2020-01-01", "2020-12-31", null, Metadata.OAI_DC.getMetadataPrefix(), null));
+            Assertions.assertEquals(0, index.search("2020-01-01", "2020-12-31", null, Metadata.OAI_DC.getMetadataPrefix(), 0, 10, false, "", "",
+                    null, null).getResults().getNumFound());
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#isDateRangeEmpty(String,String,String,String,String)
+     * @verifies return false if change in range
+     */
+    @Test
+    void isDateRangeEmpty_shouldReturnFalseIfChangeInRange() throws Exception {
+        SolrSearchIndex index = new SolrSearchIndex(null, true);
+        try (ChangeIndex changeIndex = new ChangeIndex(null)) {
+            changeIndex.add(new long[] { RequestHandler.getFromTimestamp("2020-06-01") }, System.currentTimeMillis());
+            index.setChangeIndex(changeIndex);
+            Assertions.assertFalse(index.isDateRangeEmpty("2020-01-01", "2020-12-31", null, Metadata.OAI_DC.getMetadataPrefix(), null));
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#isDateRangeEmpty(String,String,String,String,String)
+     * @verifies return false if additional query set
+     */
+    @Test
+    void isDateRangeEmpty_shouldReturnFalseIfAdditionalQuerySet() throws Exception {
+        SolrSearchIndex index = new SolrSearchIndex(null, true);
+        try (ChangeIndex changeIndex = new ChangeIndex(null)) {
+            changeIndex.add(new long[] { 1000 }, System.currentTimeMillis());
+            index.setChangeIndex(changeIndex);
+            String additionalQuery = SolrSearchTools.getAdditionalDocstructsQuerySuffix(Collections.singletonList("Article"));
+            Assertions.assertFalse(
+                    index.isDateRangeEmpty("2020-01-01", "2020-12-31", null, Metadata.OAI_DC.getMetadataPrefix(), additionalQuery));
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#isDateRangeEmpty(String,String,String,String,String)
+     * @verifies check tail in solr if until missing
+     */
+    @Test
+    void isDateRangeEmpty_shouldCheckTailInSolrIfUntilMissing() throws Exception {
+        SolrSearchIndex index = DataManager.getInstance().getSearchIndex();
+        try (ChangeIndex changeIndex = new ChangeIndex(index)) {
+            long now = System.currentTimeMillis();
+            changeIndex.add(new long[] { RequestHandler.getFromTimestamp("2020-06-01") }, now);
+            index.setChangeIndex(changeIndex);
+            // Loaded part contains a change
+            Assertions.assertFalse(index.isDateRangeEmpty("2020-01-01", null, null, Metadata.OAI_DC.getMetadataPrefix(), null));
+            // Loaded part is empty and nothing has been indexed after now
+            String from = Instant.ofEpochMilli(now - 1000).toString().substring(0, 19) + "Z";
+            Assertions.assertTrue(index.isDateRangeEmpty(from, null, null, Metadata.OAI_DC.getMetadataPrefix(), null));
+        } finally {
+            index.setChangeIndex(null);
+        }
+    }
+}
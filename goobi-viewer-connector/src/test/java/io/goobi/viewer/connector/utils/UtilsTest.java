@@ -15,9 +15,13 @@
  */
 package io.goobi.viewer.connector.utils;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Map;
 
+import org.jdom2.Document;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -57,6 +61,27 @@ class UtilsTest extends AbstractTest {
     void convertDate_shouldConvertTimeCorrectly() {
         Assertions.assertEquals("2016-05-23T10:40:00Z", Utils.convertDate(1464000000000L));
     }
+
+    /**
+     * @see Utils#convertDate(long)
+     * @verifies format milliseconds like DateTimeFormatter
+     */
+    @Test
+    void convertDate_shouldFormatMillisecondsLikeDateTimeFormatter() {
+        Assertions.assertEquals("2016-05-23T10:40:00.123Z", Utils.convertDate(1464000000123L));
+        Assertions.assertEquals("2016-05-23T10:40:00.12Z", Utils.convertDate(1464000000120L));
+        Assertions.assertEquals("2000-02-29T00:00:00Z", Utils.convertDate(951782400000L));
+        Assertions.assertEquals("1969-12-31T23:59:59.999Z", Utils.convertDate(-1L));
+    }
+
+    /**
+     * @see Utils#convertDate(long)
+     * @verifies fall back for years outside four digits
+     */
+    @Test
+    void convertDate_shouldFallBackForYearsOutsideFourDigits() {
+        Assertions.assertEquals("+10000-01-01T00:00:00Z", Utils.convertDate(253402300800000L));
+    }
     
     /**
      * @see Utils#parseDate(Object)
@@ -165,4 +190,17 @@ class UtilsTest extends AbstractTest {
     void formatVersionString_shouldFormatStringCorrectly() {
         Assertions.assertTrue(Utils.formatVersionString(Utils.getVersion()).startsWith("Goobi viewer Connector"));
     }
+
+    /**
+     * @see Utils#getDocumentFromStream(InputStream)
+     * @verifies parse document correctly
+     */
+    @Test
+    void getDocumentFromStream_shouldParseDocumentCorrectly() throws Exception {
+        try (InputStream in = Files.newInputStream(Path.of("src/test/resources/viewer/indexed_lido/455820.xml"))) {
+            Document doc = Utils.getDocumentFromStream(in);
+            Assertions.assertNotNull(doc);
+            Assertions.assertEquals("lido", doc.getRootElement().getName());
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.model.ErrorCode;
+
+class XmlOutputTest extends AbstractTest {
+
+    private static final Namespace XSI_NS = Namespace.getNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
+
+    /**
+     * @see XmlOutput#getFormat(boolean)
+     * @verifies return raw format if compact
+     */
+    @Test
+    void getFormat_shouldReturnRawFormatIfCompact() {
+        Format format = XmlOutput.getFormat(true);
+        Assertions.assertEquals(Format.TextMode.PRESERVE, format.getTextMode());
+        Assertions.assertNull(format.getIndent());
+        Assertions.assertEquals("utf-8", format.getEncoding());
+    }
+
+    /**
+     * @see XmlOutput#getFormat(boolean)
+     * @verifies return pretty format if not compact
+     */
+    @Test
+    void getFormat_shouldReturnPrettyFormatIfNotCompact() {
+        Format format = XmlOutput.getFormat(false);
+        Assertions.assertEquals(Format.TextMode.TRIM, format.getTextMode());
+        Assertions.assertNotNull(format.getIndent());
+        Assertions.assertEquals("utf-8", format.getEncoding());
+    }
+
+    /**
+     * @see XmlOutput#createOutputter()
+     * @verifies write error elements like regular elements
+     */
+    @Test
+    void createOutputter_shouldWriteErrorElementsLikeRegularElements() {
+        Namespace xmlns = DataManager.getInstance().getConfiguration().getStandardNameSpace();
+        Element root = new Element("OAI-PMH", xmlns);
+        root.addContent(new ErrorCode().getNoRecordsMatch());
+        Element expected = new Element("OAI-PMH", xmlns);
+        expected.addContent(new Element(XmlConstants.ELE_NAME_ERROR, xmlns).setAttribute("code", "noRecordsMatch")
+                .setText(new ErrorCode().getNoRecordsMatch().getText()));
+
+        for (boolean compact : new boolean[] { true, false }) {
+            XMLOutputter plain = new XMLOutputter(XmlOutput.getFormat(compact));
+            XMLOutputter outputter = XmlOutput.createOutputter();
+            outputter.setFormat(XmlOutput.getFormat(compact));
+            Assertions.assertEquals(plain.outputString(new Document(expected.clone())), outputter.outputString(new Document(root.clone())));
+        }
+    }
+
+    /**
+     * @see XmlOutput#createOutputter(java.util.function.Predicate)
+     * @verifies declare inherited namespaces on matching elements
+     */
+    @Test
+    void createOutputter_shouldDeclareInheritedNamespacesOnMatchingElements() {
+        Element root = new Element("root");
+        root.addNamespaceDeclaration(XSI_NS);
+        Element inner = new Element("inner");
+        inner.addNamespaceDeclaration(XSI_NS);
+        inner.setAttribute("schemaLocation", "foo bar", XSI_NS);
+        root.addContent(new Element("other").setAttribute("type", "x", XSI_NS));
+        root.addContent(inner);
+        Document doc = new Document(root);
+
+        String unchanged = XmlOutput.createOutputter().outputString(doc);
+        Assertions.assertTrue(unchanged.contains("<inner xsi:schemaLocation=\"foo bar\""));
+
+        String result = XmlOutput.createOutputter(e -> "inner".equals(e.getName())).outputString(doc);
+        Assertions.assertTrue(result.contains("<root xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"));
+        Assertions.assertTrue(result.contains("<other xsi:type=\"x\""));
+        Assertions.assertTrue(result.contains("<inner xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"foo bar\""));
+    }
+}